@@ -0,0 +1,92 @@
+package com.ittm.bench;
+
+import com.ittm.model.Role;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.service.TicketService;
+import com.ittm.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Measures caller-side latency for every {@link Durability} mode, with several agents writing
+ * at once: raw {@code DataStore.addHistory} appends, and {@code TicketService.addNote} (ticket
+ * load, update, one note and one history entry in a single unit of work).
+ */
+public class AppendLatencyBenchmark {
+    private static final int TICKETS = 500;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int notesPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        System.out.printf("%-13s %8s %16s %16s %12s%n", "durability", "threads", "addHistory us", "service us", "commits");
+        for (Durability durability : Durability.values()) {
+            DataStoreConfig config = new DataStoreConfig().durability(durability);
+            try (DataStore store = new DataStore(BenchData.tempDatabaseUrl(), config)) {
+                UserService users = new UserService(store);
+                TicketService tickets = new TicketService(store);
+                User requester = users.createUser(1, "Requester", Role.USER);
+                users.createUser(2, "Agent", Role.AGENT);
+                int[] ids = new int[TICKETS];
+                for (int i = 0; i < TICKETS; i++) {
+                    ids[i] = tickets.createTicket(requester, "Ticket " + i, "Benchmark ticket", "Hardware").getId();
+                }
+                int baseline = appendedRows(store);
+                long commits = store.getCommitCount();
+                double historyMicros = run(threads, notesPerThread, i -> store.addHistory(ids[i % TICKETS],
+                        new TicketHistoryEntry(LocalDateTime.now(), "Progress " + i, requester.getName())));
+                double serviceMicros = run(threads, notesPerThread, i -> tickets.addNote(requester, ids[i % TICKETS], "Update " + i));
+                store.flushAppends();
+                // one history row per addHistory call, a note and a history row per service call
+                int expected = 3 * threads * notesPerThread;
+                int stored = appendedRows(store) - baseline;
+                if (stored != expected) {
+                    throw new IllegalStateException("Expected " + expected + " appended rows but found " + stored);
+                }
+                System.out.printf("%-13s %8d %16.1f %16.1f %12d%n", durability, threads, historyMicros, serviceMicros,
+                        store.getCommitCount() - commits);
+            }
+        }
+    }
+
+    private static int appendedRows(DataStore store) {
+        return store.getTickets().stream().mapToInt(t -> t.getNotes().size() + t.getHistory().size()).sum();
+    }
+
+    /**
+     * Runs {@code perThread} operations on each of {@code threads} threads and returns the mean
+     * latency per operation in microseconds.
+     */
+    private static double run(int threads, int perThread, IntConsumer operation) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int offset = t * perThread;
+                results.add(pool.submit(() -> {
+                    long start = System.nanoTime();
+                    for (int i = 0; i < perThread; i++) {
+                        operation.accept(offset + i);
+                    }
+                    return System.nanoTime() - start;
+                }));
+            }
+            long totalNanos = 0;
+            for (Future<Long> result : results) {
+                totalNanos += result.get();
+            }
+            return totalNanos / 1_000.0 / (threads * perThread);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
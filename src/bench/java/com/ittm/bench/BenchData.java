@@ -0,0 +1,62 @@
+package com.ittm.bench;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * Shared fixtures for the benchmark tools.
+ */
+final class BenchData {
+    private BenchData() {
+    }
+
+    /**
+     * Creates one requester, one agent and {@code tickets} assigned tickets with two history
+     * entries and one note each.
+     */
+    static void seed(DataStore store, int tickets) {
+        User requester = new User(1, "Requester", Role.USER);
+        User agent = new User(2, "Agent", Role.AGENT);
+        store.saveUser(requester);
+        store.saveUser(agent);
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < tickets; i++) {
+            Ticket ticket = store.createTicket(requester, "Ticket " + i, "Benchmark ticket", "Hardware", now);
+            ticket.setAssignedAgent(agent);
+            store.updateTicket(ticket);
+            store.addHistory(ticket.getId(), new TicketHistoryEntry(now, "Ticket raised", requester.getName()));
+            store.addHistory(ticket.getId(), new TicketHistoryEntry(now, "Assigned to agent " + agent.getName(), "System"));
+            store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), "Looking into it", now));
+        }
+    }
+
+    /**
+     * Returns a JDBC URL for a fresh database file that is deleted on exit.
+     */
+    static String tempDatabaseUrl() throws IOException {
+        Path file = Files.createTempFile("ittm-bench", ".db");
+        file.toFile().deleteOnExit();
+        Path.of(file + "-wal").toFile().deleteOnExit();
+        Path.of(file + "-shm").toFile().deleteOnExit();
+        Path.of(file + ".lock").toFile().deleteOnExit();
+        return "jdbc:sqlite:" + file;
+    }
+
+    static int[] parseInts(String arg) {
+        String[] parts = arg.split(",");
+        int[] values = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Integer.parseInt(parts[i].trim());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,78 @@
+package com.ittm.bench;
+
+import com.ittm.model.ChangeRequest;
+import com.ittm.model.Role;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.service.ChangeRequestService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Times the 15-day expiry report against the previous load-everything-and-filter approach,
+ * and one set-based archive sweep, for growing numbers of change requests created over the
+ * last three years.
+ */
+public class ChangeRequestExpiryBenchmark {
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? BenchData.parseInts(args[0]) : new int[]{10_000, 100_000};
+        int repetitions = 20;
+        System.out.printf("%10s %10s %14s %14s %12s %12s%n", "changes", "expiring", "indexed ms", "full scan ms", "archived", "sweep ms");
+        for (int size : sizes) {
+            try (DataStore store = new DataStore(BenchData.tempDatabaseUrl())) {
+                seed(store, size);
+                ChangeRequestService service = new ChangeRequestService(store);
+                LocalDate today = LocalDate.now();
+                long start = System.nanoTime();
+                int archived = service.archiveOld(today);
+                double sweepMs = (System.nanoTime() - start) / 1_000_000.0;
+                List<Integer> indexed = service.expiringWithin(15).stream().map(ChangeRequest::getId).sorted().collect(Collectors.toList());
+                List<Integer> scanned = fullScan(store, today.plusDays(15)).stream().map(ChangeRequest::getId).sorted().collect(Collectors.toList());
+                if (!indexed.equals(scanned)) {
+                    throw new IllegalStateException("Indexed expiry report returned " + indexed.size() + " rows, full scan " + scanned.size());
+                }
+                System.out.printf("%10d %10d %14.3f %14.2f %12d %12.1f%n", size, indexed.size(),
+                        time(repetitions, () -> service.expiringWithin(15).size()),
+                        time(repetitions, () -> fullScan(store, today.plusDays(15)).size()),
+                        archived, sweepMs);
+            }
+        }
+    }
+
+    /**
+     * Spreads creation over the last three years with expiry dates 30 to 430 days later.
+     */
+    private static void seed(DataStore store, int changes) {
+        User requester = new User(1, "Requester", Role.USER);
+        store.saveUser(requester);
+        LocalDateTime start = LocalDateTime.now().minusYears(3);
+        long minutesSpan = 3L * 365 * 24 * 60;
+        store.inTransaction(() -> {
+            for (int i = 0; i < changes; i++) {
+                LocalDateTime createdAt = start.plusMinutes(minutesSpan * i / changes);
+                LocalDate expiry = createdAt.toLocalDate().plusDays(30 + (i * 7L) % 400);
+                store.createChangeRequest(requester, "Change " + i, "Benchmark change", expiry, createdAt);
+            }
+        });
+    }
+
+    private static List<ChangeRequest> fullScan(DataStore store, LocalDate threshold) {
+        return store.getChangeRequests().stream()
+                .filter(cr -> !cr.isArchived())
+                .filter(cr -> !cr.getExpiryDate().isAfter(threshold))
+                .collect(Collectors.toList());
+    }
+
+    private static double time(int repetitions, IntSupplier check) {
+        check.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            check.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ittm.bench;
+
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures {@code findTicket} throughput for growing reader thread counts, once with the
+ * pooled WAL readers and once with every read funnelled through the single writer
+ * connection. Usage: {@code ConcurrentReadBenchmark [tickets] [threads,...] [seconds]}.
+ */
+public class ConcurrentReadBenchmark {
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts = args.length > 1 ? BenchData.parseInts(args[1]) : new int[]{1, 2, 4, cores, cores * 2};
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        String url = BenchData.tempDatabaseUrl();
+        try (DataStore seedStore = new DataStore(url)) {
+            BenchData.seed(seedStore, tickets);
+        }
+        System.out.printf("%d tickets, %d cores%n", tickets, cores);
+        System.out.printf("%8s %16s %16s%n", "threads", "pooled ops/s", "single ops/s");
+        for (int threads : threadCounts) {
+            double pooled = run(url, new DataStoreConfig().readerPoolSize(threads), tickets, threads, seconds);
+            double single = run(url, new DataStoreConfig().readerPoolSize(0), tickets, threads, seconds);
+            System.out.printf("%8d %16.0f %16.0f%n", threads, pooled, single);
+        }
+    }
+
+    private static double run(String url, DataStoreConfig config, int tickets, int threads, int seconds) throws Exception {
+        try (DataStore store = new DataStore(url, config)) {
+            AtomicBoolean running = new AtomicBoolean(true);
+            LongAdder operations = new LongAdder();
+            List<Thread> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                Thread worker = new Thread(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (running.get()) {
+                        store.findTicket(1 + random.nextInt(tickets));
+                        operations.increment();
+                    }
+                });
+                workers.add(worker);
+                worker.start();
+            }
+            long start = System.nanoTime();
+            TimeUnit.SECONDS.sleep(seconds);
+            running.set(false);
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            return operations.sum() / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+}
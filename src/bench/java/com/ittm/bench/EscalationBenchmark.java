@@ -0,0 +1,81 @@
+package com.ittm.bench;
+
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.FetchPlan;
+import com.ittm.service.TicketService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.IntSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Compares the scheduler-backed {@code TicketService.escalations} with the previous full scan
+ * (load every ticket, filter unresolved ones older than 24 hours) for growing ticket counts
+ * where only a few tickets are overdue.
+ */
+public class EscalationBenchmark {
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? BenchData.parseInts(args[0]) : new int[]{10_000, 100_000};
+        int repetitions = 20;
+        System.out.printf("%10s %8s %14s %14s %14s%n", "tickets", "due", "rebuild ms", "scheduler ms", "full scan ms");
+        for (int size : sizes) {
+            try (DataStore store = new DataStore(BenchData.tempDatabaseUrl())) {
+                seed(store, size);
+                long start = System.nanoTime();
+                TicketService service = new TicketService(store);
+                double rebuildMs = (System.nanoTime() - start) / 1_000_000.0;
+                LocalDateTime now = LocalDateTime.now();
+                List<Integer> expected = fullScan(store, now);
+                List<Integer> actual = service.escalations(now).stream().map(Ticket::getId).collect(Collectors.toList());
+                if (!expected.equals(actual)) {
+                    throw new IllegalStateException("Scheduler returned " + actual.size() + " tickets, full scan " + expected.size());
+                }
+                System.out.printf("%10d %8d %14.1f %14.3f %14.2f%n", size, actual.size(), rebuildMs,
+                        time(repetitions, () -> service.escalations(now).size()),
+                        time(repetitions, () -> fullScan(store, now).size()));
+            }
+        }
+    }
+
+    /**
+     * Creates tickets over the last 30 days; all but the most recent ones and one in 500 of the
+     * older ones are resolved.
+     */
+    private static void seed(DataStore store, int tickets) {
+        User requester = new User(1, "Requester", Role.USER);
+        store.saveUser(requester);
+        LocalDateTime start = LocalDateTime.now().minusDays(30);
+        long minutesSpan = 30L * 24 * 60;
+        store.inTransaction(() -> {
+            for (int i = 0; i < tickets; i++) {
+                LocalDateTime createdAt = start.plusMinutes(minutesSpan * i / tickets);
+                Ticket ticket = store.createTicket(requester, "Ticket " + i, "Escalation ticket", "Hardware", createdAt);
+                boolean recent = createdAt.isAfter(LocalDateTime.now().minusHours(24));
+                ticket.setStatus(recent || i % 500 == 0 ? TicketStatus.OPEN : TicketStatus.RESOLVED);
+                store.updateTicket(ticket);
+            }
+        });
+    }
+
+    private static List<Integer> fullScan(DataStore store, LocalDateTime now) {
+        return store.getTickets(FetchPlan.SUMMARY).stream()
+                .filter(t -> t.getStatus() != TicketStatus.RESOLVED)
+                .filter(t -> t.getCreatedAt().isBefore(now.minusHours(24)))
+                .map(Ticket::getId)
+                .collect(Collectors.toList());
+    }
+
+    private static double time(int repetitions, IntSupplier check) {
+        check.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            check.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+}
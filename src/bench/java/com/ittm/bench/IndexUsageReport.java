@@ -0,0 +1,25 @@
+package com.ittm.bench;
+
+import com.ittm.repository.DataStore;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Opens a fresh database and fails with a non-zero exit code when any hot query plan
+ * scans a table instead of using an index.
+ */
+public class IndexUsageReport {
+    public static void main(String[] args) throws Exception {
+        try (DataStore store = new DataStore(args.length > 0 ? args[0] : "jdbc:sqlite::memory:")) {
+            System.out.println("Schema version " + store.getSchemaVersion());
+            Map<String, List<String>> violations = store.findUnindexedHotQueries();
+            if (violations.isEmpty()) {
+                System.out.println("All hot queries use indexes");
+                return;
+            }
+            violations.forEach((sql, plan) -> System.out.println("UNINDEXED: " + sql + System.lineSeparator() + "  " + plan));
+            System.exit(1);
+        }
+    }
+}
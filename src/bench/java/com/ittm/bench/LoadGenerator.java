@@ -0,0 +1,278 @@
+package com.ittm.bench;
+
+import com.ittm.metrics.MetricsRegistry;
+import com.ittm.model.Role;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.TicketFilter;
+import com.ittm.service.TicketService;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Seeds a database with {@link RealisticSeeder} (unless it already holds tickets) and then
+ * replays a weighted mix of service operations from several threads for a fixed duration,
+ * printing throughput and p50/p99/p99.9 latency per operation.
+ *
+ * <p>Arguments are {@code key=value} pairs, all optional:
+ * <pre>
+ * db=ittm-load.db threads=8 seconds=30 warmup=5 durability=SYNC
+ * users=2000 agents=40 tickets=50000 notes=3 changeRequests=5000 days=365 seed=42
+ * mix=create:5,note:20,status:10,search:25,view:30,report:10 metrics=true
+ * </pre>
+ * Without {@code db} a temporary database is used. With {@code metrics=true} the per-method
+ * metrics table is printed after the run; {@code metrics=false} disables recording, which
+ * shows the instrumentation overhead when compared with a run that has it on.
+ */
+public class LoadGenerator {
+    private static final String DEFAULT_MIX = "create:5,note:20,status:10,search:25,view:30,report:10";
+    private static final TicketStatus[] AGENT_STATUSES = {
+            TicketStatus.IN_PROGRESS, TicketStatus.AWAITING_RESPONSE, TicketStatus.RESOLVED};
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int seconds = Integer.parseInt(options.getOrDefault("seconds", "30"));
+        int warmup = Integer.parseInt(options.getOrDefault("warmup", "5"));
+        String url = options.containsKey("db") ? "jdbc:sqlite:" + options.get("db") : BenchData.tempDatabaseUrl();
+        SeedProfile profile = new SeedProfile()
+                .users(Integer.parseInt(options.getOrDefault("users", "2000")))
+                .agents(Integer.parseInt(options.getOrDefault("agents", "40")))
+                .tickets(Integer.parseInt(options.getOrDefault("tickets", "50000")))
+                .notesPerTicket(Double.parseDouble(options.getOrDefault("notes", "3")))
+                .changeRequests(Integer.parseInt(options.getOrDefault("changeRequests", "5000")))
+                .days(Integer.parseInt(options.getOrDefault("days", "365")))
+                .randomSeed(Long.parseLong(options.getOrDefault("seed", "42")));
+        DataStoreConfig config = new DataStoreConfig()
+                .durability(Durability.valueOf(options.getOrDefault("durability", "SYNC")))
+                .readerPoolSize(Math.max(4, threads))
+                .metrics(new MetricsRegistry(Boolean.parseBoolean(options.getOrDefault("metrics", "true"))));
+        Operation[] mix = parseMix(options.getOrDefault("mix", DEFAULT_MIX));
+
+        try (DataStore store = new DataStore(url, config)) {
+            if (store.getTickets(FetchPlan.SUMMARY).isEmpty()) {
+                System.out.println("Seeding " + profile);
+                long start = System.nanoTime();
+                new RealisticSeeder(profile).seed(store);
+                System.out.printf("Seeded in %.1f s%n", (System.nanoTime() - start) / 1e9);
+            }
+            Workload workload = new Workload(store, mix);
+            store.getMetrics().reset();
+            System.out.printf("Running %d threads for %d s (+%d s warmup), durability %s%n",
+                    threads, seconds, warmup, config.getDurability());
+            List<Recorder> recorders = workload.run(threads, warmup, seconds, profile.getRandomSeed());
+            report(mix, recorders, seconds);
+            if (store.getMetrics().isEnabled()) {
+                System.out.println();
+                System.out.print(store.getMetrics().dump());
+            }
+        }
+    }
+
+    private static void report(Operation[] mix, List<Recorder> recorders, int seconds) {
+        System.out.printf("%-8s %10s %10s %10s %10s %10s %8s%n", "op", "count", "ops/s", "p50 us", "p99 us", "p999 us", "errors");
+        long total = 0;
+        for (int op = 0; op < mix.length; op++) {
+            int count = 0;
+            long errors = 0;
+            for (Recorder recorder : recorders) {
+                count += recorder.counts[op];
+                errors += recorder.errors[op];
+            }
+            long[] merged = new long[count];
+            int offset = 0;
+            for (Recorder recorder : recorders) {
+                System.arraycopy(recorder.latencies[op], 0, merged, offset, recorder.counts[op]);
+                offset += recorder.counts[op];
+            }
+            Arrays.sort(merged);
+            total += count;
+            System.out.printf("%-8s %10d %10.0f %10.0f %10.0f %10.0f %8d%n", mix[op].name, count, (double) count / seconds,
+                    percentile(merged, 0.50), percentile(merged, 0.99), percentile(merged, 0.999), errors);
+        }
+        System.out.printf("%-8s %10d %10.0f%n", "total", total, (double) total / seconds);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1_000.0;
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value but got " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+
+    private static Operation[] parseMix(String spec) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String part : spec.split(",")) {
+            String[] pair = part.split(":");
+            weights.put(pair[0].trim(), Integer.parseInt(pair[1].trim()));
+        }
+        List<Operation> operations = new ArrayList<>();
+        weights.forEach((name, weight) -> {
+            if (weight > 0) {
+                operations.add(new Operation(name, weight));
+            }
+        });
+        return operations.toArray(new Operation[0]);
+    }
+
+    private static final class Operation {
+        private final String name;
+        private final int weight;
+
+        private Operation(String name, int weight) {
+            this.name = name;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Drives the services; requesters are picked with the same Zipf skew the seeder uses.
+     */
+    private static final class Workload {
+        private final TicketService tickets;
+        private final Operation[] mix;
+        private final double[] mixCdf;
+        private final List<User> requesters = new ArrayList<>();
+        private final List<User> agents = new ArrayList<>();
+        private final double[] requesterCdf;
+        private final AtomicInteger maxTicketId;
+
+        private Workload(DataStore store, Operation[] mix) {
+            this.tickets = new TicketService(store);
+            this.mix = mix;
+            double[] weights = new double[mix.length];
+            for (int i = 0; i < mix.length; i++) {
+                weights[i] = mix[i].weight;
+            }
+            this.mixCdf = RealisticSeeder.cdf(weights);
+            for (User user : store.getAllUsers()) {
+                if (user.getRole() == Role.USER) {
+                    requesters.add(user);
+                } else if (user.getRole() == Role.AGENT) {
+                    agents.add(user);
+                }
+            }
+            if (requesters.isEmpty() || agents.isEmpty()) {
+                throw new IllegalStateException("The database needs at least one requester and one agent");
+            }
+            this.requesterCdf = RealisticSeeder.zipfCdf(requesters.size(), 1.1);
+            this.maxTicketId = new AtomicInteger(store.getTickets(FetchPlan.SUMMARY).stream().mapToInt(t -> t.getId()).max().orElse(0));
+        }
+
+        private List<Recorder> run(int threads, int warmupSeconds, int seconds, long seed) throws Exception {
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                long measureFrom = System.nanoTime() + warmupSeconds * 1_000_000_000L;
+                long until = measureFrom + seconds * 1_000_000_000L;
+                List<Future<Recorder>> futures = new ArrayList<>();
+                for (int t = 0; t < threads; t++) {
+                    Random random = new Random(seed + t);
+                    futures.add(pool.submit(() -> drive(random, measureFrom, until)));
+                }
+                List<Recorder> recorders = new ArrayList<>();
+                for (Future<Recorder> future : futures) {
+                    recorders.add(future.get());
+                }
+                return recorders;
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        private Recorder drive(Random random, long measureFrom, long until) {
+            Recorder recorder = new Recorder(mix.length);
+            long now = System.nanoTime();
+            while (now < until) {
+                int op = RealisticSeeder.sample(mixCdf, random);
+                boolean failed = false;
+                long start = System.nanoTime();
+                try {
+                    execute(mix[op].name, random);
+                } catch (RuntimeException ex) {
+                    failed = true;
+                }
+                now = System.nanoTime();
+                if (start >= measureFrom) {
+                    recorder.record(op, now - start, failed);
+                }
+            }
+            return recorder;
+        }
+
+        private void execute(String operation, Random random) {
+            User requester = requesters.get(RealisticSeeder.sample(requesterCdf, random));
+            User agent = agents.get(random.nextInt(agents.size()));
+            switch (operation) {
+                case "create" -> {
+                    String category = RealisticSeeder.CATEGORIES[random.nextInt(RealisticSeeder.CATEGORIES.length)];
+                    int id = tickets.createTicket(requester, category + " issue", "Generated under load", category).getId();
+                    maxTicketId.accumulateAndGet(id, Math::max);
+                }
+                case "note" -> tickets.addNote(agent, randomTicket(random), "Load note");
+                case "status" -> tickets.updateStatus(agent, randomTicket(random), AGENT_STATUSES[random.nextInt(AGENT_STATUSES.length)]);
+                case "search" -> tickets.search(new TicketFilter().status(TicketStatus.OPEN)
+                        .createdFrom(LocalDate.now().minusDays(30)), null, 50);
+                case "view" -> tickets.viewTicketsForUser(random.nextInt(4) == 0 ? agent : requester, new TicketFilter(), null, 20);
+                case "report" -> tickets.monthlyReport();
+                default -> throw new IllegalArgumentException("Unknown operation " + operation);
+            }
+        }
+
+        private int randomTicket(Random random) {
+            return 1 + random.nextInt(Math.max(1, maxTicketId.get()));
+        }
+    }
+
+    /**
+     * Per-thread latency samples in nanoseconds, one growable array per operation.
+     */
+    private static final class Recorder {
+        private final long[][] latencies;
+        private final int[] counts;
+        private final long[] errors;
+
+        private Recorder(int operations) {
+            latencies = new long[operations][1024];
+            counts = new int[operations];
+            errors = new long[operations];
+        }
+
+        private void record(int op, long nanos, boolean failed) {
+            if (failed) {
+                errors[op]++;
+            }
+            if (counts[op] == latencies[op].length) {
+                latencies[op] = Arrays.copyOf(latencies[op], latencies[op].length * 2);
+            }
+            latencies[op][counts[op]++] = nanos;
+        }
+    }
+}
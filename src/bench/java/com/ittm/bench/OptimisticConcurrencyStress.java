@@ -0,0 +1,145 @@
+package com.ittm.bench;
+
+import com.ittm.metrics.ProbeSnapshot;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.ConcurrentUpdateException;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.FetchPlan;
+import com.ittm.service.TicketService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Has many threads edit a few shared tickets at once through {@link TicketService}: half of the
+ * calls are requester description edits, half admin reassignments. Every call goes through the
+ * service's load, apply and compare-and-set write, so lost races are retried against the reloaded
+ * row and a call that loses every attempt fails with {@link ConcurrentUpdateException}. Afterwards
+ * checks that each completed call bumped the row version once and logged one history entry, and
+ * that no description edit wrote back a stale agent. Prints calls, retries, exhausted calls and
+ * throughput per operation.
+ * Arguments: [threads] [tickets] [calls per thread].
+ */
+public class OptimisticConcurrencyStress {
+    private static final String REASSIGNED = "Reassigned to ";
+    private static final String DESCRIPTION_UPDATED = "Description updated";
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int tickets = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int callsPerThread = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        System.out.printf("%d threads x %d calls over %d tickets%n", threads, callsPerThread, tickets);
+
+        DataStoreConfig config = new DataStoreConfig().durability(Durability.GROUP_COMMIT).readerPoolSize(4);
+        try (DataStore store = new DataStore(BenchData.tempDatabaseUrl(), config)) {
+            User requester = new User(1, "Requester", Role.USER);
+            User admin = new User(2, "Admin", Role.ADMIN);
+            User[] agents = new User[4];
+            store.saveUser(requester);
+            store.saveUser(admin);
+            for (int i = 0; i < agents.length; i++) {
+                agents[i] = new User(10 + i, "Agent" + i, Role.AGENT);
+                store.saveUser(agents[i]);
+            }
+            TicketService service = new TicketService(store);
+            int[] ids = new int[tickets];
+            long baseVersions = 0;
+            for (int i = 0; i < tickets; i++) {
+                Ticket ticket = service.createTicket(requester, "Shared " + i, "", "Network");
+                ids[i] = ticket.getId();
+                baseVersions += ticket.getVersion();
+            }
+            store.getMetrics().reset();
+
+            AtomicLong edits = new AtomicLong();
+            AtomicLong reassigns = new AtomicLong();
+            AtomicLong exhausted = new AtomicLong();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                futures.add(pool.submit(() -> {
+                    Random random = new Random(thread);
+                    for (int c = 0; c < callsPerThread; c++) {
+                        int id = ids[random.nextInt(tickets)];
+                        try {
+                            if (c % 2 == 0) {
+                                service.updateDescription(requester, id, "[" + thread + ":" + c + "]");
+                                edits.incrementAndGet();
+                            } else {
+                                service.reassign(admin, id, agents[random.nextInt(agents.length)], "stress");
+                                reassigns.incrementAndGet();
+                            }
+                        } catch (ConcurrentUpdateException ex) {
+                            exhausted.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            pool.shutdown();
+
+            long versions = -baseVersions;
+            long editEntries = 0;
+            long reassignEntries = 0;
+            for (int id : ids) {
+                Ticket ticket = store.findTicket(id).orElseThrow();
+                versions += ticket.getVersion();
+                String lastAgent = null;
+                for (TicketHistoryEntry entry : ticket.getHistory()) {
+                    if (entry.getAction().equals(DESCRIPTION_UPDATED)) {
+                        editEntries++;
+                    } else if (entry.getAction().startsWith(REASSIGNED)) {
+                        reassignEntries++;
+                        lastAgent = entry.getAction().substring(REASSIGNED.length(), entry.getAction().indexOf(" reason: "));
+                    }
+                }
+                // an edit applied to a stale row would have put back the agent it read
+                if (lastAgent != null && !lastAgent.equals(ticket.getAssignedAgent().getName())) {
+                    throw new IllegalStateException("Ticket " + id + " is assigned to " + ticket.getAssignedAgent().getName()
+                            + " but was last reassigned to " + lastAgent);
+                }
+            }
+            long completed = edits.get() + reassigns.get();
+            if (versions != completed) {
+                throw new IllegalStateException("Expected " + completed + " row versions but found " + versions);
+            }
+            if (editEntries != edits.get() || reassignEntries != reassigns.get()) {
+                throw new IllegalStateException("Expected " + edits.get() + " edit and " + reassigns.get()
+                        + " reassign history entries but found " + editEntries + " and " + reassignEntries);
+            }
+
+            System.out.printf("%-18s %10s %10s %10s %10s%n", "op", "completed", "retries", "exhausted", "calls/s");
+            print("updateDescription", edits.get(), retries(store, "TicketService.updateDescription"), seconds);
+            print("reassign", reassigns.get(), retries(store, "TicketService.reassign"), seconds);
+            System.out.printf("%-18s %10d %10s %10d %10.0f%n", "total", completed, "", exhausted.get(),
+                    (completed + exhausted.get()) / seconds);
+        }
+    }
+
+    private static void print(String op, long completed, long retries, double seconds) {
+        System.out.printf("%-18s %10d %10d %10s %10.0f%n", op, completed, retries, "", completed / seconds);
+    }
+
+    private static long retries(DataStore store, String name) {
+        return store.getMetrics().getProbes().stream()
+                .filter(probe -> probe.getName().equals(name + ".retry"))
+                .mapToLong(ProbeSnapshot::getCalls)
+                .sum();
+    }
+}
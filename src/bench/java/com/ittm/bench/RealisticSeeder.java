@@ -0,0 +1,263 @@
+package com.ittm.bench;
+
+import com.ittm.model.ChangeRequest;
+import com.ittm.model.ChangeRequestStatus;
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fills a {@link DataStore} with production-like data for a {@link SeedProfile}:
+ * <ul>
+ *     <li>ticket volume per requester follows a Zipf distribution (a few heavy requesters);</li>
+ *     <li>tickets arrive mostly on weekdays during business hours, in weighted categories;</li>
+ *     <li>each ticket walks the real lifecycle (raised, assigned, in progress, awaiting, resolved,
+ *     sometimes reopened) with one history entry per step, and older tickets are more likely
+ *     to be resolved;</li>
+ *     <li>notes per ticket are geometric, ratings skew high with a tail of flagged low scores.</li>
+ * </ul>
+ * Rows are written straight through the repository in large transactions, which is much faster
+ * than replaying the services while producing the same rows.
+ */
+public class RealisticSeeder {
+    static final String[] CATEGORIES = {"Hardware", "Software", "Network", "Access"};
+    private static final double[] CATEGORY_CDF = cdf(new double[]{30, 35, 20, 15});
+    private static final double[] HOUR_CDF = cdf(new double[]{
+            1, 1, 1, 1, 1, 2, 3, 6, 10, 14, 14, 12, 9, 12, 14, 13, 10, 6, 4, 3, 2, 2, 1, 1});
+    private static final int[] RATINGS = {5, 4, 3, 2, 1};
+    private static final double[] RATING_CDF = cdf(new double[]{45, 30, 12, 8, 5});
+    private static final String[] NOTE_TEXTS = {
+            "Any update on this?", "Looking into it", "Restarted the service, please retry",
+            "Waiting for vendor feedback", "Attached logs", "Still happening after the reboot"};
+    private static final int BATCH = 5_000;
+
+    private final SeedProfile profile;
+    private final Random random;
+    private final List<User> requesters = new ArrayList<>();
+    private final List<User> agents = new ArrayList<>();
+    private final List<User> admins = new ArrayList<>();
+    private double[] requesterCdf;
+
+    public RealisticSeeder(SeedProfile profile) {
+        this.profile = profile;
+        this.random = new Random(profile.getRandomSeed());
+    }
+
+    public List<User> getRequesters() {
+        return requesters;
+    }
+
+    public List<User> getAgents() {
+        return agents;
+    }
+
+    public List<User> getAdmins() {
+        return admins;
+    }
+
+    public void seed(DataStore store) {
+        seedUsers(store);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < profile.getTickets(); from += BATCH) {
+            int count = Math.min(BATCH, profile.getTickets() - from);
+            store.inTransaction(() -> {
+                for (int i = 0; i < count; i++) {
+                    seedTicket(store, now);
+                }
+            });
+        }
+        store.inTransaction(() -> {
+            for (int i = 0; i < profile.getChangeRequests(); i++) {
+                seedChangeRequest(store, now);
+            }
+        });
+    }
+
+    private void seedUsers(DataStore store) {
+        int id = 1;
+        for (int i = 0; i < profile.getUsers(); i++, id++) {
+            requesters.add(save(store, new User(id, "User" + id, Role.USER)));
+        }
+        for (int i = 0; i < profile.getAgents(); i++, id++) {
+            agents.add(save(store, new User(id, "Agent" + id, Role.AGENT)));
+        }
+        for (int i = 0; i < profile.getAdmins(); i++, id++) {
+            admins.add(save(store, new User(id, "Admin" + id, Role.ADMIN)));
+        }
+        requesterCdf = zipfCdf(requesters.size(), 1.1);
+    }
+
+    private static User save(DataStore store, User user) {
+        store.saveUser(user);
+        return user;
+    }
+
+    private void seedTicket(DataStore store, LocalDateTime now) {
+        User requester = requesters.get(sample(requesterCdf));
+        String category = CATEGORIES[sample(CATEGORY_CDF)];
+        LocalDateTime createdAt = arrivalTime(now);
+        Ticket ticket = store.createTicket(requester, category + " issue", "Seeded " + category.toLowerCase() + " ticket", category, createdAt);
+        List<TicketHistoryEntry> history = new ArrayList<>();
+        LocalDateTime at = createdAt;
+        history.add(new TicketHistoryEntry(at, "Ticket raised", requester.getName()));
+        User agent = agents.isEmpty() ? null : agents.get(random.nextInt(agents.size()));
+        TicketStatus status = TicketStatus.RAISED;
+        if (agent != null) {
+            ticket.setAssignedAgent(agent);
+            history.add(new TicketHistoryEntry(at, "Assigned to agent " + agent.getName(), "System"));
+            status = TicketStatus.OPEN;
+            double ageDays = Duration.between(createdAt, now).toHours() / 24.0;
+            double resolvedProbability = 1 - Math.exp(-ageDays / 3);
+            if (random.nextDouble() < 0.8) {
+                at = step(at, now);
+                status = TicketStatus.IN_PROGRESS;
+                history.add(new TicketHistoryEntry(at, "Status changed to " + status, agent.getName()));
+            }
+            if (random.nextDouble() < 0.25) {
+                at = step(at, now);
+                status = TicketStatus.AWAITING_RESPONSE;
+                history.add(new TicketHistoryEntry(at, "Moved to awaiting response: need more details", agent.getName()));
+            }
+            if (random.nextDouble() < resolvedProbability) {
+                at = step(at, now);
+                status = TicketStatus.RESOLVED;
+                history.add(new TicketHistoryEntry(at, "Status changed to " + status, agent.getName()));
+                if (random.nextDouble() < 0.05) {
+                    at = step(at, now);
+                    status = TicketStatus.REOPENED;
+                    history.add(new TicketHistoryEntry(at, "Reopened: issue came back", requester.getName()));
+                    if (random.nextDouble() < resolvedProbability) {
+                        at = step(at, now);
+                        status = TicketStatus.RESOLVED;
+                        history.add(new TicketHistoryEntry(at, "Status changed to " + status, agent.getName()));
+                    }
+                }
+                if (status == TicketStatus.RESOLVED && random.nextDouble() < 0.6) {
+                    int rating = RATINGS[sample(RATING_CDF)];
+                    ticket.setRating(rating);
+                    ticket.setAgentFlagged(rating < 2);
+                    history.add(new TicketHistoryEntry(at, "Rated with score " + rating, requester.getName()));
+                }
+            }
+        }
+        ticket.setStatus(status);
+        ticket.setUpdatedAt(at);
+        store.updateTicket(ticket);
+        for (TicketHistoryEntry entry : history) {
+            store.addHistory(ticket.getId(), entry);
+        }
+        int notes = geometric(profile.getNotesPerTicket());
+        for (int n = 0; n < notes; n++) {
+            boolean byAgent = agent != null && random.nextBoolean();
+            User author = byAgent ? agent : requester;
+            LocalDateTime noteAt = createdAt.plusMinutes((long) (random.nextDouble() * Math.max(1, Duration.between(createdAt, at).toMinutes())));
+            store.addNote(ticket.getId(), new Note(author.getId(), author.getName(), NOTE_TEXTS[random.nextInt(NOTE_TEXTS.length)], noteAt));
+        }
+    }
+
+    private void seedChangeRequest(DataStore store, LocalDateTime now) {
+        User requester = requesters.get(sample(requesterCdf));
+        LocalDateTime createdAt = arrivalTime(now);
+        LocalDate expiry = createdAt.toLocalDate().plusDays(30 + random.nextInt(150));
+        ChangeRequest cr = store.createChangeRequest(requester, "Change " + createdAt.toLocalDate(), "Seeded change request", expiry, createdAt);
+        double roll = random.nextDouble();
+        if (roll < 0.4) {
+            return;
+        }
+        cr.setStatus(roll < 0.55 ? ChangeRequestStatus.REJECTED : roll < 0.75 ? ChangeRequestStatus.APPROVED : ChangeRequestStatus.IMPLEMENTED);
+        if (cr.getStatus() == ChangeRequestStatus.IMPLEMENTED) {
+            cr.setImplementationNote("Rolled out during the maintenance window");
+        }
+        store.updateChangeRequest(cr);
+    }
+
+    /**
+     * A creation time within the profile window, mostly on weekdays during business hours.
+     */
+    private LocalDateTime arrivalTime(LocalDateTime now) {
+        while (true) {
+            LocalDate day = now.toLocalDate().minusDays(random.nextInt(Math.max(1, profile.getDays())));
+            boolean weekend = day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+            if (weekend && random.nextDouble() > 0.2) {
+                continue;
+            }
+            LocalDateTime at = day.atTime(sample(HOUR_CDF), random.nextInt(60), random.nextInt(60));
+            if (at.isBefore(now)) {
+                return at;
+            }
+        }
+    }
+
+    /**
+     * Advances by an exponentially distributed gap (mean four hours), never past {@code now}.
+     */
+    private LocalDateTime step(LocalDateTime at, LocalDateTime now) {
+        long minutes = (long) (-Math.log(1 - random.nextDouble()) * 240);
+        LocalDateTime next = at.plusMinutes(Math.max(1, minutes));
+        return next.isAfter(now) ? now : next;
+    }
+
+    private int geometric(double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        double p = 1 / (1 + mean);
+        return (int) Math.floor(Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+    }
+
+    private int sample(double[] cdf) {
+        return sample(cdf, random);
+    }
+
+    static int sample(double[] cdf, Random source) {
+        double roll = source.nextDouble();
+        int low = 0;
+        int high = cdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cdf[mid] < roll) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Cumulative weights for ranks 1..n where rank r is drawn with probability proportional to r^-exponent.
+     */
+    static double[] zipfCdf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int rank = 0; rank < n; rank++) {
+            weights[rank] = 1 / Math.pow(rank + 1, exponent);
+        }
+        return cdf(weights);
+    }
+
+    static double[] cdf(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            total += weight;
+        }
+        double[] cdf = new double[weights.length];
+        double running = 0;
+        for (int i = 0; i < weights.length; i++) {
+            running += weights[i];
+            cdf[i] = running / total;
+        }
+        return cdf;
+    }
+}
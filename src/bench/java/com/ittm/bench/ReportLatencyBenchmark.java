@@ -0,0 +1,94 @@
+package com.ittm.bench;
+
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.ReportDimension;
+import com.ittm.repository.TicketReportQuery;
+import com.ittm.service.TicketService;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Seeds growing ticket sets and times the rollup-backed reports: the full monthly report, a
+ * one-month range grouped by category and agent, a quarter grouped by category and the agent
+ * ratings. Also checks that the incrementally maintained rollup matches a full rebuild.
+ */
+public class ReportLatencyBenchmark {
+    private static final String[] CATEGORIES = {"Hardware", "Software", "Network", "Access"};
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? BenchData.parseInts(args[0]) : new int[]{10_000, 100_000};
+        int repetitions = 20;
+        System.out.printf("%10s %12s %20s %14s %14s %12s%n", "tickets", "monthly ms", "month x cat x agent", "quarter x cat",
+                "ratings ms", "rebuild ms");
+        for (int size : sizes) {
+            try (DataStore store = new DataStore(BenchData.tempDatabaseUrl())) {
+                seed(store, size);
+                TicketService service = new TicketService(store);
+                LocalDate monthStart = LocalDate.now().withDayOfMonth(1).minusMonths(3);
+                TicketReportQuery month = new TicketReportQuery().from(monthStart).to(monthStart.plusMonths(1).minusDays(1))
+                        .groupBy(ReportDimension.CATEGORY).groupBy(ReportDimension.AGENT);
+                TicketReportQuery quarter = new TicketReportQuery().from(monthStart.minusMonths(2)).to(monthStart.plusMonths(1).minusDays(1))
+                        .groupBy(ReportDimension.CATEGORY);
+                String incremental = service.monthlyReport().toString() + service.agentRatings();
+                long rebuildStart = System.nanoTime();
+                service.rebuildReportStats();
+                double rebuildMs = (System.nanoTime() - rebuildStart) / 1_000_000.0;
+                if (!incremental.equals(service.monthlyReport().toString() + service.agentRatings())) {
+                    throw new IllegalStateException("Incrementally maintained rollup differs from a rebuild");
+                }
+                System.out.printf("%10d %12.2f %20.2f %14.2f %14.2f %12.1f%n", size,
+                        time(repetitions, () -> service.monthlyReport().size()),
+                        time(repetitions, () -> service.report(month).size()),
+                        time(repetitions, () -> service.report(quarter).size()),
+                        time(repetitions, () -> service.agentRatings().size()),
+                        rebuildMs);
+            }
+        }
+    }
+
+    /**
+     * Creates tickets spread over the last two years across four categories, four agents and
+     * every status, written in a single transaction.
+     */
+    private static void seed(DataStore store, int tickets) {
+        User requester = new User(1, "Requester", Role.USER);
+        store.saveUser(requester);
+        User[] agents = new User[4];
+        for (int i = 0; i < agents.length; i++) {
+            agents[i] = new User(10 + i, "Agent" + i, Role.AGENT);
+            store.saveUser(agents[i]);
+        }
+        LocalDateTime start = LocalDateTime.now().minusYears(2);
+        long minutesSpan = 2L * 365 * 24 * 60;
+        store.inTransaction(() -> {
+            for (int i = 0; i < tickets; i++) {
+                LocalDateTime createdAt = start.plusMinutes(minutesSpan * i / tickets);
+                Ticket ticket = store.createTicket(requester, "Ticket " + i, "Report ticket", CATEGORIES[i % CATEGORIES.length], createdAt);
+                ticket.setAssignedAgent(agents[(i / 7) % agents.length]);
+                ticket.setStatus(STATUSES[(i * 31) % STATUSES.length]);
+                ticket.setUpdatedAt(createdAt.plusHours(i % 72));
+                if (ticket.getStatus() == TicketStatus.RESOLVED && i % 3 == 0) {
+                    ticket.setRating(1 + i % 5);
+                    ticket.setAgentFlagged(ticket.getRating() < 2);
+                }
+                store.updateTicket(ticket);
+            }
+        });
+    }
+
+    private static double time(int repetitions, IntSupplier report) {
+        report.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            report.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+}
@@ -0,0 +1,99 @@
+package com.ittm.bench;
+
+/**
+ * Volumes and shape of the data generated by {@link RealisticSeeder}.
+ */
+public class SeedProfile {
+    private int users = 2_000;
+    private int agents = 40;
+    private int admins = 3;
+    private int tickets = 50_000;
+    private double notesPerTicket = 3;
+    private int changeRequests = 5_000;
+    private int days = 365;
+    private long randomSeed = 42;
+
+    public SeedProfile users(int users) {
+        this.users = users;
+        return this;
+    }
+
+    public SeedProfile agents(int agents) {
+        this.agents = agents;
+        return this;
+    }
+
+    public SeedProfile admins(int admins) {
+        this.admins = admins;
+        return this;
+    }
+
+    public SeedProfile tickets(int tickets) {
+        this.tickets = tickets;
+        return this;
+    }
+
+    /**
+     * Mean of the geometric distribution of notes per ticket.
+     */
+    public SeedProfile notesPerTicket(double notesPerTicket) {
+        this.notesPerTicket = notesPerTicket;
+        return this;
+    }
+
+    public SeedProfile changeRequests(int changeRequests) {
+        this.changeRequests = changeRequests;
+        return this;
+    }
+
+    /**
+     * Length of the history window, ending now, over which tickets and change requests are created.
+     */
+    public SeedProfile days(int days) {
+        this.days = days;
+        return this;
+    }
+
+    public SeedProfile randomSeed(long randomSeed) {
+        this.randomSeed = randomSeed;
+        return this;
+    }
+
+    public int getUsers() {
+        return users;
+    }
+
+    public int getAgents() {
+        return agents;
+    }
+
+    public int getAdmins() {
+        return admins;
+    }
+
+    public int getTickets() {
+        return tickets;
+    }
+
+    public double getNotesPerTicket() {
+        return notesPerTicket;
+    }
+
+    public int getChangeRequests() {
+        return changeRequests;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public long getRandomSeed() {
+        return randomSeed;
+    }
+
+    @Override
+    public String toString() {
+        return users + " users, " + agents + " agents, " + admins + " admins, " + tickets + " tickets (~" + notesPerTicket +
+                " notes each), " + changeRequests + " change requests over " + days + " days";
+    }
+}
@@ -0,0 +1,170 @@
+package com.ittm.bench;
+
+import com.ittm.metrics.LatencyHistogram;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.server.SessionServer;
+import com.ittm.service.ChangeRequestService;
+import com.ittm.service.TicketService;
+import com.ittm.service.UserService;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts a {@link SessionServer} on a seeded database and connects thousands of simulated
+ * users at once over TCP. Every client logs in, waits until all sessions are connected and then
+ * sends a mix of VIEW, SHOW, NOTE, SEARCH and CREATE commands with a think time between them.
+ * Prints the peak number of concurrent sessions and threads, throughput, and p50/p99/max latency
+ * per command. Clients and sessions both run on virtual threads when the JVM has them.
+ * Arguments: [sessions] [requests per session] [think ms] [tickets].
+ */
+public class SessionLoadTest {
+    private static final String[] COMMANDS = {"VIEW", "SHOW", "NOTE", "SEARCH", "CREATE"};
+    private static final int[] WEIGHTS = {35, 25, 20, 15, 5};
+    private static final String[] SEARCH_WORDS = {"printer", "password", "vpn*", "laptop", "firm*"};
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int requestsPerSession = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        int tickets = args.length > 3 ? Integer.parseInt(args[3]) : 20_000;
+        SeedProfile profile = new SeedProfile().tickets(tickets).users(Math.max(100, sessions)).agents(40)
+                .notesPerTicket(2).changeRequests(0);
+        DataStoreConfig config = new DataStoreConfig().durability(Durability.GROUP_COMMIT).readerPoolSize(8);
+        try (DataStore store = new DataStore(BenchData.tempDatabaseUrl(), config)) {
+            RealisticSeeder seeder = new RealisticSeeder(profile);
+            seeder.seed(store);
+            store.flushAppends();
+            List<User> users = new ArrayList<>(seeder.getRequesters());
+            users.addAll(seeder.getAgents());
+            TicketService ticketService = new TicketService(store);
+            try (SessionServer server = new SessionServer(new UserService(store), ticketService, new ChangeRequestService(store))) {
+                server.start(0);
+                run(server, users, sessions, requestsPerSession, thinkMillis, tickets);
+            }
+        }
+    }
+
+    private static void run(SessionServer server, List<User> users, int sessions, int requestsPerSession, int thinkMillis,
+                            int tickets) throws Exception {
+        Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+        for (String command : COMMANDS) {
+            latencies.put(command, new LatencyHistogram());
+        }
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch connected = new CountDownLatch(sessions);
+        CountDownLatch go = new CountDownLatch(1);
+        ExecutorService virtual = SessionServer.newVirtualThreadExecutor();
+        ExecutorService clients = virtual != null ? virtual : SessionServer.newPlatformThreadExecutor("ittm-client-");
+        System.out.printf("%d sessions x %d requests, %d ms think time, %d tickets, %s threads%n", sessions, requestsPerSession,
+                thinkMillis, tickets, server.usesVirtualThreads() ? "virtual" : "platform");
+        List<Future<?>> futures = new ArrayList<>(sessions);
+        for (int i = 0; i < sessions; i++) {
+            User user = users.get(i % users.size());
+            long seed = i;
+            futures.add(clients.submit(() -> {
+                client(server.getPort(), user, requestsPerSession, thinkMillis, tickets, new Random(seed), connected, go, latencies, errors);
+                return null;
+            }));
+        }
+        connected.await();
+        int peakSessions = server.getActiveSessions();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        clients.shutdown();
+
+        long total = latencies.values().stream().mapToLong(LatencyHistogram::getCount).sum();
+        System.out.printf("peak concurrent sessions %d, peak JVM threads %d%n", peakSessions,
+                ManagementFactory.getThreadMXBean().getPeakThreadCount());
+        System.out.printf("%-8s %10s %10s %10s %10s%n", "command", "count", "p50 ms", "p99 ms", "max ms");
+        latencies.forEach((command, histogram) -> System.out.printf("%-8s %10d %10.2f %10.2f %10.2f%n", command, histogram.getCount(),
+                histogram.valueAtQuantile(0.50) / 1e6, histogram.valueAtQuantile(0.99) / 1e6, histogram.getMax() / 1e6));
+        System.out.printf("%d requests in %.1f s: %.0f req/s, %d errors%n", total, seconds, total / seconds, errors.get());
+    }
+
+    private static void client(int port, User user, int requests, int thinkMillis, int tickets, Random random,
+                               CountDownLatch connected, CountDownLatch go, Map<String, LatencyHistogram> latencies,
+                               AtomicLong errors) throws Exception {
+        try (Socket socket = new Socket("localhost", port);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            OutputStream out = socket.getOutputStream();
+            try {
+                if (!send(out, in, "LOGIN " + user.getId()).startsWith("OK")) {
+                    errors.incrementAndGet();
+                }
+            } finally {
+                connected.countDown();
+            }
+            go.await();
+            for (int i = 0; i < requests; i++) {
+                Thread.sleep(random.nextInt(2 * thinkMillis + 1));
+                String command = pick(random);
+                String line = switch (command) {
+                    case "VIEW" -> "VIEW 20";
+                    case "SHOW" -> "SHOW " + (1 + random.nextInt(tickets));
+                    case "NOTE" -> "NOTE " + (1 + random.nextInt(tickets)) + " Checked from session load test";
+                    case "SEARCH" -> "SEARCH " + SEARCH_WORDS[random.nextInt(SEARCH_WORDS.length)];
+                    default -> "CREATE Network|Load test ticket|Raised by a simulated session";
+                };
+                long begin = System.nanoTime();
+                String status = send(out, in, line);
+                latencies.get(command).record(System.nanoTime() - begin);
+                // users may not SHOW other requesters' tickets; that rejection is a valid answer
+                if (status.startsWith("ERR") && !status.equals("ERR Not your ticket")) {
+                    errors.incrementAndGet();
+                }
+            }
+            send(out, in, "QUIT");
+        }
+    }
+
+    /**
+     * Sends one command and reads its whole response; returns the status line.
+     */
+    private static String send(OutputStream out, BufferedReader in, String line) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        String status = in.readLine();
+        if (status == null) {
+            throw new IOException("Connection closed by server");
+        }
+        if (status.startsWith("LIST ")) {
+            for (int i = Integer.parseInt(status.substring(5)); i > 0; i--) {
+                in.readLine();
+            }
+        }
+        return status;
+    }
+
+    private static String pick(Random random) {
+        int roll = random.nextInt(100);
+        for (int i = 0; i < COMMANDS.length; i++) {
+            roll -= WEIGHTS[i];
+            if (roll < 0) {
+                return COMMANDS[i];
+            }
+        }
+        return COMMANDS[0];
+    }
+}
@@ -0,0 +1,96 @@
+package com.ittm.bench;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.TicketFilter;
+
+import java.time.LocalDateTime;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Walks every ticket with {@link FetchPlan#FULL} once through the materialized
+ * {@code getTickets} list and once through {@code streamTickets} for each batch size, sampling
+ * the live heap ten times during the walk. Prints the peak live heap above the idle baseline
+ * and the unsampled walk time.
+ * Arguments: [tickets] [history rows per ticket] [batch sizes, comma separated].
+ */
+public class StreamingMemoryBenchmark {
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int historyPerTicket = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int[] batchSizes = args.length > 2 ? BenchData.parseInts(args[2]) : new int[]{100, 500, 2_000};
+        String url = BenchData.tempDatabaseUrl();
+        try (DataStore store = new DataStore(url, new DataStoreConfig().durability(Durability.ASYNC))) {
+            seed(store, tickets, historyPerTicket);
+        }
+        System.out.printf("%d tickets, %d history rows and %d notes each%n", tickets, historyPerTicket, historyPerTicket / 2);
+        System.out.printf("%-22s %16s %12s%n", "read", "peak live MB", "walk ms");
+        try (DataStore store = new DataStore(url)) {
+            report("getTickets list", tickets, () -> store.getTickets(FetchPlan.FULL).stream());
+        }
+        for (int batchSize : batchSizes) {
+            try (DataStore store = new DataStore(url, new DataStoreConfig().streamBatchSize(batchSize))) {
+                report("stream batch " + batchSize, tickets, () -> store.streamTickets(new TicketFilter(), FetchPlan.FULL));
+            }
+        }
+    }
+
+    private static void report(String label, int tickets, Supplier<Stream<Ticket>> walk) {
+        walk.get().forEach(ticket -> ticket.getHistory().size());
+        long start = System.nanoTime();
+        long walked = walk.get().mapToInt(ticket -> ticket.getHistory().size()).count();
+        double walkMs = (System.nanoTime() - start) / 1_000_000.0;
+        if (walked != tickets) {
+            throw new IllegalStateException("Expected " + tickets + " tickets but walked " + walked);
+        }
+        long baseline = usedHeap();
+        long[] peak = {0};
+        int sampleEvery = Math.max(1, tickets / 10);
+        int[] seen = {0};
+        walk.get().forEach(ticket -> {
+            if (++seen[0] % sampleEvery == 0) {
+                peak[0] = Math.max(peak[0], usedHeap() - baseline);
+            }
+        });
+        System.out.printf("%-22s %16.1f %12.1f%n", label, peak[0] / 1024.0 / 1024.0, walkMs);
+    }
+
+    private static void seed(DataStore store, int tickets, int historyPerTicket) {
+        User requester = new User(1, "Requester", Role.USER);
+        User agent = new User(2, "Agent", Role.AGENT);
+        store.saveUser(requester);
+        store.saveUser(agent);
+        LocalDateTime start = LocalDateTime.now().minusDays(tickets / 100 + 1);
+        for (int from = 0; from < tickets; from += 5_000) {
+            int first = from;
+            int count = Math.min(5_000, tickets - from);
+            store.inTransaction(() -> {
+                for (int i = first; i < first + count; i++) {
+                    LocalDateTime createdAt = start.plusMinutes(i * 14L);
+                    Ticket ticket = store.createTicket(requester, "Ticket " + i, "Streaming benchmark ticket", "Hardware", createdAt);
+                    for (int h = 0; h < historyPerTicket; h++) {
+                        store.addHistory(ticket.getId(), new TicketHistoryEntry(createdAt.plusMinutes(h), "Status check " + h, agent.getName()));
+                    }
+                    for (int n = 0; n < historyPerTicket / 2; n++) {
+                        store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), "Still investigating", createdAt.plusMinutes(n)));
+                    }
+                }
+            });
+        }
+        store.flushAppends();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
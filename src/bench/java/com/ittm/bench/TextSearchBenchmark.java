@@ -0,0 +1,122 @@
+package com.ittm.bench;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.TicketSearchHit;
+import com.ittm.service.TicketService;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * Seeds tickets whose titles, descriptions and notes are drawn from a skewed vocabulary and
+ * times {@code TicketService.searchText} for a common word, a rare word, a prefix and a
+ * two-word query, next to a {@code LIKE '%word%'} scan of the notes for reference.
+ * Arguments: [tickets] [notes per ticket].
+ */
+public class TextSearchBenchmark {
+    private static final String[] DEVICES = {"printer", "laptop", "monitor", "keyboard", "router", "docking station",
+            "phone", "scanner", "projector", "headset"};
+    private static final String[] PROBLEMS = {"not working", "keeps disconnecting", "is very slow", "shows error 0x80070005",
+            "will not power on", "needs replacement", "makes noise", "cannot connect to vpn", "password expired", "blue screen"};
+    private static final String[] WORDS = {"please", "check", "again", "restart", "driver", "update", "cable", "firmware",
+            "reboot", "vendor", "ticket", "user", "office", "remote", "license", "battery", "network", "install", "backup",
+            "escalate", "warranty", "replaced", "configured", "timeout", "certificate", "proxy", "mailbox", "quota",
+            "kerberos", "bitlocker"};
+
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int notesPerTicket = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        DataStoreConfig config = new DataStoreConfig().durability(Durability.ASYNC).appendBatchSize(4_096);
+        String url = BenchData.tempDatabaseUrl();
+        try (DataStore store = new DataStore(url, config)) {
+            long seedStart = System.nanoTime();
+            seed(store, tickets, notesPerTicket);
+            System.out.printf("Seeded %d tickets and %d notes in %.1f s%n", tickets, (long) tickets * notesPerTicket,
+                    (System.nanoTime() - seedStart) / 1e9);
+            TicketService service = new TicketService(store);
+            User agent = store.findUser(2).orElseThrow();
+            System.out.printf("%-28s %8s %10s%n", "query", "hits", "ms");
+            for (String query : List.of("kerberos", "bitlocker certificate", "firm*", "please", "printer error")) {
+                List<TicketSearchHit> hits = service.searchText(agent, query, 20);
+                System.out.printf("%-28s %8d %10.2f%n", query, hits.size(), time(50, () -> service.searchText(agent, query, 20).size()));
+            }
+            System.out.println("top hit for 'printer error': " + service.searchText(agent, "printer error", 1));
+            System.out.printf("%-28s %8s %10.2f%n", "LIKE '%kerberos%' (notes)", "-", time(3, () -> countLike(url, "kerberos")));
+        }
+    }
+
+    /**
+     * The unindexed scan the full-text index replaces, on a separate connection.
+     */
+    private static int countLike(String url, String word) {
+        try (Connection connection = DriverManager.getConnection(url);
+             PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM notes WHERE message LIKE ?")) {
+            ps.setString(1, "%" + word + "%");
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : 0;
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to scan notes", ex);
+        }
+    }
+
+    private static void seed(DataStore store, int tickets, int notesPerTicket) {
+        User requester = new User(1, "Requester", Role.USER);
+        User agent = new User(2, "Agent", Role.AGENT);
+        store.saveUser(requester);
+        store.saveUser(agent);
+        Random random = new Random(7);
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < tickets; from += 5_000) {
+            int count = Math.min(5_000, tickets - from);
+            store.inTransaction(() -> {
+                for (int i = 0; i < count; i++) {
+                    String device = DEVICES[skewed(random, DEVICES.length)];
+                    String problem = PROBLEMS[skewed(random, PROBLEMS.length)];
+                    Ticket ticket = store.createTicket(requester, device + " " + problem, sentence(random, 12), "Hardware", now);
+                    for (int n = 0; n < notesPerTicket; n++) {
+                        store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), sentence(random, 10), now));
+                    }
+                }
+            });
+        }
+        store.flushAppends();
+    }
+
+    private static String sentence(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < words; i++) {
+            text.append(i == 0 ? "" : " ").append(WORDS[skewed(random, WORDS.length)]);
+        }
+        return text.toString();
+    }
+
+    /**
+     * Index in [0, n) with low indexes much more likely, so later words are rare.
+     */
+    private static int skewed(Random random, int n) {
+        return (int) (n * Math.pow(random.nextDouble(), 3));
+    }
+
+    private static double time(int repetitions, IntSupplier query) {
+        query.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            query.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+}
@@ -0,0 +1,152 @@
+package com.ittm.bench;
+
+import com.ittm.model.TicketEvent;
+import com.ittm.model.TicketState;
+import com.ittm.model.TicketStatus;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Fills the ticket event log with a realistic mix of created, assigned, status, note and rating
+ * events, snapshotting after the first 90% of each ticket's events. Measures the append rate,
+ * the stored bytes per event, the snapshot, replay of the whole log (decode only, and folded into
+ * per-ticket states), resuming a replay from the middle, and rebuilding every ticket's state from
+ * the snapshots plus the remaining tail; the snapshot rebuild is checked against the full replay.
+ * Rates count the log events each step covers, so rebuilding from snapshots compares directly
+ * with folding from offset 0.
+ * Arguments: [tickets] [events per ticket] [replay batch size].
+ */
+public class TicketEventReplayBenchmark {
+    private static final TicketStatus[] FLOW = {TicketStatus.IN_PROGRESS, TicketStatus.AWAITING_RESPONSE, TicketStatus.RESOLVED,
+            TicketStatus.REOPENED};
+
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int eventsPerTicket = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int batchSize = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        String url = BenchData.tempDatabaseUrl();
+        DataStoreConfig config = new DataStoreConfig().durability(Durability.ASYNC).snapshotInterval(0).streamBatchSize(batchSize);
+        try (DataStore store = new DataStore(url, config)) {
+            Random random = new Random(42);
+            int head = eventsPerTicket - Math.max(1, eventsPerTicket / 10);
+            long begin = System.nanoTime();
+            long appended = append(store, random, tickets, 0, head);
+            double appendSeconds = (System.nanoTime() - begin) / 1e9;
+            long snapshotStart = System.nanoTime();
+            store.snapshotTicketEvents();
+            double snapshotMs = (System.nanoTime() - snapshotStart) / 1e6;
+            begin = System.nanoTime();
+            long tail = append(store, random, tickets, head, eventsPerTicket);
+            appendSeconds += (System.nanoTime() - begin) / 1e9;
+            appended += tail;
+            long total = store.getLastTicketEventOffset();
+            System.out.printf("%d tickets, %d events (%.1f bytes/event), appended at %.0f events/s%n", tickets, appended,
+                    bytesPerEvent(url), appended / appendSeconds);
+            System.out.printf("%-28s %12s %14s%n", "replay", "ms", "events/s");
+            System.out.printf("%-28s %12.1f %14.0f%n", "snapshot first " + (total - tail), snapshotMs, (total - tail) / (snapshotMs / 1_000));
+
+            store.streamTicketEvents(0).count();
+            time("decode from offset 0", total, () -> store.streamTicketEvents(0).count());
+            Map<Integer, TicketState> replayed = new HashMap<>();
+            time("fold from offset 0", total, () -> {
+                replayed.clear();
+                store.streamTicketEvents(0).forEach(event -> replayed.computeIfAbsent(event.getTicketId(), TicketState::new).apply(event));
+                return replayed.size();
+            });
+            time("fold from offset " + total / 2, total - total / 2, () -> {
+                Map<Integer, TicketState> states = new HashMap<>();
+                store.streamTicketEvents(total / 2).forEach(event -> states.computeIfAbsent(event.getTicketId(), TicketState::new).apply(event));
+                return states.size();
+            });
+            Map<Integer, TicketState> rebuilt = new HashMap<>();
+            time("snapshots + " + tail + " tail", total, () -> {
+                rebuilt.clear();
+                rebuilt.putAll(store.loadTicketStates());
+                return rebuilt.size();
+            });
+            verify(replayed, rebuilt);
+        }
+    }
+
+    /**
+     * Appends events {@code from} (inclusive) to {@code to} of every ticket, ticket by ticket in
+     * round-robin order so events of one ticket are spread over the log as in production.
+     */
+    private static long append(DataStore store, Random random, int tickets, int from, int to) {
+        LocalDateTime at = LocalDateTime.now().minusDays(30);
+        long count = 0;
+        for (int round = from; round < to; round++) {
+            int step = round;
+            for (int first = 1; first <= tickets; first += 5_000) {
+                int batchStart = first;
+                int batchEnd = Math.min(tickets, first + 4_999);
+                store.inTransaction(() -> {
+                    for (int ticketId = batchStart; ticketId <= batchEnd; ticketId++) {
+                        store.appendTicketEvent(event(random, ticketId, step, at.plusSeconds(step * 60L + ticketId)));
+                    }
+                });
+                count += batchEnd - batchStart + 1;
+            }
+        }
+        return count;
+    }
+
+    private static TicketEvent event(Random random, int ticketId, int step, LocalDateTime at) {
+        int requesterId = 1_000 + ticketId % 5_000;
+        int agentId = 1 + random.nextInt(40);
+        if (step == 0) {
+            return TicketEvent.created(ticketId, at, requesterId, "Network", "Ticket " + ticketId + " cannot reach the VPN");
+        }
+        if (step == 1) {
+            return TicketEvent.assigned(ticketId, at, 0, agentId);
+        }
+        int roll = random.nextInt(10);
+        if (roll < 5) {
+            return TicketEvent.noteAdded(ticketId, at, random.nextBoolean() ? requesterId : agentId);
+        }
+        if (roll < 9) {
+            return TicketEvent.statusChanged(ticketId, at, agentId, FLOW[random.nextInt(FLOW.length)]);
+        }
+        int rating = 1 + random.nextInt(5);
+        return TicketEvent.rated(ticketId, at, requesterId, rating, rating < 2);
+    }
+
+    private static double bytesPerEvent(String url) throws Exception {
+        try (Connection connection = DriverManager.getConnection(url);
+             Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT AVG(length(event)) FROM ticket_events")) {
+            return rs.next() ? rs.getDouble(1) : 0;
+        }
+    }
+
+    private static void verify(Map<Integer, TicketState> expected, Map<Integer, TicketState> actual) {
+        if (expected.size() != actual.size()) {
+            throw new IllegalStateException("Replay has " + expected.size() + " tickets but snapshots " + actual.size());
+        }
+        expected.forEach((id, state) -> {
+            TicketState other = actual.get(id);
+            if (other == null || !state.toString().equals(other.toString()) || state.getRequesterId() != other.getRequesterId()
+                    || !state.getTitle().equals(other.getTitle())) {
+                throw new IllegalStateException("Ticket " + id + " differs: " + state + " vs " + other);
+            }
+        });
+    }
+
+    private static void time(String label, long events, LongSupplier run) {
+        long start = System.nanoTime();
+        run.getAsLong();
+        double ms = (System.nanoTime() - start) / 1e6;
+        System.out.printf("%-28s %12.1f %14.0f%n", label, ms, events / (ms / 1_000));
+    }
+}
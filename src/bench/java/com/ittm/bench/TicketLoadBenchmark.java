@@ -0,0 +1,33 @@
+package com.ittm.bench;
+
+import com.ittm.repository.DataStore;
+
+/**
+ * Seeds databases of growing size and prints how many SQL statements a single
+ * {@code getTickets()} / {@code findTicket()} call issues. The statement count must stay
+ * constant as the ticket count grows.
+ */
+public class TicketLoadBenchmark {
+    public static void main(String[] args) throws Exception {
+        int[] sizes = args.length > 0 ? BenchData.parseInts(args[0]) : new int[]{100, 1_000, 10_000};
+        System.out.printf("%10s %18s %18s %12s%n", "tickets", "getTickets stmts", "findTicket stmts", "load ms");
+        for (int size : sizes) {
+            try (DataStore store = new DataStore("jdbc:sqlite::memory:")) {
+                BenchData.seed(store, size);
+                long before = store.getStatementCount();
+                long start = System.nanoTime();
+                int loaded = store.getTickets().size();
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                long listStatements = store.getStatementCount() - before;
+                if (loaded != size) {
+                    throw new IllegalStateException("Expected " + size + " tickets but loaded " + loaded);
+                }
+                before = store.getStatementCount();
+                store.findTicket(size / 2);
+                long findStatements = store.getStatementCount() - before;
+                System.out.printf("%10d %18d %18d %12d%n", size, listStatements, findStatements, elapsedMs);
+                System.out.println("           user cache: " + store.getUserCacheStats());
+            }
+        }
+    }
+}
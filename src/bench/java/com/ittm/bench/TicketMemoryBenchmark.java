@@ -0,0 +1,70 @@
+package com.ittm.bench;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.FetchPlan;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Compares the retained heap per ticket loaded with {@link FetchPlan#FULL} and
+ * {@link FetchPlan#SUMMARY} for tickets carrying a long history.
+ */
+public class TicketMemoryBenchmark {
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int historyPerTicket = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        int notesPerTicket = Math.max(1, historyPerTicket / 10);
+        try (DataStore store = new DataStore(BenchData.tempDatabaseUrl())) {
+            seed(store, tickets, historyPerTicket, notesPerTicket);
+            System.out.printf("%d tickets, %d history rows and %d notes each%n", tickets, historyPerTicket, notesPerTicket);
+            System.out.printf("%-8s %14s %12s%n", "plan", "bytes/ticket", "load ms");
+            for (FetchPlan plan : FetchPlan.values()) {
+                store.getTickets(plan);
+                long before = usedHeap();
+                long start = System.nanoTime();
+                List<Ticket> loaded = store.getTickets(plan);
+                long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+                long retained = usedHeap() - before;
+                if (loaded.size() != tickets) {
+                    throw new IllegalStateException("Expected " + tickets + " tickets but loaded " + loaded.size());
+                }
+                System.out.printf("%-8s %14d %12d%n", plan, retained / tickets, elapsedMs);
+                loaded.clear();
+            }
+        }
+    }
+
+    private static void seed(DataStore store, int tickets, int historyPerTicket, int notesPerTicket) {
+        User requester = new User(1, "Requester", Role.USER);
+        User agent = new User(2, "Agent", Role.AGENT);
+        store.saveUser(requester);
+        store.saveUser(agent);
+        LocalDateTime now = LocalDateTime.now();
+        store.inTransaction(() -> {
+            for (int i = 0; i < tickets; i++) {
+                Ticket ticket = store.createTicket(requester, "Ticket " + i, "Long-lived benchmark ticket", "Hardware", now);
+                for (int h = 0; h < historyPerTicket; h++) {
+                    store.addHistory(ticket.getId(), new TicketHistoryEntry(now.plusMinutes(h), "Status check " + h, agent.getName()));
+                }
+                for (int n = 0; n < notesPerTicket; n++) {
+                    store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), "Still investigating " + n, now.plusMinutes(n)));
+                }
+            }
+        });
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
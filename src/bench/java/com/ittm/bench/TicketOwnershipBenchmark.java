@@ -0,0 +1,167 @@
+package com.ittm.bench;
+
+import com.ittm.model.Ticket;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.TicketFilter;
+import com.ittm.service.TicketOwnershipIndex;
+import com.ittm.service.TicketService;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntSupplier;
+
+/**
+ * Seeds realistic data and reports the heap per indexed ticket of the
+ * {@link TicketOwnershipIndex} next to the same maps built from boxed {@code HashMap} and
+ * {@code ArrayList} collections, then times the role views served through the index against the
+ * filtered query they replace. Both sizes are counted from the structures' capacities (compressed
+ * oops, 12-byte object headers, 8-byte alignment) rather than sampled from the heap, so they do
+ * not depend on GC timing. Before timing, a ticket is reassigned through a second
+ * {@link TicketService} to check that the index follows writes it did not make.
+ * Arguments: [tickets] [requesters] [agents].
+ */
+public class TicketOwnershipBenchmark {
+    private static final int NODE_BYTES = 32;
+    private static final int INTEGER_BYTES = 16;
+    private static final int ARRAY_LIST_BYTES = 24;
+
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int requesters = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int agents = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        SeedProfile profile = new SeedProfile().tickets(tickets).users(requesters).agents(agents)
+                .notesPerTicket(0).changeRequests(0);
+        try (DataStore store = new DataStore(BenchData.tempDatabaseUrl(), new DataStoreConfig().durability(Durability.ASYNC))) {
+            RealisticSeeder seeder = new RealisticSeeder(profile);
+            seeder.seed(store);
+            store.flushAppends();
+            System.out.printf("%d tickets, %d requesters, %d agents%n", tickets, requesters, agents);
+
+            TicketService service = new TicketService(store);
+            TicketOwnershipIndex index = service.getOwnershipIndex();
+            BoxedIndex boxed = new BoxedIndex(store);
+            System.out.printf("%-22s %14s%n", "index", "bytes/ticket");
+            System.out.printf("%-22s %14.1f%n", "primitive int", (double) index.footprint() / index.size());
+            System.out.printf("%-22s %14.1f%n", "boxed HashMap/List", (double) boxed.footprint() / boxed.size());
+
+            User admin = seeder.getAdmins().get(0);
+            User requester = seeder.getRequesters().get(0);
+            User agent = seeder.getAgents().get(0);
+            User otherAgent = seeder.getAgents().get(1);
+            int moved = index.ticketsOfAgent(otherAgent.getId())[0];
+            new TicketService(store).reassign(admin, moved, agent, "benchmark");
+            check(service, store, requester, new TicketFilter().requesterId(requester.getId()));
+            check(service, store, agent, new TicketFilter().agentId(agent.getId()));
+            check(service, store, otherAgent, new TicketFilter().agentId(otherAgent.getId()));
+
+            System.out.printf("%-22s %8s %12s %12s %12s%n", "view", "tickets", "index ids us", "index ms", "query ms");
+            for (User user : List.of(requester, agent)) {
+                TicketFilter filter = user == requester ? new TicketFilter().requesterId(user.getId()) : new TicketFilter().agentId(user.getId());
+                IntSupplier ids = user == requester
+                        ? () -> index.ticketsOfRequester(user.getId()).length
+                        : () -> index.ticketsOfAgent(user.getId()).length;
+                System.out.printf("%-22s %8d %12.2f %12.2f %12.2f%n", user.getRole() + " " + user.getName(), ids.getAsInt(),
+                        time(10_000, ids) * 1_000,
+                        time(20, () -> service.viewTicketsForUser(user).size()),
+                        time(20, () -> store.findTickets(filter, FetchPlan.SUMMARY).size()));
+            }
+        }
+    }
+
+    private static void check(TicketService service, DataStore store, User user, TicketFilter filter) {
+        List<Integer> expected = ids(store.findTickets(filter, FetchPlan.SUMMARY));
+        List<Integer> actual = ids(service.viewTicketsForUser(user));
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Index view of " + user.getName() + " has " + actual.size()
+                    + " tickets, query " + expected.size());
+        }
+    }
+
+    private static List<Integer> ids(List<Ticket> tickets) {
+        List<Integer> ids = new ArrayList<>(tickets.size());
+        tickets.forEach(ticket -> ids.add(ticket.getId()));
+        return ids;
+    }
+
+    private static double time(int repetitions, IntSupplier work) {
+        work.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            work.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+
+    /**
+     * The straightforward collections-framework layout the primitive index replaces. Lists are
+     * trimmed after loading, which favours it.
+     */
+    private static final class BoxedIndex {
+        private final Map<Integer, List<Integer>> byRequester = new HashMap<>();
+        private final Map<Integer, List<Integer>> byAgent = new HashMap<>();
+        private final Map<Integer, Integer> agentOf = new HashMap<>();
+        private int size;
+
+        private BoxedIndex(DataStore store) {
+            store.forEachTicketOwner((ticketId, requesterId, agentId) -> {
+                byRequester.computeIfAbsent(requesterId, id -> new ArrayList<>()).add(ticketId);
+                if (agentId != TicketOwnershipIndex.UNASSIGNED) {
+                    byAgent.computeIfAbsent(agentId, id -> new ArrayList<>()).add(ticketId);
+                    agentOf.put(ticketId, agentId);
+                }
+                size++;
+            });
+            byRequester.values().forEach(ids -> ((ArrayList<Integer>) ids).trimToSize());
+            byAgent.values().forEach(ids -> ((ArrayList<Integer>) ids).trimToSize());
+        }
+
+        private int size() {
+            return size;
+        }
+
+        /**
+         * Table, nodes, lists and boxes; boxes of values up to 127 come from the {@code Integer}
+         * cache and are not counted.
+         */
+        private long footprint() {
+            long bytes = table(byRequester.size()) + table(byAgent.size()) + table(agentOf.size());
+            for (Map<Integer, List<Integer>> owners : List.of(byRequester, byAgent)) {
+                for (Map.Entry<Integer, List<Integer>> entry : owners.entrySet()) {
+                    bytes += NODE_BYTES + box(entry.getKey()) + ARRAY_LIST_BYTES + array(entry.getValue().size());
+                    for (int id : entry.getValue()) {
+                        bytes += box(id);
+                    }
+                }
+            }
+            for (Map.Entry<Integer, Integer> entry : agentOf.entrySet()) {
+                bytes += NODE_BYTES + box(entry.getKey()) + box(entry.getValue());
+            }
+            return bytes;
+        }
+
+        /**
+         * A {@code HashMap} table doubles from 16 slots whenever it is more than three quarters full.
+         */
+        private static long table(int entries) {
+            int slots = 16;
+            while (entries > slots * 3 / 4) {
+                slots <<= 1;
+            }
+            return array(slots);
+        }
+
+        private static long array(int length) {
+            return (16 + 4L * length + 7) & ~7L;
+        }
+
+        private static long box(int value) {
+            return value >= -128 && value <= 127 ? 0 : INTEGER_BYTES;
+        }
+    }
+}
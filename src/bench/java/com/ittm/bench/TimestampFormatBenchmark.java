@@ -0,0 +1,95 @@
+package com.ittm.bench;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.TicketFilter;
+import com.ittm.repository.TimestampFormat;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.function.IntSupplier;
+
+/**
+ * Seeds an ISO text database, times full ticket loads (tickets, notes and history) and a
+ * creation-date range search, converts the same file to {@link TimestampFormat#EPOCH} and
+ * repeats, printing latency and bytes allocated per loaded ticket for both formats. The EPOCH
+ * open time includes the one-time conversion.
+ * Arguments: [tickets] [history rows per ticket].
+ */
+public class TimestampFormatBenchmark {
+    public static void main(String[] args) throws Exception {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        int historyPerTicket = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        String url = BenchData.tempDatabaseUrl();
+        LocalDateTime start = LocalDateTime.now().minusDays(tickets / 100 + 1);
+        try (DataStore store = new DataStore(url, new DataStoreConfig().durability(Durability.ASYNC))) {
+            seed(store, tickets, historyPerTicket, start);
+        }
+        LocalDate from = start.toLocalDate().plusDays(tickets / 400);
+        TicketFilter range = new TicketFilter().createdFrom(from).createdTo(from.plusDays(30));
+        System.out.printf("%d tickets, %d history rows and %d notes each%n", tickets, historyPerTicket, historyPerTicket / 2);
+        System.out.printf("%-10s %12s %14s %14s %14s%n", "format", "open ms", "FULL load ms", "bytes/ticket", "range ms");
+        for (TimestampFormat format : TimestampFormat.values()) {
+            long openStart = System.nanoTime();
+            try (DataStore store = new DataStore(url, new DataStoreConfig().timestampFormat(format))) {
+                double openMs = (System.nanoTime() - openStart) / 1_000_000.0;
+                if (store.getTimestampFormat() != format) {
+                    throw new IllegalStateException("Expected " + format + " storage but found " + store.getTimestampFormat());
+                }
+                store.getTickets(FetchPlan.FULL);
+                long allocatedBefore = allocatedBytes();
+                long loadStart = System.nanoTime();
+                int loaded = store.getTickets(FetchPlan.FULL).size();
+                double loadMs = (System.nanoTime() - loadStart) / 1_000_000.0;
+                long allocated = allocatedBytes() - allocatedBefore;
+                System.out.printf("%-10s %12.1f %14.1f %14d %14.2f%n", format, openMs,
+                        loadMs, allocated / loaded, time(20, () -> store.findTickets(range, FetchPlan.SUMMARY).size()));
+            }
+        }
+    }
+
+    private static void seed(DataStore store, int tickets, int historyPerTicket, LocalDateTime start) {
+        User requester = new User(1, "Requester", Role.USER);
+        User agent = new User(2, "Agent", Role.AGENT);
+        store.saveUser(requester);
+        store.saveUser(agent);
+        for (int from = 0; from < tickets; from += 5_000) {
+            int first = from;
+            int count = Math.min(5_000, tickets - from);
+            store.inTransaction(() -> {
+                for (int i = first; i < first + count; i++) {
+                    LocalDateTime createdAt = start.plusMinutes(i * 14L);
+                    Ticket ticket = store.createTicket(requester, "Ticket " + i, "Timestamp benchmark ticket", "Hardware", createdAt);
+                    for (int h = 0; h < historyPerTicket; h++) {
+                        store.addHistory(ticket.getId(), new TicketHistoryEntry(createdAt.plusMinutes(h), "Status check " + h, agent.getName()));
+                    }
+                    for (int n = 0; n < historyPerTicket / 2; n++) {
+                        store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), "Still investigating", createdAt.plusMinutes(n)));
+                    }
+                }
+            });
+        }
+        store.flushAppends();
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static double time(int repetitions, IntSupplier query) {
+        query.getAsInt();
+        long start = System.nanoTime();
+        for (int i = 0; i < repetitions; i++) {
+            query.getAsInt();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / repetitions;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ittm.bench;
+
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.service.ChangeRequestService;
+import com.ittm.service.TicketService;
+import com.ittm.service.UserService;
+
+import java.time.LocalDate;
+import java.util.function.IntConsumer;
+
+/**
+ * Prints commits and SQL statements per service operation for the multi-statement write
+ * paths. Each operation should commit exactly once.
+ */
+public class WriteAmplificationReport {
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        try (DataStore store = new DataStore(BenchData.tempDatabaseUrl())) {
+            UserService users = new UserService(store);
+            TicketService tickets = new TicketService(store);
+            ChangeRequestService changes = new ChangeRequestService(store);
+            User requester = users.createUser(1, "Requester", Role.USER);
+            users.createUser(2, "AgentOne", Role.AGENT);
+            User agentTwo = users.createUser(3, "AgentTwo", Role.AGENT);
+            User admin = users.createUser(4, "Admin", Role.ADMIN);
+            int[] ids = new int[operations];
+            for (int i = 0; i < operations; i++) {
+                changes.raise(requester, "Change " + i, "Benchmark change", LocalDate.now().plusDays(30));
+            }
+
+            System.out.printf("%-16s %8s %14s %14s%n", "operation", "ops", "commits/op", "statements/op");
+            measure(store, "createTicket", operations, i -> {
+                Ticket ticket = tickets.createTicket(requester, "Ticket " + i, "Benchmark ticket", "Hardware");
+                ids[i] = ticket.getId();
+            });
+            measure(store, "addNote", operations, i -> tickets.addNote(requester, ids[i], "Any update?"));
+            measure(store, "reassign", operations, i -> tickets.reassign(admin, ids[i], agentTwo, "Benchmark"));
+            measure(store, "editDescription", operations, i -> tickets.updateDescription(requester, ids[i], "Edited benchmark ticket"));
+            measure(store, "updateStatus", operations, i -> tickets.updateStatus(admin, ids[i], TicketStatus.IN_PROGRESS));
+            measure(store, "archiveOld", 1, i -> changes.archiveOld(LocalDate.now().plusYears(2)));
+        }
+    }
+
+    private static void measure(DataStore store, String name, int operations, IntConsumer operation) {
+        long commits = store.getCommitCount();
+        long statements = store.getStatementCount();
+        for (int i = 0; i < operations; i++) {
+            operation.accept(i);
+        }
+        System.out.printf("%-16s %8d %14.2f %14.2f%n", name, operations,
+                (store.getCommitCount() - commits) / (double) operations,
+                (store.getStatementCount() - statements) / (double) operations);
+    }
+}
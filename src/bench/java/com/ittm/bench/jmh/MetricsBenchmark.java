@@ -0,0 +1,61 @@
+package com.ittm.bench.jmh;
+
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.LatencyHistogram;
+import com.ittm.metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the instrumentation itself: one histogram record, and one nested service/repository
+ * scope pair with a statement and a row counted, with recording enabled and disabled. Run with
+ * the GC profiler ({@code BenchmarkRunner}) to confirm {@code gc.alloc.rate.norm} stays at zero.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class MetricsBenchmark {
+    @Param({"true", "false"})
+    public boolean enabled;
+
+    private MetricsRegistry registry;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    @Setup
+    public void setUp() {
+        registry = new MetricsRegistry(enabled);
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(System.nanoTime() & 0xFFFFF);
+    }
+
+    // the scopes are only opened and closed, exactly as the instrumented code uses them
+    @Benchmark
+    @SuppressWarnings("try")
+    public void nestedScopes() {
+        try (CallScope service = registry.begin("TicketService.findTicket")) {
+            try (CallScope repository = registry.begin("DataStore.findTicket")) {
+                registry.statementExecuted();
+                registry.rowsHydrated(1);
+            }
+        }
+    }
+}
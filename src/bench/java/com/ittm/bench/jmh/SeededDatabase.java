@@ -0,0 +1,129 @@
+package com.ittm.bench.jmh;
+
+import com.ittm.model.Note;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Seeded SQLite databases for the JMH benchmarks. Seeding a million tickets takes minutes, so
+ * each size is built once into a template file under {@code java.io.tmpdir} (keyed by ticket
+ * count and schema version) and every trial works on a fresh copy of it.
+ */
+final class SeededDatabase {
+    static final int REQUESTERS = 1_000;
+    static final int AGENTS = 50;
+    static final int FIRST_REQUESTER_ID = 1;
+    static final int FIRST_AGENT_ID = 100_001;
+    static final int ADMIN_ID = 900_001;
+    static final int CHANGE_REQUESTS = 10_000;
+    private static final String[] CATEGORIES = {"Hardware", "Software", "Network", "Access"};
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+    private static final int SCHEMA_VERSION = currentSchemaVersion();
+
+    private SeededDatabase() {
+    }
+
+    /**
+     * Returns a fresh copy of the seeded database with {@code tickets} tickets.
+     */
+    static Path copy(int tickets) throws IOException {
+        Path template = template(tickets);
+        Path copy = Files.createTempFile("ittm-jmh-" + tickets + "-", ".db");
+        Files.copy(template, copy, StandardCopyOption.REPLACE_EXISTING);
+        return copy;
+    }
+
+    static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+        Files.deleteIfExists(Path.of(file + ".lock"));
+    }
+
+    private static synchronized Path template(int tickets) throws IOException {
+        Path template = Path.of(System.getProperty("java.io.tmpdir"), "ittm-jmh-seed-v" + SCHEMA_VERSION + "-" + tickets + ".db");
+        if (Files.exists(template)) {
+            return template;
+        }
+        Path building = Files.createTempFile("ittm-jmh-seeding-", ".db");
+        try (DataStore store = new DataStore("jdbc:sqlite:" + building)) {
+            seed(store, tickets);
+        } catch (Exception ex) {
+            delete(building);
+            throw new IOException("Unable to seed benchmark database", ex);
+        }
+        // the store checkpointed and removed its WAL on close, so the main file is complete
+        Files.move(building, template, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Path.of(building + ".lock"));
+        return template;
+    }
+
+    /**
+     * Tickets are spread over the last two years across {@link #REQUESTERS} requesters,
+     * {@link #AGENTS} agents, four categories and every status; each has two history entries
+     * and a note. Change requests are spread over the last three years.
+     */
+    private static void seed(DataStore store, int tickets) {
+        User[] requesters = new User[REQUESTERS];
+        for (int i = 0; i < REQUESTERS; i++) {
+            requesters[i] = new User(FIRST_REQUESTER_ID + i, "Requester" + i, Role.USER);
+            store.saveUser(requesters[i]);
+        }
+        User[] agents = new User[AGENTS];
+        for (int i = 0; i < AGENTS; i++) {
+            agents[i] = new User(FIRST_AGENT_ID + i, "Agent" + i, Role.AGENT);
+            store.saveUser(agents[i]);
+        }
+        store.saveUser(new User(ADMIN_ID, "Admin", Role.ADMIN));
+        LocalDateTime start = LocalDateTime.now().minusYears(2);
+        long minutesSpan = 2L * 365 * 24 * 60;
+        int batch = 10_000;
+        for (int from = 0; from < tickets; from += batch) {
+            int first = from;
+            store.inTransaction(() -> {
+                for (int i = first; i < Math.min(tickets, first + batch); i++) {
+                    LocalDateTime createdAt = start.plusMinutes(minutesSpan * i / tickets);
+                    User requester = requesters[i % REQUESTERS];
+                    User agent = agents[(i / 3) % AGENTS];
+                    Ticket ticket = store.createTicket(requester, "Ticket " + i, "Seeded benchmark ticket",
+                            CATEGORIES[i % CATEGORIES.length], createdAt);
+                    ticket.setAssignedAgent(agent);
+                    ticket.setStatus(STATUSES[(i * 31) % STATUSES.length]);
+                    ticket.setUpdatedAt(createdAt.plusHours(i % 72));
+                    store.updateTicket(ticket);
+                    store.addHistory(ticket.getId(), new TicketHistoryEntry(createdAt, "Ticket raised", requester.getName()));
+                    store.addHistory(ticket.getId(), new TicketHistoryEntry(createdAt, "Assigned to agent " + agent.getName(), "System"));
+                    store.addNote(ticket.getId(), new Note(agent.getId(), agent.getName(), "Looking into it", createdAt));
+                }
+            });
+        }
+        LocalDateTime changesStart = LocalDateTime.now().minusYears(3);
+        long changeMinutes = 3L * 365 * 24 * 60;
+        store.inTransaction(() -> {
+            for (int i = 0; i < CHANGE_REQUESTS; i++) {
+                LocalDateTime createdAt = changesStart.plusMinutes(changeMinutes * i / CHANGE_REQUESTS);
+                LocalDate expiry = createdAt.toLocalDate().plusDays(30 + (i * 7L) % 400);
+                store.createChangeRequest(requesters[i % REQUESTERS], "Change " + i, "Seeded change", expiry, createdAt);
+            }
+        });
+    }
+
+    private static int currentSchemaVersion() {
+        try (DataStore store = new DataStore("jdbc:sqlite::memory:")) {
+            return store.getSchemaVersion();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to read schema version", ex);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.ittm.bench.jmh;
+
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.TicketFilter;
+import com.ittm.repository.TicketPage;
+import com.ittm.repository.TicketReportRow;
+import com.ittm.service.ChangeRequestService;
+import com.ittm.service.TicketService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service and repository hot paths against seeded databases of 1k, 100k and 1M tickets (see
+ * {@link SeededDatabase}). Reports throughput and sampled latency percentiles; run through
+ * {@link BenchmarkRunner} to add the GC profiler's allocation rate. Ticket views use the first
+ * page, as the console does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ServiceBenchmark {
+    private static final int PAGE_SIZE = 20;
+    private static final int ARCHIVE_BATCH = 10;
+
+    @Param({"1000", "100000", "1000000"})
+    public int tickets;
+
+    private Path file;
+    private DataStore store;
+    private TicketService ticketService;
+    private ChangeRequestService changeRequestService;
+    private User requester;
+    private User agent;
+    private User admin;
+    private Ticket assignable;
+    private int[] noteTargets;
+    private int nextNoteTarget;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = SeededDatabase.copy(tickets);
+        store = new DataStore("jdbc:sqlite:" + file);
+        ticketService = new TicketService(store);
+        changeRequestService = new ChangeRequestService(store);
+        requester = store.findUser(SeededDatabase.FIRST_REQUESTER_ID).orElseThrow();
+        agent = store.findUser(SeededDatabase.FIRST_AGENT_ID).orElseThrow();
+        admin = store.findUser(SeededDatabase.ADMIN_ID).orElseThrow();
+        assignable = ticketService.createTicket(requester, "Assignable", "Benchmark ticket", "Hardware");
+        List<Ticket> own = ticketService.viewTicketsForUser(requester, new TicketFilter(), null, 100).getTickets();
+        noteTargets = own.stream().mapToInt(Ticket::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        SeededDatabase.delete(file);
+    }
+
+    @Benchmark
+    public Ticket createTicket() {
+        return ticketService.createTicket(requester, "Benchmark ticket", "Created by the benchmark", "Software");
+    }
+
+    @Benchmark
+    public void assignAgent() {
+        ticketService.assignAgent(assignable, "Benchmark");
+    }
+
+    @Benchmark
+    public TicketPage viewTicketsAsUser() {
+        return ticketService.viewTicketsForUser(requester, new TicketFilter(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TicketPage viewTicketsAsAgent() {
+        return ticketService.viewTicketsForUser(agent, new TicketFilter(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public TicketPage viewTicketsAsAdmin() {
+        return ticketService.viewTicketsForUser(admin, new TicketFilter(), null, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<Ticket> searchOpenLastWeek() {
+        return ticketService.search(TicketStatus.OPEN, LocalDate.now().minusDays(7), LocalDate.now());
+    }
+
+    @Benchmark
+    public List<TicketReportRow> monthlyReport() {
+        return ticketService.monthlyReport();
+    }
+
+    @Benchmark
+    public List<Ticket> escalations() {
+        return ticketService.escalations(LocalDateTime.now());
+    }
+
+    @Benchmark
+    public void addNote() {
+        int ticketId = noteTargets[nextNoteTarget++ % noteTargets.length];
+        ticketService.addNote(requester, ticketId, "Any update?");
+    }
+
+    @Benchmark
+    public int archiveOld(AgedChangeRequests aged) {
+        return changeRequestService.archiveOld(LocalDate.now());
+    }
+
+    /**
+     * Adds change requests old enough for {@link #archiveOld} to archive before every call, so
+     * each call sweeps a fresh batch instead of finding nothing to do.
+     */
+    @State(Scope.Benchmark)
+    public static class AgedChangeRequests {
+        @Setup(Level.Invocation)
+        public void add(ServiceBenchmark benchmark) {
+            DataStore store = benchmark.store;
+            store.inTransaction(() -> {
+                for (int i = 0; i < ARCHIVE_BATCH; i++) {
+                    store.createChangeRequest(benchmark.requester, "Aged change", "Benchmark change",
+                            LocalDate.now().minusYears(1), LocalDateTime.now().minusYears(2));
+                }
+            });
+        }
+    }
+}
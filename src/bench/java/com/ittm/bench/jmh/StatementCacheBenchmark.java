@@ -0,0 +1,73 @@
+package com.ittm.bench.jmh;
+
+import com.ittm.model.Role;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findUser} and {@code addHistory} throughput with and without the per-connection
+ * statement cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatementCacheBenchmark {
+    @Param({"64", "0"})
+    public int statementCacheSize;
+
+    private Path file;
+    private DataStore store;
+    private final TicketHistoryEntry entry = new TicketHistoryEntry(LocalDateTime.now(), "Benchmark action", "Bench");
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        file = Files.createTempFile("ittm-jmh", ".db");
+        store = new DataStore("jdbc:sqlite:" + file, new DataStoreConfig().statementCacheSize(statementCacheSize));
+        for (int id = 1; id <= 100; id++) {
+            store.saveUser(new User(id, "User " + id, id % 10 == 0 ? Role.AGENT : Role.USER));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        store.close();
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(Path.of(file + "-wal"));
+        Files.deleteIfExists(Path.of(file + "-shm"));
+        Files.deleteIfExists(Path.of(file + ".lock"));
+    }
+
+    @Benchmark
+    public Optional<User> findUser() {
+        return store.findUser(42);
+    }
+
+    @Benchmark
+    public void addHistory() {
+        store.addHistory(1, entry);
+    }
+}
@@ -0,0 +1,14 @@
+package com.ittm.metrics;
+
+/**
+ * One timed call, opened by {@link MetricsRegistry#begin(String)} and closed with
+ * try-with-resources. Scopes nest; each records its own latency and the statements and rows
+ * counted on the calling thread while it was open, including those of nested scopes.
+ */
+public interface CallScope extends AutoCloseable {
+    CallScope NONE = () -> {
+    };
+
+    @Override
+    void close();
+}
@@ -0,0 +1,19 @@
+package com.ittm.metrics;
+
+import java.util.List;
+
+/**
+ * JMX view of a {@link MetricsRegistry}.
+ */
+public interface MetricsMXBean {
+    boolean isEnabled();
+
+    List<ProbeSnapshot> getProbes();
+
+    /**
+     * The same table as the periodic text dump.
+     */
+    String dump();
+
+    void reset();
+}
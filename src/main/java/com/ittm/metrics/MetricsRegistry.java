@@ -0,0 +1,185 @@
+package com.ittm.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Call metrics for the service and repository layers. Instrumented methods open a
+ * {@link CallScope} per call; the repository reports executed SQL statements and hydrated rows
+ * through {@link #statementExecuted()} and {@link #rowsHydrated(int)}, which are counted per
+ * thread and attributed to every scope open on that thread.
+ *
+ * <p>Recording does not allocate once a thread has warmed up: scopes are reused from a
+ * per-thread stack and histograms are preallocated. A disabled registry hands out a shared
+ * no-op scope.
+ */
+public class MetricsRegistry implements MetricsMXBean {
+    private final boolean enabled;
+    private final ConcurrentHashMap<String, Probe> probes = new ConcurrentHashMap<>();
+    private final ThreadLocal<CallStack> stacks = ThreadLocal.withInitial(CallStack::new);
+    private ObjectName objectName;
+
+    public MetricsRegistry() {
+        this(true);
+    }
+
+    public MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Starts timing a call of the method {@code name}, e.g. {@code "TicketService.createTicket"}.
+     */
+    public CallScope begin(String name) {
+        if (!enabled) {
+            return CallScope.NONE;
+        }
+        Probe probe = probes.get(name);
+        if (probe == null) {
+            probe = probes.computeIfAbsent(name, Probe::new);
+        }
+        return stacks.get().push(probe);
+    }
+
+    public void statementExecuted() {
+        if (enabled) {
+            stacks.get().statements++;
+        }
+    }
+
+    public void rowsHydrated(int rows) {
+        if (enabled) {
+            stacks.get().rows += rows;
+        }
+    }
+
+    public Probe probe(String name) {
+        return probes.get(name);
+    }
+
+    @Override
+    public List<ProbeSnapshot> getProbes() {
+        List<ProbeSnapshot> snapshots = new ArrayList<>();
+        for (Probe probe : probes.values()) {
+            snapshots.add(probe.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(ProbeSnapshot::getName));
+        return snapshots;
+    }
+
+    /**
+     * Formats every probe that has been called as a table, most total time first.
+     */
+    @Override
+    public String dump() {
+        List<ProbeSnapshot> snapshots = new ArrayList<>(getProbes());
+        snapshots.removeIf(s -> s.getCalls() == 0);
+        snapshots.sort(Comparator.comparingDouble((ProbeSnapshot s) -> s.getMeanMicros() * s.getCalls()).reversed());
+        StringBuilder out = new StringBuilder(String.format("%-48s %10s %10s %10s %10s %10s %10s %8s %8s%n",
+                "method", "calls", "mean us", "p50 us", "p99 us", "p999 us", "max us", "stmts", "rows"));
+        for (ProbeSnapshot s : snapshots) {
+            out.append(String.format("%-48s %10d %10.1f %10.1f %10.1f %10.1f %10.1f %8.2f %8.1f%n", s.getName(), s.getCalls(),
+                    s.getMeanMicros(), s.getP50Micros(), s.getP99Micros(), s.getP999Micros(), s.getMaxMicros(),
+                    s.getStatementsPerCall(), s.getRowsPerCall()));
+        }
+        return out.toString();
+    }
+
+    @Override
+    public void reset() {
+        probes.values().forEach(Probe::reset);
+    }
+
+    /**
+     * Registers this registry with the platform MBean server as
+     * {@code com.ittm:type=Metrics,name=<name>}.
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName candidate = new ObjectName("com.ittm:type=Metrics,name=" + name);
+            server.registerMBean(this, candidate);
+            objectName = candidate;
+            return objectName;
+        } catch (JMException ex) {
+            throw new IllegalStateException("Unable to register metrics MBean " + name, ex);
+        }
+    }
+
+    public synchronized void unregisterMBean() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException ex) {
+            throw new IllegalStateException("Unable to unregister metrics MBean " + objectName, ex);
+        } finally {
+            objectName = null;
+        }
+    }
+
+    /**
+     * Per-thread statement and row counters plus a reusable stack of open scopes.
+     */
+    private static final class CallStack {
+        private Frame[] frames = new Frame[8];
+        private int depth;
+        private long statements;
+        private long rows;
+
+        private CallScope push(Probe probe) {
+            if (depth == frames.length) {
+                Frame[] grown = new Frame[frames.length * 2];
+                System.arraycopy(frames, 0, grown, 0, depth);
+                frames = grown;
+            }
+            Frame frame = frames[depth];
+            if (frame == null) {
+                frame = new Frame(this);
+                frames[depth] = frame;
+            }
+            depth++;
+            frame.open(probe);
+            return frame;
+        }
+    }
+
+    private static final class Frame implements CallScope {
+        private final CallStack stack;
+        private Probe probe;
+        private long startNanos;
+        private long startStatements;
+        private long startRows;
+
+        private Frame(CallStack stack) {
+            this.stack = stack;
+        }
+
+        private void open(Probe probe) {
+            this.probe = probe;
+            this.startStatements = stack.statements;
+            this.startRows = stack.rows;
+            this.startNanos = System.nanoTime();
+        }
+
+        @Override
+        public void close() {
+            long elapsed = System.nanoTime() - startNanos;
+            probe.record(elapsed, stack.statements - startStatements, stack.rows - startRows);
+            probe = null;
+            stack.depth--;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.ittm.metrics;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically hands a timestamped {@link MetricsRegistry#dump()} to a sink, e.g. a log file.
+ */
+public class MetricsReporter implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(MetricsReporter.class.getName());
+
+    private final MetricsRegistry registry;
+    private final Duration interval;
+    private final Consumer<String> sink;
+    private ScheduledExecutorService executor;
+
+    public MetricsReporter(MetricsRegistry registry, Duration interval, Consumer<String> sink) {
+        this.registry = registry;
+        this.interval = interval;
+        this.sink = sink;
+    }
+
+    /**
+     * Reports once per interval on a daemon thread, starting one interval from now.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ittm-metrics-reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(this::report, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes one report on the calling thread.
+     */
+    public void report() {
+        try {
+            sink.accept("# metrics at " + LocalDateTime.now() + System.lineSeparator() + registry.dump());
+        } catch (RuntimeException ex) {
+            // keep the schedule alive; the next report retries
+            LOG.log(Level.WARNING, "Metrics report failed", ex);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.ittm.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Accumulated measurements of one instrumented method: a latency histogram plus the total
+ * number of SQL statements executed and rows hydrated by its calls.
+ */
+public class Probe {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+
+    Probe(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public long getStatements() {
+        return statements.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    void record(long nanos, long statementCount, long rowCount) {
+        latency.record(nanos);
+        statements.add(statementCount);
+        rows.add(rowCount);
+    }
+
+    void reset() {
+        latency.reset();
+        statements.reset();
+        rows.reset();
+    }
+
+    public ProbeSnapshot snapshot() {
+        long calls = latency.getCount();
+        double perCall = Math.max(1, calls);
+        return new ProbeSnapshot(name, calls, latency.getSum() / perCall / 1_000.0,
+                latency.valueAtQuantile(0.50) / 1_000.0, latency.valueAtQuantile(0.99) / 1_000.0,
+                latency.valueAtQuantile(0.999) / 1_000.0, latency.getMax() / 1_000.0,
+                statements.sum() / perCall, rows.sum() / perCall);
+    }
+}
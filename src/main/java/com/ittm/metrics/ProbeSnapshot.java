@@ -0,0 +1,70 @@
+package com.ittm.metrics;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Point-in-time view of a {@link Probe}; latencies are in microseconds. Exposed over JMX as
+ * composite data.
+ */
+public class ProbeSnapshot {
+    private final String name;
+    private final long calls;
+    private final double meanMicros;
+    private final double p50Micros;
+    private final double p99Micros;
+    private final double p999Micros;
+    private final double maxMicros;
+    private final double statementsPerCall;
+    private final double rowsPerCall;
+
+    @ConstructorProperties({"name", "calls", "meanMicros", "p50Micros", "p99Micros", "p999Micros", "maxMicros",
+            "statementsPerCall", "rowsPerCall"})
+    public ProbeSnapshot(String name, long calls, double meanMicros, double p50Micros, double p99Micros, double p999Micros,
+                         double maxMicros, double statementsPerCall, double rowsPerCall) {
+        this.name = name;
+        this.calls = calls;
+        this.meanMicros = meanMicros;
+        this.p50Micros = p50Micros;
+        this.p99Micros = p99Micros;
+        this.p999Micros = p999Micros;
+        this.maxMicros = maxMicros;
+        this.statementsPerCall = statementsPerCall;
+        this.rowsPerCall = rowsPerCall;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCalls() {
+        return calls;
+    }
+
+    public double getMeanMicros() {
+        return meanMicros;
+    }
+
+    public double getP50Micros() {
+        return p50Micros;
+    }
+
+    public double getP99Micros() {
+        return p99Micros;
+    }
+
+    public double getP999Micros() {
+        return p999Micros;
+    }
+
+    public double getMaxMicros() {
+        return maxMicros;
+    }
+
+    public double getStatementsPerCall() {
+        return statementsPerCall;
+    }
+
+    public double getRowsPerCall() {
+        return rowsPerCall;
+    }
+}
@@ -2,6 +2,10 @@ package com.ittm.model;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 
 public class ChangeRequest {
     private final int id;
@@ -13,6 +17,8 @@ public class ChangeRequest {
     private boolean archived;
     private String implementationNote;
     private LocalDateTime createdAt;
+    private int version;
+    private final EnumSet<ChangeRequestField> changedFields = EnumSet.noneOf(ChangeRequestField.class);
 
     public ChangeRequest(int id, User requester, String title, String description, LocalDate expiryDate, LocalDateTime createdAt) {
         this.id = id;
@@ -37,6 +43,9 @@ public class ChangeRequest {
     }
 
     public void setTitle(String title) {
+        if (!Objects.equals(this.title, title)) {
+            changedFields.add(ChangeRequestField.TITLE);
+        }
         this.title = title;
     }
 
@@ -45,6 +54,9 @@ public class ChangeRequest {
     }
 
     public void setDescription(String description) {
+        if (!Objects.equals(this.description, description)) {
+            changedFields.add(ChangeRequestField.DESCRIPTION);
+        }
         this.description = description;
     }
 
@@ -53,6 +65,9 @@ public class ChangeRequest {
     }
 
     public void setStatus(ChangeRequestStatus status) {
+        if (this.status != status) {
+            changedFields.add(ChangeRequestField.STATUS);
+        }
         this.status = status;
     }
 
@@ -61,6 +76,9 @@ public class ChangeRequest {
     }
 
     public void setExpiryDate(LocalDate expiryDate) {
+        if (!Objects.equals(this.expiryDate, expiryDate)) {
+            changedFields.add(ChangeRequestField.EXPIRY_DATE);
+        }
         this.expiryDate = expiryDate;
     }
 
@@ -69,6 +87,9 @@ public class ChangeRequest {
     }
 
     public void setArchived(boolean archived) {
+        if (this.archived != archived) {
+            changedFields.add(ChangeRequestField.ARCHIVED);
+        }
         this.archived = archived;
     }
 
@@ -77,10 +98,39 @@ public class ChangeRequest {
     }
 
     public void setImplementationNote(String implementationNote) {
+        if (!Objects.equals(this.implementationNote, implementationNote)) {
+            changedFields.add(ChangeRequestField.IMPLEMENTATION_NOTE);
+        }
         this.implementationNote = implementationNote;
     }
 
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
+
+    /**
+     * Row version this object was loaded or last saved with; {@code DataStore} only updates the
+     * row while it still has this version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Fields set to a different value since the object was loaded or last saved.
+     */
+    public Set<ChangeRequestField> getChangedFields() {
+        return Collections.unmodifiableSet(changedFields);
+    }
+
+    /**
+     * Forgets the changed fields; called by {@code DataStore} once the object matches its row.
+     */
+    public void clearChangedFields() {
+        changedFields.clear();
+    }
 }
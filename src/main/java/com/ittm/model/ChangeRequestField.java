@@ -0,0 +1,13 @@
+package com.ittm.model;
+
+/**
+ * Mutable {@link ChangeRequest} fields, tracked so an update writes only the columns that changed.
+ */
+public enum ChangeRequestField {
+    TITLE,
+    DESCRIPTION,
+    STATUS,
+    EXPIRY_DATE,
+    ARCHIVED,
+    IMPLEMENTATION_NOTE
+}
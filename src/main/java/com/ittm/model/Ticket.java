@@ -2,7 +2,12 @@ package com.ittm.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
 
 public class Ticket {
     private final int id;
@@ -16,8 +21,12 @@ public class Ticket {
     private LocalDateTime updatedAt;
     private Integer rating;
     private boolean agentFlagged;
-    private final List<Note> notes = new ArrayList<>();
-    private final List<TicketHistoryEntry> history = new ArrayList<>();
+    private int version;
+    private final EnumSet<TicketField> changedFields = EnumSet.noneOf(TicketField.class);
+    private List<Note> notes = new ArrayList<>();
+    private List<TicketHistoryEntry> history = new ArrayList<>();
+    private Supplier<List<Note>> notesLoader;
+    private Supplier<List<TicketHistoryEntry>> historyLoader;
 
     public Ticket(int id, User requester, String title, String description, String category, LocalDateTime createdAt) {
         this.id = id;
@@ -43,6 +52,9 @@ public class Ticket {
     }
 
     public void setAssignedAgent(User assignedAgent) {
+        if (!Objects.equals(agentId(this.assignedAgent), agentId(assignedAgent))) {
+            changedFields.add(TicketField.ASSIGNED_AGENT);
+        }
         this.assignedAgent = assignedAgent;
     }
 
@@ -51,6 +63,9 @@ public class Ticket {
     }
 
     public void setCategory(String category) {
+        if (!Objects.equals(this.category, category)) {
+            changedFields.add(TicketField.CATEGORY);
+        }
         this.category = category;
     }
 
@@ -59,6 +74,9 @@ public class Ticket {
     }
 
     public void setTitle(String title) {
+        if (!Objects.equals(this.title, title)) {
+            changedFields.add(TicketField.TITLE);
+        }
         this.title = title;
     }
 
@@ -67,6 +85,9 @@ public class Ticket {
     }
 
     public void setDescription(String description) {
+        if (!Objects.equals(this.description, description)) {
+            changedFields.add(TicketField.DESCRIPTION);
+        }
         this.description = description;
     }
 
@@ -75,6 +96,9 @@ public class Ticket {
     }
 
     public void setStatus(TicketStatus status) {
+        if (this.status != status) {
+            changedFields.add(TicketField.STATUS);
+        }
         this.status = status;
     }
 
@@ -87,6 +111,9 @@ public class Ticket {
     }
 
     public void setUpdatedAt(LocalDateTime updatedAt) {
+        if (!Objects.equals(this.updatedAt, updatedAt)) {
+            changedFields.add(TicketField.UPDATED_AT);
+        }
         this.updatedAt = updatedAt;
     }
 
@@ -95,6 +122,9 @@ public class Ticket {
     }
 
     public void setRating(Integer rating) {
+        if (!Objects.equals(this.rating, rating)) {
+            changedFields.add(TicketField.RATING);
+        }
         this.rating = rating;
     }
 
@@ -103,14 +133,85 @@ public class Ticket {
     }
 
     public void setAgentFlagged(boolean agentFlagged) {
+        if (this.agentFlagged != agentFlagged) {
+            changedFields.add(TicketField.AGENT_FLAGGED);
+        }
         this.agentFlagged = agentFlagged;
     }
 
+    /**
+     * Row version this object was loaded or last saved with; {@code DataStore} only updates the
+     * row while it still has this version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
+    /**
+     * Fields set to a different value since the object was loaded or last saved.
+     */
+    public Set<TicketField> getChangedFields() {
+        return Collections.unmodifiableSet(changedFields);
+    }
+
+    /**
+     * Forgets the changed fields; called by {@code DataStore} once the object matches its row.
+     */
+    public void clearChangedFields() {
+        changedFields.clear();
+    }
+
+    /**
+     * Returns the notes, loading them through the notes loader on first access if one is set.
+     */
     public List<Note> getNotes() {
+        if (notes == null) {
+            notes = new ArrayList<>(notesLoader.get());
+            notesLoader = null;
+        }
         return notes;
     }
 
+    /**
+     * Defers loading the notes until {@link #getNotes()} is first called.
+     */
+    public void setNotesLoader(Supplier<List<Note>> notesLoader) {
+        this.notesLoader = notesLoader;
+        this.notes = null;
+    }
+
+    public boolean isNotesLoaded() {
+        return notes != null;
+    }
+
+    /**
+     * Returns the history, loading it through the history loader on first access if one is set.
+     */
     public List<TicketHistoryEntry> getHistory() {
+        if (history == null) {
+            history = new ArrayList<>(historyLoader.get());
+            historyLoader = null;
+        }
         return history;
     }
+
+    /**
+     * Defers loading the history until {@link #getHistory()} is first called.
+     */
+    public void setHistoryLoader(Supplier<List<TicketHistoryEntry>> historyLoader) {
+        this.historyLoader = historyLoader;
+        this.history = null;
+    }
+
+    public boolean isHistoryLoaded() {
+        return history != null;
+    }
+
+    private static Integer agentId(User agent) {
+        return agent == null ? null : agent.getId();
+    }
 }
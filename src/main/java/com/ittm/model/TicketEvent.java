@@ -0,0 +1,129 @@
+package com.ittm.model;
+
+import java.time.LocalDateTime;
+
+/**
+ * One immutable fact about a ticket, appended to the ticket event log in the order it happened.
+ * Only the fields of its {@link TicketEventType} are set; the {@linkplain #getOffset() offset} is
+ * the event's position in the log, assigned when it is appended.
+ */
+public class TicketEvent {
+    private final int ticketId;
+    private final TicketEventType type;
+    private final LocalDateTime at;
+    private final int actorId;
+    private long offset;
+    private String category;
+    private String title;
+    private int agentId;
+    private TicketStatus status;
+    private int rating;
+    private boolean agentFlagged;
+
+    private TicketEvent(int ticketId, TicketEventType type, LocalDateTime at, int actorId) {
+        this.ticketId = ticketId;
+        this.type = type;
+        this.at = at;
+        this.actorId = actorId;
+    }
+
+    /**
+     * The ticket was raised by {@code requesterId}, who is also the actor.
+     */
+    public static TicketEvent created(int ticketId, LocalDateTime at, int requesterId, String category, String title) {
+        TicketEvent event = new TicketEvent(ticketId, TicketEventType.CREATED, at, requesterId);
+        event.category = category;
+        event.title = title;
+        return event;
+    }
+
+    public static TicketEvent assigned(int ticketId, LocalDateTime at, int actorId, int agentId) {
+        TicketEvent event = new TicketEvent(ticketId, TicketEventType.ASSIGNED, at, actorId);
+        event.agentId = agentId;
+        return event;
+    }
+
+    public static TicketEvent statusChanged(int ticketId, LocalDateTime at, int actorId, TicketStatus status) {
+        TicketEvent event = new TicketEvent(ticketId, TicketEventType.STATUS_CHANGED, at, actorId);
+        event.status = status;
+        return event;
+    }
+
+    public static TicketEvent rated(int ticketId, LocalDateTime at, int actorId, int rating, boolean agentFlagged) {
+        TicketEvent event = new TicketEvent(ticketId, TicketEventType.RATED, at, actorId);
+        event.rating = rating;
+        event.agentFlagged = agentFlagged;
+        return event;
+    }
+
+    public static TicketEvent noteAdded(int ticketId, LocalDateTime at, int authorId) {
+        return new TicketEvent(ticketId, TicketEventType.NOTE_ADDED, at, authorId);
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public TicketEventType getType() {
+        return type;
+    }
+
+    public LocalDateTime getAt() {
+        return at;
+    }
+
+    /**
+     * Id of the user who caused the event; the requester for {@link TicketEventType#CREATED},
+     * the note's author for {@link TicketEventType#NOTE_ADDED}, and 0 for the system itself.
+     */
+    public int getActorId() {
+        return actorId;
+    }
+
+    /**
+     * Position in the event log, or 0 while the event has not been appended.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    public void setOffset(long offset) {
+        this.offset = offset;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public int getAgentId() {
+        return agentId;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public int getRating() {
+        return rating;
+    }
+
+    public boolean isAgentFlagged() {
+        return agentFlagged;
+    }
+
+    @Override
+    public String toString() {
+        String detail = switch (type) {
+            case CREATED -> category + " \"" + title + "\"";
+            case ASSIGNED -> "agent " + agentId;
+            case STATUS_CHANGED -> status.name();
+            case RATED -> rating + (agentFlagged ? " flagged" : "");
+            case NOTE_ADDED -> null;
+        };
+        return "#" + offset + " ticket " + ticketId + " " + type + (detail == null ? "" : " " + detail) + " by " + actorId + " at " + at;
+    }
+}
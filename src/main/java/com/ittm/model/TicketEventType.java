@@ -0,0 +1,32 @@
+package com.ittm.model;
+
+/**
+ * Kinds of {@link TicketEvent}. The code identifies the type in the stored event and must
+ * never be reused for another type.
+ */
+public enum TicketEventType {
+    CREATED(1),
+    ASSIGNED(2),
+    STATUS_CHANGED(3),
+    RATED(4),
+    NOTE_ADDED(5);
+
+    private final int code;
+
+    TicketEventType(int code) {
+        this.code = code;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public static TicketEventType fromCode(int code) {
+        for (TicketEventType type : values()) {
+            if (type.code == code) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("Unknown ticket event type " + code);
+    }
+}
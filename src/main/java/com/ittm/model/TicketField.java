@@ -0,0 +1,15 @@
+package com.ittm.model;
+
+/**
+ * Mutable {@link Ticket} fields, tracked so an update writes only the columns that changed.
+ */
+public enum TicketField {
+    ASSIGNED_AGENT,
+    CATEGORY,
+    TITLE,
+    DESCRIPTION,
+    STATUS,
+    UPDATED_AT,
+    RATING,
+    AGENT_FLAGGED
+}
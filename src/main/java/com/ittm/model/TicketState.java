@@ -0,0 +1,120 @@
+package com.ittm.model;
+
+/**
+ * A ticket's state as far as its events tell it, folded from the event log by
+ * {@link #apply(TicketEvent)}. Descriptions, notes and history stay with the ticket row; only
+ * the number of notes is counted. Also the payload of event snapshots.
+ */
+public class TicketState {
+    private final int ticketId;
+    private int requesterId;
+    private int agentId;
+    private String category;
+    private String title;
+    private TicketStatus status;
+    private Integer rating;
+    private boolean agentFlagged;
+    private int noteCount;
+    private long offset;
+
+    public TicketState(int ticketId) {
+        this.ticketId = ticketId;
+    }
+
+    /**
+     * Restores a state saved at {@code offset}, as read back from a snapshot.
+     */
+    public TicketState(int ticketId, int requesterId, int agentId, String category, String title, TicketStatus status,
+                       Integer rating, boolean agentFlagged, int noteCount, long offset) {
+        this.ticketId = ticketId;
+        this.requesterId = requesterId;
+        this.agentId = agentId;
+        this.category = category;
+        this.title = title;
+        this.status = status;
+        this.rating = rating;
+        this.agentFlagged = agentFlagged;
+        this.noteCount = noteCount;
+        this.offset = offset;
+    }
+
+    /**
+     * Applies one event of this ticket. Events at or before {@link #getOffset()} are already part
+     * of the state and are ignored, so replaying from an earlier offset is harmless.
+     */
+    public void apply(TicketEvent event) {
+        if (event.getTicketId() != ticketId) {
+            throw new IllegalArgumentException("Event of ticket " + event.getTicketId() + " applied to ticket " + ticketId);
+        }
+        if (event.getOffset() != 0 && event.getOffset() <= offset) {
+            return;
+        }
+        switch (event.getType()) {
+            case CREATED -> {
+                requesterId = event.getActorId();
+                category = event.getCategory();
+                title = event.getTitle();
+                status = TicketStatus.RAISED;
+            }
+            case ASSIGNED -> agentId = event.getAgentId();
+            case STATUS_CHANGED -> status = event.getStatus();
+            case RATED -> {
+                rating = event.getRating();
+                agentFlagged = event.isAgentFlagged();
+            }
+            case NOTE_ADDED -> noteCount++;
+        }
+        offset = Math.max(offset, event.getOffset());
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public int getRequesterId() {
+        return requesterId;
+    }
+
+    /**
+     * Id of the assigned agent, or 0 when unassigned.
+     */
+    public int getAgentId() {
+        return agentId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public Integer getRating() {
+        return rating;
+    }
+
+    public boolean isAgentFlagged() {
+        return agentFlagged;
+    }
+
+    public int getNoteCount() {
+        return noteCount;
+    }
+
+    /**
+     * Offset of the last event folded into this state.
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public String toString() {
+        return "Ticket " + ticketId + " " + status + " agent " + agentId + " rating " + rating + " notes " + noteCount + " @" + offset;
+    }
+}
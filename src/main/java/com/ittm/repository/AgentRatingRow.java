@@ -0,0 +1,53 @@
+package com.ittm.repository;
+
+import com.ittm.model.User;
+
+/**
+ * Rating totals of one agent over all tickets ever assigned to them.
+ */
+public class AgentRatingRow {
+    private final User agent;
+    private final long tickets;
+    private final long ratingSum;
+    private final long ratingCount;
+    private final long flagged;
+
+    AgentRatingRow(User agent, long tickets, long ratingSum, long ratingCount, long flagged) {
+        this.agent = agent;
+        this.tickets = tickets;
+        this.ratingSum = ratingSum;
+        this.ratingCount = ratingCount;
+        this.flagged = flagged;
+    }
+
+    public User getAgent() {
+        return agent;
+    }
+
+    public long getTickets() {
+        return tickets;
+    }
+
+    public long getRatingCount() {
+        return ratingCount;
+    }
+
+    /**
+     * Mean rating over the rated tickets, 0 when none are rated.
+     */
+    public double getAverageRating() {
+        return ratingCount == 0 ? 0 : (double) ratingSum / ratingCount;
+    }
+
+    /**
+     * Number of tickets flagged for a low rating.
+     */
+    public long getFlagged() {
+        return flagged;
+    }
+
+    @Override
+    public String toString() {
+        return agent.getName() + " -> avg rating " + String.format("%.2f", getAverageRating()) + " flagged low ratings: " + flagged;
+    }
+}
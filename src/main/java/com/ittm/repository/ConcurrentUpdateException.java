@@ -0,0 +1,33 @@
+package com.ittm.repository;
+
+/**
+ * Thrown by a compare-and-set update when the row no longer has the version the entity was
+ * loaded with: another writer changed or deleted it in between. Nothing was written; the caller
+ * reloads the entity, reapplies its change and tries again.
+ */
+public class ConcurrentUpdateException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    private final String entity;
+    private final int id;
+    private final int expectedVersion;
+
+    public ConcurrentUpdateException(String entity, int id, int expectedVersion) {
+        super(entity + " " + id + " was changed by someone else (expected version " + expectedVersion + ")");
+        this.entity = entity;
+        this.id = id;
+        this.expectedVersion = expectedVersion;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public int getExpectedVersion() {
+        return expectedVersion;
+    }
+}
@@ -0,0 +1,337 @@
+package com.ittm.repository;
+
+import org.sqlite.SQLiteConnection;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SQLite connections for {@link DataStore}: a single writer connection guarded by a lock, so
+ * writes are serialized in-process instead of failing with {@code SQLITE_BUSY}, and a fixed
+ * set of read-only connections that run concurrently against the WAL. A thread that holds
+ * the writer reads through it as well, so it always sees its own uncommitted changes.
+ * In-memory databases are private to a connection and therefore use the writer only.
+ *
+ * <p>A file database is opened by one pool at a time: the pool holds an exclusive lock on
+ * {@code <file>.lock} until it is closed, and a second pool for the same file, in this or another
+ * process, fails instead of writing behind the first one's back.
+ *
+ * <p>Writes outside {@link #transaction(SqlWork)} autocommit individually; inside a transaction
+ * they are committed together once the outermost transaction completes. Both paths are counted
+ * in {@link #getCommitCount()}, but only when they changed rows: reads that run on the writer and
+ * units of work that end up writing nothing commit nothing to the database either.
+ */
+class ConnectionPool implements AutoCloseable {
+    interface SqlWork<T> {
+        T run(Connection connection) throws SQLException;
+    }
+
+    private final FileChannel ownerLock;
+    private final Connection writer;
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final BlockingQueue<Connection> readers;
+    private final List<Connection> readerConnections = new ArrayList<>();
+    private final AtomicLong commitCount = new AtomicLong();
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private final Map<Connection, StatementCache> statementCaches = new IdentityHashMap<>();
+    private final List<Runnable> afterCommit = new ArrayList<>();
+    private int transactionDepth;
+
+    ConnectionPool(String url, DataStoreConfig config, SqlWork<Void> schemaSetup) throws SQLException {
+        boolean inMemory = isInMemory(url);
+        ownerLock = inMemory ? null : lockOwner(url);
+        try {
+            writer = open(url, config, false);
+        } catch (SQLException ex) {
+            releaseOwner();
+            throw ex;
+        }
+        try {
+            if (!inMemory) {
+                execute(writer, "PRAGMA journal_mode=WAL");
+            }
+            schemaSetup.run(writer);
+            statementCaches.put(writer, newStatementCache(writer, config));
+            int readerCount = inMemory ? 0 : config.getReaderPoolSize();
+            readers = new ArrayBlockingQueue<>(Math.max(1, readerCount));
+            for (int i = 0; i < readerCount; i++) {
+                Connection reader = open(url, config, true);
+                readerConnections.add(reader);
+                statementCaches.put(reader, newStatementCache(reader, config));
+                readers.add(reader);
+            }
+        } catch (SQLException ex) {
+            close();
+            throw ex;
+        }
+    }
+
+    <T> T read(SqlWork<T> work) throws SQLException {
+        if (readerConnections.isEmpty() || writeLock.isHeldByCurrentThread()) {
+            return write(work);
+        }
+        Connection reader;
+        try {
+            reader = readers.take();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a reader connection", ex);
+        }
+        try {
+            return work.run(reader);
+        } finally {
+            readers.add(reader);
+        }
+    }
+
+    /**
+     * True when the calling thread currently owns the writer connection.
+     */
+    boolean holdsWriter() {
+        return writeLock.isHeldByCurrentThread();
+    }
+
+    /**
+     * True when the calling thread is inside {@link #transaction(SqlWork)}, so what it reads may
+     * still be rolled back.
+     */
+    boolean inTransaction() {
+        return writeLock.isHeldByCurrentThread() && transactionDepth > 0;
+    }
+
+    <T> T write(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            if (transactionDepth > 0) {
+                return work.run(writer);
+            }
+            long changes = totalChanges();
+            T result = work.run(writer);
+            countCommit(changes);
+            return result;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code work} on the writer inside a transaction, joining an enclosing transaction of
+     * the same thread. The outermost call commits, or rolls back if {@code work} throws.
+     */
+    <T> T transaction(SqlWork<T> work) throws SQLException {
+        writeLock.lock();
+        try {
+            if (transactionDepth > 0) {
+                transactionDepth++;
+                try {
+                    return work.run(writer);
+                } finally {
+                    transactionDepth--;
+                }
+            }
+            long changes = totalChanges();
+            writer.setAutoCommit(false);
+            transactionDepth = 1;
+            try {
+                T result = work.run(writer);
+                writer.commit();
+                countCommit(changes);
+                runAfterCommit();
+                return result;
+            } catch (SQLException | RuntimeException | Error ex) {
+                afterCommit.clear();
+                writer.rollback();
+                throw ex;
+            } finally {
+                transactionDepth = 0;
+                writer.setAutoCommit(true);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Runs {@code action} once the current thread's transaction commits, or immediately when no
+     * transaction is open. Actions run while the writer is still held, so they are ordered with
+     * the commits they follow; they are dropped on rollback.
+     */
+    void afterCommit(Runnable action) {
+        if (writeLock.isHeldByCurrentThread() && transactionDepth > 0) {
+            afterCommit.add(action);
+        } else {
+            action.run();
+        }
+    }
+
+    long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * Rows changed through the writer since it was opened; comes from the driver, so it costs no
+     * statement.
+     */
+    private long totalChanges() throws SQLException {
+        return writer.unwrap(SQLiteConnection.class).getDatabase().total_changes();
+    }
+
+    private void countCommit(long changesBefore) throws SQLException {
+        if (totalChanges() != changesBefore) {
+            commitCount.incrementAndGet();
+        }
+    }
+
+    private void runAfterCommit() {
+        List<Runnable> actions = new ArrayList<>(afterCommit);
+        afterCommit.clear();
+        actions.forEach(Runnable::run);
+    }
+
+    /**
+     * Prepares {@code sql} through the statement cache of {@code connection}, which must be a
+     * connection currently lent out by this pool.
+     */
+    PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        return statementCaches.get(connection).prepare(sql, autoGeneratedKeys);
+    }
+
+    long getStatementCacheHits() {
+        return statementCacheHits.get();
+    }
+
+    long getStatementCacheMisses() {
+        return statementCacheMisses.get();
+    }
+
+    int getReaderCount() {
+        return readerConnections.size();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        SQLException failure = null;
+        for (StatementCache cache : statementCaches.values()) {
+            try {
+                cache.close();
+            } catch (SQLException ex) {
+                failure = ex;
+            }
+        }
+        List<Connection> all = new ArrayList<>(readerConnections);
+        all.add(writer);
+        for (Connection connection : all) {
+            try {
+                if (connection != null) {
+                    connection.close();
+                }
+            } catch (SQLException ex) {
+                failure = ex;
+            }
+        }
+        releaseOwner();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private StatementCache newStatementCache(Connection connection, DataStoreConfig config) {
+        return new StatementCache(connection, config.getStatementCacheSize(), statementCacheHits, statementCacheMisses);
+    }
+
+    private static Connection open(String url, DataStoreConfig config, boolean readOnly) throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        execute(connection, "PRAGMA busy_timeout=" + config.getBusyTimeoutMillis());
+        execute(connection, "PRAGMA synchronous=NORMAL");
+        execute(connection, "PRAGMA cache_size=-" + config.getCacheSizeKib());
+        execute(connection, "PRAGMA mmap_size=" + config.getMmapSizeBytes());
+        if (readOnly) {
+            execute(connection, "PRAGMA query_only=1");
+        }
+        return connection;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute(sql);
+        }
+    }
+
+    /**
+     * Takes the exclusive lock that marks this pool as the owner of the database file. The lock
+     * file is left in place: deleting it could let two pools lock two different files.
+     */
+    private static FileChannel lockOwner(String url) {
+        Path lockFile = Path.of(databasePath(url) + ".lock");
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to open lock file " + lockFile, ex);
+        }
+        FileLock lock;
+        try {
+            lock = channel.tryLock();
+        } catch (OverlappingFileLockException ex) {
+            lock = null;
+        } catch (IOException ex) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Unable to lock " + lockFile, ex);
+        }
+        if (lock == null) {
+            closeQuietly(channel);
+            throw new IllegalStateException("Database " + databasePath(url) + " is already open in another DataStore"
+                    + " or process; only one may use a database file at a time");
+        }
+        return channel;
+    }
+
+    private void releaseOwner() {
+        if (ownerLock != null) {
+            // closing the channel releases its lock
+            closeQuietly(ownerLock);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // the lock dies with the channel either way
+        }
+    }
+
+    /**
+     * The file part of a {@code jdbc:sqlite:} URL, without a {@code file:} prefix or query.
+     */
+    private static String databasePath(String url) {
+        String path = url.substring("jdbc:sqlite:".length());
+        if (path.startsWith("file:")) {
+            path = path.substring("file:".length());
+        }
+        int query = path.indexOf('?');
+        return query < 0 ? path : path.substring(0, query);
+    }
+
+    private static boolean isInMemory(String url) {
+        return url.equals("jdbc:sqlite:") || url.contains(":memory:") || url.contains("mode=memory");
+    }
+}
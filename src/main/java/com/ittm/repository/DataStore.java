@@ -1,99 +1,417 @@
 package com.ittm.repository;
 
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.MetricsRegistry;
 import com.ittm.model.ChangeRequest;
+import com.ittm.model.ChangeRequestField;
 import com.ittm.model.ChangeRequestStatus;
 import com.ittm.model.Note;
 import com.ittm.model.Role;
 import com.ittm.model.Ticket;
+import com.ittm.model.TicketEvent;
+import com.ittm.model.TicketField;
 import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.TicketState;
 import com.ittm.model.TicketStatus;
 import com.ittm.model.User;
 
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+/**
+ * SQLite-backed repository shared by all services. Reads run on pooled read-only connections
+ * and writes go through a single serialized writer connection (see {@link ConnectionPool}),
+ * so one instance can be used from several threads.
+ *
+ * <p>A database file is owned by one instance at a time: opening a file that another
+ * {@code DataStore}, in this process or another, still has open fails. Every write therefore
+ * passes through this instance, which is what lets the user and ticket listeners keep in-memory
+ * views exact without re-reading the database.
+ */
 public class DataStore implements AutoCloseable {
-    private final Connection connection;
+    /**
+     * Matches ranked per full-text index by {@link #searchText}; BM25 is computed per matching
+     * row, so ranking every match of a common word would cost a scan of its whole posting list.
+     */
+    static final int TEXT_SEARCH_WINDOW = 1_000;
+    private static final Logger LOG = Logger.getLogger(DataStore.class.getName());
+
+    private final ConnectionPool pool;
+    private final HistoryAppender appender;
+    private final UserCache userCache;
+    private final AtomicLong statementCount = new AtomicLong();
+    private final MetricsRegistry metrics;
+    private final TimestampFormat timestampFormat;
+    private final int streamBatchSize;
+    private final TicketGraphLoader ticketLoader = new TicketGraphLoader(this);
+    private final TicketEventLog eventLog = new TicketEventLog(this);
+    private final int snapshotInterval;
+    private final AtomicLong lastEventOffset = new AtomicLong();
+    private final AtomicLong snapshotOffset = new AtomicLong();
+    private final AtomicBoolean snapshotting = new AtomicBoolean();
+    private final ExecutorService snapshotter;
+    private final List<Consumer<User>> userListeners = new CopyOnWriteArrayList<>();
+    private final List<Consumer<TicketChange>> ticketListeners = new CopyOnWriteArrayList<>();
 
     public DataStore() {
         this("jdbc:sqlite:ittm.db");
     }
 
     public DataStore(String url) {
+        this(url, new DataStoreConfig());
+    }
+
+    public DataStore(String url, DataStoreConfig config) {
+        this.metrics = config.getMetrics() != null ? config.getMetrics() : new MetricsRegistry();
+        this.userCache = new UserCache(config.getUserCacheSize());
+        this.streamBatchSize = config.getStreamBatchSize();
+        this.snapshotInterval = config.getSnapshotInterval();
         try {
-            this.connection = DriverManager.getConnection(url);
-            initSchema();
+            this.pool = new ConnectionPool(url, config, connection -> initSchema(connection, config.getTimestampFormat()));
+            this.timestampFormat = pool.read(SchemaMigrator::storedFormat);
+            lastEventOffset.set(pool.read(eventLog::lastOffset));
+            snapshotOffset.set(pool.read(eventLog::snapshotOffset));
         } catch (SQLException ex) {
             throw new IllegalStateException("Failed to initialize database", ex);
         }
+        this.appender = new HistoryAppender(this, pool, config);
+        this.snapshotter = snapshotInterval > 0 ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ittm-event-snapshots");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    private Void initSchema(Connection connection, TimestampFormat format) throws SQLException {
+        new SchemaMigrator().migrate(connection, format);
+        return null;
     }
 
-    private void initSchema() throws SQLException {
-        try (Statement st = connection.createStatement()) {
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY, name TEXT, role TEXT)");
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS tickets (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, requester_id INTEGER, assigned_agent_id INTEGER, category TEXT, " +
-                    "title TEXT, description TEXT, status TEXT, created_at TEXT, updated_at TEXT, rating INTEGER, agent_flagged INTEGER)");
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS notes (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, ticket_id INTEGER, author_id INTEGER, author_name TEXT, message TEXT, created_at TEXT)");
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS ticket_history (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, ticket_id INTEGER, timestamp TEXT, action TEXT, performed_by TEXT)");
-            st.executeUpdate("CREATE TABLE IF NOT EXISTS change_requests (" +
-                    "id INTEGER PRIMARY KEY AUTOINCREMENT, requester_id INTEGER, title TEXT, description TEXT, status TEXT, " +
-                    "expiry_date TEXT, archived INTEGER, implementation_note TEXT, created_at TEXT)");
+    /**
+     * The format this database stores timestamps in, which may differ from the configured one
+     * (see {@link DataStoreConfig#timestampFormat}).
+     */
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    public int getSchemaVersion() {
+        try (CallScope scope = metrics.begin("DataStore.getSchemaVersion")) {
+            return pool.read(SchemaMigrator::currentVersion);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to read schema version", ex);
+        }
+    }
+
+    /**
+     * Runs {@code work} as one unit of work: every write it makes through this store, on the
+     * calling thread, is committed in a single transaction, or rolled back if it throws.
+     * Nested calls join the enclosing unit of work.
+     */
+    public <T> T inTransaction(Supplier<T> work) {
+        boolean outermost = !pool.holdsWriter();
+        boolean committed = false;
+        T result;
+        try (CallScope scope = metrics.begin("DataStore.inTransaction")) {
+            result = pool.transaction(connection -> work.get());
+            committed = true;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to commit transaction", ex);
+        } finally {
+            if (outermost) {
+                awaitAppends(committed);
+            }
+        }
+        if (outermost) {
+            snapshotIfDue();
+        }
+        return result;
+    }
+
+    private void awaitAppends(boolean committed) {
+        try {
+            appender.awaitUnitOfWork(committed);
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to add notes and history", ex);
         }
     }
 
+    public void inTransaction(Runnable work) {
+        inTransaction(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * True while the calling thread is inside {@link #inTransaction}. Reads there go through the
+     * writer, so nothing can change between them and the unit's own updates.
+     */
+    public boolean isInTransaction() {
+        return pool.holdsWriter();
+    }
+
+    /**
+     * Defers {@code action} until the current unit of work commits (immediately outside one).
+     * Used to keep in-memory views from observing changes that may still roll back.
+     */
+    public void afterCommit(Runnable action) {
+        pool.afterCommit(action);
+    }
+
+    /**
+     * Number of commits issued so far, counting every autocommitted write individually.
+     */
+    public long getCommitCount() {
+        return pool.getCommitCount();
+    }
+
+    /**
+     * Number of read-only connections; zero for in-memory databases, which read through the writer.
+     */
+    public int getReaderCount() {
+        return pool.getReaderCount();
+    }
+
+    /**
+     * Returns the {@code EXPLAIN QUERY PLAN} detail lines for the given statement.
+     */
+    public List<String> explainQueryPlan(String sql, Object... params) {
+        try (CallScope scope = metrics.begin("DataStore.explainQueryPlan")) {
+            return pool.read(connection -> {
+                List<String> plan = new ArrayList<>();
+                try (PreparedStatement ps = prepare(connection, "EXPLAIN QUERY PLAN " + sql)) {
+                    for (int i = 0; i < params.length; i++) {
+                        ps.setObject(i + 1, params[i]);
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            plan.add(rs.getString("detail"));
+                        }
+                    }
+                }
+                return plan;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to explain query", ex);
+        }
+    }
+
+    /**
+     * Checks the query plans of the hot service queries and returns every statement that still
+     * scans a table without an index, mapped to the offending plan lines.
+     */
+    public Map<String, List<String>> findUnindexedHotQueries() {
+        return new IndexUsageCheck(this).findUnindexedQueries();
+    }
+
+    /**
+     * Number of SQL statements issued since this store was opened, whether or not they were
+     * served from the statement cache. Used by benchmarks to verify that bulk loads issue a
+     * constant number of queries.
+     */
+    public long getStatementCount() {
+        return statementCount.get();
+    }
+
+    /**
+     * Call metrics of this store, shared with the services built on it.
+     */
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Number of statements reused from a connection's statement cache.
+     */
+    public long getStatementCacheHits() {
+        return pool.getStatementCacheHits();
+    }
+
+    /**
+     * Number of statements that had to be compiled by SQLite.
+     */
+    public long getStatementCacheMisses() {
+        return pool.getStatementCacheMisses();
+    }
+
+    /**
+     * Returns a statement for {@code sql} on a connection lent out by the pool. Callers close it
+     * as usual; cached statements are then returned to the cache rather than closed.
+     */
+    PreparedStatement prepare(Connection connection, String sql) throws SQLException {
+        return prepare(connection, sql, Statement.NO_GENERATED_KEYS);
+    }
+
+    PreparedStatement prepare(Connection connection, String sql, int autoGeneratedKeys) throws SQLException {
+        statementCount.incrementAndGet();
+        metrics.statementExecuted();
+        return pool.prepare(connection, sql, autoGeneratedKeys);
+    }
+
     // region Users
     public void saveUser(User user) {
-        try (PreparedStatement ps = connection.prepareStatement("INSERT OR REPLACE INTO users(id, name, role) VALUES(?,?,?)")) {
-            ps.setInt(1, user.getId());
-            ps.setString(2, user.getName());
-            ps.setString(3, user.getRole().name());
-            ps.executeUpdate();
-        } catch (SQLException ex) {
-            throw new IllegalStateException("Unable to save user", ex);
+        try (CallScope scope = metrics.begin("DataStore.saveUser")) {
+            try {
+                pool.write(connection -> {
+                    try (PreparedStatement ps = prepare(connection, "INSERT OR REPLACE INTO users(id, name, role) VALUES(?,?,?)")) {
+                        ps.setInt(1, user.getId());
+                        ps.setString(2, user.getName());
+                        ps.setString(3, user.getRole().name());
+                        return ps.executeUpdate();
+                    }
+                });
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to save user", ex);
+            }
+            // after commit, so a reader cannot cache the old row again once the new one is visible,
+            // and listeners never apply a change that is rolled back
+            pool.afterCommit(() -> {
+                userCache.invalidate(user.getId());
+                userListeners.forEach(listener -> listener.accept(user));
+            });
         }
     }
 
+    /**
+     * Registers a callback invoked once every {@link #saveUser(User)} commits (not at all if it
+     * rolls back), e.g. to keep in-memory views of the user table in sync with role changes.
+     */
+    public void addUserListener(Consumer<User> listener) {
+        userListeners.add(listener);
+    }
+
+    /**
+     * Registers a callback invoked with the new state of a ticket once a {@link #createTicket} or
+     * {@link #updateTicket} that wrote it commits (not at all if it rolls back). Callbacks run on
+     * the committing thread, in commit order, while the writer is still held; they must not
+     * start another unit of work.
+     */
+    public void addTicketListener(Consumer<TicketChange> listener) {
+        ticketListeners.add(listener);
+    }
+
     public Optional<User> findUser(int id) {
-        try (PreparedStatement ps = connection.prepareStatement("SELECT id, name, role FROM users WHERE id = ?")) {
+        try (CallScope scope = metrics.begin("DataStore.findUser")) {
+            return pool.read(connection -> loadUser(connection, id));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load user", ex);
+        }
+    }
+
+    private Optional<User> loadUser(Connection connection, int id) throws SQLException {
+        User cached = userCache.get(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        long generation = userLoadGeneration();
+        try (PreparedStatement ps = prepare(connection, "SELECT id, name, role FROM users WHERE id = ?")) {
             ps.setInt(1, id);
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    return Optional.of(mapUser(rs));
+                    User user = mapUser(rs);
+                    metrics.rowsHydrated(1);
+                    userCache.put(user, generation);
+                    return Optional.of(user);
                 }
             }
-        } catch (SQLException ex) {
-            throw new IllegalStateException("Unable to load user", ex);
         }
         return Optional.empty();
     }
 
+    public CacheStats getUserCacheStats() {
+        return userCache.stats();
+    }
+
+    UserCache userCache() {
+        return userCache;
+    }
+
+    /**
+     * Token for a user load that starts now (see {@link UserCache#put}). A load inside a unit of
+     * work may read a row that is later rolled back, so its users are not cached.
+     */
+    long userLoadGeneration() {
+        return pool.inTransaction() ? UserCache.UNCACHEABLE : userCache.generation();
+    }
+
     public List<User> getAllUsers() {
-        List<User> users = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT id, name, role FROM users")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    users.add(mapUser(rs));
+        try (CallScope scope = metrics.begin("DataStore.getAllUsers")) {
+            return pool.read(connection -> {
+                List<User> users = new ArrayList<>();
+                try (PreparedStatement ps = prepare(connection, "SELECT id, name, role FROM users")) {
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            users.add(mapUser(rs));
+                        }
+                    }
                 }
-            }
+                metrics.rowsHydrated(users.size());
+                return users;
+            });
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to load users", ex);
         }
-        return users;
     }
 
-    private User mapUser(ResultSet rs) throws SQLException {
+    /**
+     * Streams every user in id order, fetching {@link DataStoreConfig#streamBatchSize} rows per
+     * query (see {@link #streamTickets(TicketFilter, FetchPlan)}).
+     */
+    public Stream<User> streamUsers() {
+        return stream((last, limit) -> {
+            try (CallScope scope = metrics.begin("DataStore.streamUsersBatch")) {
+                return pool.read(connection -> {
+                    List<User> users = new ArrayList<>(limit);
+                    try (PreparedStatement ps = prepare(connection, "SELECT id, name, role FROM users WHERE id > ? ORDER BY id LIMIT ?")) {
+                        ps.setInt(1, last == null ? Integer.MIN_VALUE : last.getId());
+                        ps.setInt(2, limit);
+                        try (ResultSet rs = ps.executeQuery()) {
+                            while (rs.next()) {
+                                users.add(mapUser(rs));
+                            }
+                        }
+                    }
+                    metrics.rowsHydrated(users.size());
+                    return users;
+                });
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to load users", ex);
+            }
+        });
+    }
+
+    static User mapUser(ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
         String name = rs.getString("name");
         Role role = Role.valueOf(rs.getString("role"));
@@ -103,287 +421,1011 @@ public class DataStore implements AutoCloseable {
 
     // region Tickets
     public Ticket createTicket(User requester, String title, String description, String category, LocalDateTime createdAt) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO tickets(requester_id, assigned_agent_id, category, title, description, status, created_at, updated_at, rating, agent_flagged) " +
-                        "VALUES(?,?,?,?,?,?,?,?,?,?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, requester.getId());
-            ps.setNull(2, java.sql.Types.INTEGER);
-            ps.setString(3, category);
-            ps.setString(4, title);
-            ps.setString(5, description);
-            ps.setString(6, TicketStatus.RAISED.name());
-            ps.setString(7, createdAt.toString());
-            ps.setString(8, createdAt.toString());
-            ps.setNull(9, java.sql.Types.INTEGER);
-            ps.setInt(10, 0);
-            ps.executeUpdate();
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    int id = keys.getInt(1);
-                    return new Ticket(id, requester, title, description, category, createdAt);
-                }
+        try (CallScope scope = metrics.begin("DataStore.createTicket")) {
+            int id;
+            try {
+                id = pool.write(connection -> {
+                    try (PreparedStatement ps = prepare(connection,
+                            "INSERT INTO tickets(requester_id, assigned_agent_id, category, title, description, status, created_at, updated_at, rating, agent_flagged) " +
+                                    "VALUES(?,?,?,?,?,?,?,?,?,?)",
+                            Statement.RETURN_GENERATED_KEYS)) {
+                        ps.setInt(1, requester.getId());
+                        ps.setNull(2, java.sql.Types.INTEGER);
+                        ps.setString(3, category);
+                        ps.setString(4, title);
+                        ps.setString(5, description);
+                        ps.setString(6, TicketStatus.RAISED.name());
+                        ps.setObject(7, timestampFormat.encode(createdAt));
+                        ps.setObject(8, timestampFormat.encode(createdAt));
+                        ps.setNull(9, java.sql.Types.INTEGER);
+                        ps.setInt(10, 0);
+                        ps.executeUpdate();
+                        int key = generatedKey(ps);
+                        ticketWritten(new TicketChange(key, requester.getId(), 0, TicketStatus.RAISED, category, createdAt));
+                        return key;
+                    }
+                });
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to create ticket", ex);
             }
-        } catch (SQLException ex) {
-            throw new IllegalStateException("Unable to create ticket", ex);
+            if (id < 0) {
+                throw new IllegalStateException("Ticket id not generated");
+            }
+            return new Ticket(id, requester, title, description, category, createdAt);
         }
-        throw new IllegalStateException("Ticket id not generated");
     }
 
+    private void ticketWritten(TicketChange change) {
+        pool.afterCommit(() -> ticketListeners.forEach(listener -> listener.accept(change)));
+    }
+
+    /**
+     * Writes the ticket's changed fields if its row still has {@link Ticket#getVersion()}, and
+     * advances the version of both. Throws {@link ConcurrentUpdateException}, writing nothing, when
+     * another writer got there first. A ticket without changed fields is not written at all.
+     */
     public void updateTicket(Ticket ticket) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "UPDATE tickets SET assigned_agent_id=?, category=?, title=?, description=?, status=?, updated_at=?, rating=?, agent_flagged=? WHERE id=?")) {
-            if (ticket.getAssignedAgent() != null) {
-                ps.setInt(1, ticket.getAssignedAgent().getId());
-            } else {
-                ps.setNull(1, java.sql.Types.INTEGER);
-            }
-            ps.setString(2, ticket.getCategory());
-            ps.setString(3, ticket.getTitle());
-            ps.setString(4, ticket.getDescription());
-            ps.setString(5, ticket.getStatus().name());
-            ps.setString(6, ticket.getUpdatedAt().toString());
-            if (ticket.getRating() != null) {
-                ps.setInt(7, ticket.getRating());
-            } else {
-                ps.setNull(7, java.sql.Types.INTEGER);
+        Set<TicketField> changed = ticket.getChangedFields();
+        if (changed.isEmpty()) {
+            return;
+        }
+        int version = ticket.getVersion();
+        int updated;
+        try (CallScope scope = metrics.begin("DataStore.updateTicket")) {
+            // one statement per combination of changed columns; the statement cache keeps the few that occur
+            StringBuilder sql = new StringBuilder("UPDATE tickets SET ");
+            for (TicketField field : changed) {
+                sql.append(ticketColumn(field)).append("=?, ");
             }
-            ps.setInt(8, ticket.isAgentFlagged() ? 1 : 0);
-            ps.setInt(9, ticket.getId());
-            ps.executeUpdate();
+            sql.append("version=version+1 WHERE id=? AND version=?");
+            updated = pool.write(connection -> {
+                try (PreparedStatement ps = prepare(connection, sql.toString())) {
+                    int index = 1;
+                    for (TicketField field : changed) {
+                        bindTicketField(ps, index++, ticket, field);
+                    }
+                    ps.setInt(index++, ticket.getId());
+                    ps.setInt(index, version);
+                    int rows = ps.executeUpdate();
+                    if (rows > 0) {
+                        ticketWritten(new TicketChange(ticket.getId(), ticket.getRequester().getId(),
+                                ticket.getAssignedAgent() == null ? 0 : ticket.getAssignedAgent().getId(),
+                                ticket.getStatus(), ticket.getCategory(), ticket.getCreatedAt()));
+                    }
+                    return rows;
+                }
+            });
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to update ticket", ex);
         }
+        if (updated == 0) {
+            throw new ConcurrentUpdateException("Ticket", ticket.getId(), version);
+        }
+        ticket.setVersion(version + 1);
+        ticket.clearChangedFields();
     }
 
-    public List<Ticket> getTickets() {
-        List<Ticket> tickets = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM tickets")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    tickets.add(mapTicket(rs));
+    private static String ticketColumn(TicketField field) {
+        return switch (field) {
+            case ASSIGNED_AGENT -> "assigned_agent_id";
+            case CATEGORY -> "category";
+            case TITLE -> "title";
+            case DESCRIPTION -> "description";
+            case STATUS -> "status";
+            case UPDATED_AT -> "updated_at";
+            case RATING -> "rating";
+            case AGENT_FLAGGED -> "agent_flagged";
+        };
+    }
+
+    private void bindTicketField(PreparedStatement ps, int index, Ticket ticket, TicketField field) throws SQLException {
+        switch (field) {
+            case ASSIGNED_AGENT -> {
+                if (ticket.getAssignedAgent() != null) {
+                    ps.setInt(index, ticket.getAssignedAgent().getId());
+                } else {
+                    ps.setNull(index, java.sql.Types.INTEGER);
                 }
             }
+            case CATEGORY -> ps.setString(index, ticket.getCategory());
+            case TITLE -> ps.setString(index, ticket.getTitle());
+            case DESCRIPTION -> ps.setString(index, ticket.getDescription());
+            case STATUS -> ps.setString(index, ticket.getStatus().name());
+            case UPDATED_AT -> ps.setObject(index, timestampFormat.encode(ticket.getUpdatedAt()));
+            case RATING -> {
+                if (ticket.getRating() != null) {
+                    ps.setInt(index, ticket.getRating());
+                } else {
+                    ps.setNull(index, java.sql.Types.INTEGER);
+                }
+            }
+            case AGENT_FLAGGED -> ps.setInt(index, ticket.isAgentFlagged() ? 1 : 0);
+        }
+    }
+
+    public List<Ticket> getTickets() {
+        return getTickets(FetchPlan.FULL);
+    }
+
+    /**
+     * Loads every ticket at once, ordered by id; use {@link #streamTickets(TicketFilter, FetchPlan)}
+     * where the table may not fit in memory.
+     */
+    public List<Ticket> getTickets(FetchPlan plan) {
+        try (CallScope scope = metrics.begin("DataStore.getTickets")) {
+            flushFor(plan);
+            return pool.read(connection -> ticketLoader.load(connection, plan, ""));
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to load tickets", ex);
         }
-        return tickets;
     }
 
     public Optional<Ticket> findTicket(int id) {
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM tickets WHERE id=?")) {
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapTicket(rs));
+        return findTicket(id, FetchPlan.FULL);
+    }
+
+    public Optional<Ticket> findTicket(int id, FetchPlan plan) {
+        try (CallScope scope = metrics.begin("DataStore.findTicket")) {
+            flushFor(plan);
+            return pool.read(connection -> ticketLoader.load(connection, plan, "id = ?", id)).stream().findFirst();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to find ticket", ex);
+        }
+    }
+
+    /**
+     * Returns every ticket matching the filter, ordered by creation time.
+     */
+    public List<Ticket> findTickets(TicketFilter filter) {
+        return findTickets(filter, FetchPlan.FULL);
+    }
+
+    public List<Ticket> findTickets(TicketFilter filter, FetchPlan plan) {
+        List<Object> params = new ArrayList<>();
+        String where = filter.toWhereClause(timestampFormat, null, params);
+        try (CallScope scope = metrics.begin("DataStore.findTickets")) {
+            flushFor(plan);
+            return pool.read(connection -> ticketLoader.load(connection, plan, where, TicketFilter.pageOrder(0), params.toArray()));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to search tickets", ex);
+        }
+    }
+
+    /**
+     * Returns one page of tickets matching the filter in (created_at, id) order, starting after
+     * {@code after} (or from the beginning when it is null).
+     */
+    public TicketPage findTickets(TicketFilter filter, PageCursor after, int pageSize) {
+        return findTickets(filter, after, pageSize, FetchPlan.FULL);
+    }
+
+    public TicketPage findTickets(TicketFilter filter, PageCursor after, int pageSize, FetchPlan plan) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        List<Object> params = new ArrayList<>();
+        String where = filter.toWhereClause(timestampFormat, after, params);
+        try (CallScope scope = metrics.begin("DataStore.findTicketsPage")) {
+            flushFor(plan);
+            List<Ticket> tickets = pool.read(connection ->
+                    ticketLoader.load(connection, plan, where, TicketFilter.pageOrder(pageSize + 1), params.toArray()));
+            if (tickets.size() <= pageSize) {
+                return new TicketPage(tickets, null);
+            }
+            List<Ticket> page = new ArrayList<>(tickets.subList(0, pageSize));
+            Ticket last = page.get(pageSize - 1);
+            return new TicketPage(page, new PageCursor(last.getCreatedAt(), last.getId()));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to search tickets", ex);
+        }
+    }
+
+    /**
+     * Streams the tickets matching the filter in (created_at, id) order without materializing
+     * the result: tickets are loaded in keyset batches of {@link DataStoreConfig#streamBatchSize},
+     * so at most one batch (including its notes and history under {@link FetchPlan#FULL}) is held
+     * at a time. No connection stays open between batches and the stream needs no closing; the
+     * result is not a snapshot, so tickets created while it is consumed appear if they sort after
+     * the current position.
+     */
+    public Stream<Ticket> streamTickets(TicketFilter filter, FetchPlan plan) {
+        return stream((last, limit) -> {
+            PageCursor after = last == null ? null : new PageCursor(last.getCreatedAt(), last.getId());
+            List<Object> params = new ArrayList<>();
+            String where = filter.toWhereClause(timestampFormat, after, params);
+            try (CallScope scope = metrics.begin("DataStore.streamTicketsBatch")) {
+                flushFor(plan);
+                return pool.read(connection -> ticketLoader.load(connection, plan, where, TicketFilter.pageOrder(limit), params.toArray()));
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to search tickets", ex);
+            }
+        });
+    }
+
+    /**
+     * Loads the tickets with the given ids, ordered by id; unknown ids are ignored.
+     */
+    public List<Ticket> findTicketsByIds(Collection<Integer> ids, FetchPlan plan) {
+        return findTicketsByIds(ids.stream().mapToInt(Integer::intValue).toArray(), plan);
+    }
+
+    public List<Ticket> findTicketsByIds(int[] ids, FetchPlan plan) {
+        if (ids.length == 0) {
+            return new ArrayList<>();
+        }
+        StringBuilder idArray = new StringBuilder(ids.length * 7).append('[');
+        for (int i = 0; i < ids.length; i++) {
+            idArray.append(i == 0 ? "" : ",").append(ids[i]);
+        }
+        idArray.append(']');
+        try (CallScope scope = metrics.begin("DataStore.findTicketsByIds")) {
+            flushFor(plan);
+            return pool.read(connection -> ticketLoader.load(connection, plan, "id IN (SELECT value FROM json_each(?))", "ORDER BY id", idArray.toString()));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load tickets", ex);
+        }
+    }
+
+    /**
+     * Returns id, category and creation time of every ticket not in {@code excluded} status.
+     */
+    public List<TicketAge> findTicketAges(TicketStatus excluded) {
+        try (CallScope scope = metrics.begin("DataStore.findTicketAges")) {
+            return pool.read(connection -> {
+                List<TicketAge> ages = new ArrayList<>();
+                try (PreparedStatement ps = prepare(connection, "SELECT id, category, created_at FROM tickets WHERE status <> ?")) {
+                    ps.setString(1, excluded.name());
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            ages.add(new TicketAge(rs.getInt(1), rs.getString(2), timestampFormat.readDateTime(rs, 3)));
+                        }
+                    }
+                }
+                metrics.rowsHydrated(ages.size());
+                return ages;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load ticket ages", ex);
+        }
+    }
+
+    /**
+     * Streams requester and assigned agent of every ticket to {@code visitor}, in id order. The
+     * visitor runs while a connection is held and must not call back into the store.
+     */
+    public void forEachTicketOwner(TicketOwnerVisitor visitor) {
+        forEachTicketOwner(EnumSet.allOf(TicketStatus.class), visitor);
+    }
+
+    /**
+     * Like {@link #forEachTicketOwner(TicketOwnerVisitor)}, restricted to tickets in one of
+     * {@code statuses}.
+     */
+    public void forEachTicketOwner(Set<TicketStatus> statuses, TicketOwnerVisitor visitor) {
+        if (statuses.isEmpty()) {
+            return;
+        }
+        boolean all = statuses.size() == TicketStatus.values().length;
+        String sql = "SELECT id, requester_id, assigned_agent_id FROM tickets"
+                + (all ? "" : " WHERE status IN (" + String.join(",", Collections.nCopies(statuses.size(), "?")) + ")")
+                + " ORDER BY id";
+        try (CallScope scope = metrics.begin("DataStore.forEachTicketOwner")) {
+            pool.read(connection -> {
+                int rows = 0;
+                try (PreparedStatement ps = prepare(connection, sql)) {
+                    if (!all) {
+                        int index = 1;
+                        for (TicketStatus status : statuses) {
+                            ps.setString(index++, status.name());
+                        }
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            visitor.visit(rs.getInt(1), rs.getInt(2), rs.getInt(3));
+                            rows++;
+                        }
+                    }
                 }
+                metrics.rowsHydrated(rows);
+                return null;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load ticket owners", ex);
+        }
+    }
+
+    /**
+     * Ranks tickets by how well their title, description or notes match the query (BM25, title
+     * matches weighted highest) and returns the best {@code limit} with a snippet of the
+     * matching text. Served from the {@code ticket_fts} and {@code note_fts} full-text indexes;
+     * only the newest {@value #TEXT_SEARCH_WINDOW} matches per index are ranked, so a word that
+     * occurs in most notes costs no more than a rare one. Tickets are loaded with
+     * {@link FetchPlan#SUMMARY}.
+     */
+    public List<TicketSearchHit> searchText(TicketTextQuery query) {
+        String match = query.toMatchExpression();
+        if (match.isEmpty() || query.getLimit() <= 0) {
+            return new ArrayList<>();
+        }
+        Integer requesterId = query.getRequesterId();
+        List<Object> params = new ArrayList<>();
+        for (int index = 0; index < 2; index++) {
+            params.add(match);
+            if (requesterId != null) {
+                params.add(requesterId);
             }
+            params.add(TEXT_SEARCH_WINDOW);
+        }
+        params.add(query.getLimit());
+        try (CallScope scope = metrics.begin("DataStore.searchText")) {
+            appender.flush();
+            return pool.read(connection -> {
+                Map<Integer, Double> scores = new LinkedHashMap<>();
+                Map<Integer, Integer> noteIds = new HashMap<>();
+                try (PreparedStatement ps = prepare(connection, textSearchSql(requesterId != null))) {
+                    for (int i = 0; i < params.size(); i++) {
+                        ps.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            scores.put(rs.getInt(1), rs.getDouble(2));
+                            int noteId = rs.getInt(3);
+                            if (!rs.wasNull()) {
+                                noteIds.put(rs.getInt(1), noteId);
+                            }
+                        }
+                    }
+                }
+                List<TicketSearchHit> hits = new ArrayList<>();
+                if (scores.isEmpty()) {
+                    return hits;
+                }
+                String idArray = scores.keySet().stream().map(String::valueOf).collect(Collectors.joining(",", "[", "]"));
+                Map<Integer, Ticket> tickets = new HashMap<>();
+                for (Ticket ticket : ticketLoader.load(connection, FetchPlan.SUMMARY, "id IN (SELECT value FROM json_each(?))", "ORDER BY id", idArray)) {
+                    tickets.put(ticket.getId(), ticket);
+                }
+                for (Map.Entry<Integer, Double> entry : scores.entrySet()) {
+                    Ticket ticket = tickets.get(entry.getKey());
+                    if (ticket != null) {
+                        Integer noteId = noteIds.get(ticket.getId());
+                        String snippet = noteId != null
+                                ? snippet(connection, "SELECT snippet(note_fts, 0, '[', ']', '...', 12) FROM note_fts WHERE note_fts MATCH ? AND rowid = ?", match, noteId)
+                                : snippet(connection, "SELECT snippet(ticket_fts, -1, '[', ']', '...', 12) FROM ticket_fts WHERE ticket_fts MATCH ? AND rowid = ?", match, ticket.getId());
+                        hits.add(new TicketSearchHit(ticket, entry.getValue(), snippet));
+                    }
+                }
+                return hits;
+            });
         } catch (SQLException ex) {
-            throw new IllegalStateException("Unable to find ticket", ex);
+            throw new IllegalStateException("Unable to search ticket text", ex);
+        }
+    }
+
+    /**
+     * Snippets are built for the returned hits only: FTS5 computes them eagerly for every row
+     * a query touches, ranked-out candidates included.
+     */
+    private String snippet(Connection connection, String sql, String match, int rowid) throws SQLException {
+        try (PreparedStatement ps = prepare(connection, sql)) {
+            ps.setString(1, match);
+            ps.setInt(2, rowid);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getString(1) : "";
+            }
         }
-        return Optional.empty();
     }
 
+    /**
+     * Best {@code ?} tickets over the newest {@code ?} ticket-text and note matches, merged per
+     * ticket keeping the best score; the note id is that of the best-scoring row (SQLite takes
+     * bare columns from the MIN row) and NULL when the ticket text scored best.
+     */
+    static String textSearchSql(boolean byRequester) {
+        return "SELECT ticket_id, MIN(score), note_id FROM (" +
+                "SELECT * FROM (SELECT rowid AS ticket_id, bm25(ticket_fts, 4.0, 1.0) AS score, NULL AS note_id " +
+                "FROM ticket_fts WHERE ticket_fts MATCH ?" +
+                (byRequester ? " AND rowid IN (SELECT id FROM tickets WHERE requester_id = ?)" : "") + " ORDER BY rowid DESC LIMIT ?) " +
+                "UNION ALL " +
+                "SELECT * FROM (SELECT n.ticket_id, bm25(note_fts), n.id " +
+                "FROM note_fts JOIN notes n ON n.id = note_fts.rowid WHERE note_fts MATCH ?" +
+                (byRequester ? " AND n.ticket_id IN (SELECT id FROM tickets WHERE requester_id = ?)" : "") + " ORDER BY note_fts.rowid DESC LIMIT ?)" +
+                ") GROUP BY ticket_id ORDER BY MIN(score), ticket_id LIMIT ?";
+    }
+
+    /**
+     * Queued notes and history must be written before they are read; summary loads skip them.
+     */
+    private void flushFor(FetchPlan plan) throws SQLException {
+        if (plan == FetchPlan.FULL) {
+            appender.flush();
+        }
+    }
+
+    /**
+     * Backs the lazy notes of {@link FetchPlan#SUMMARY} tickets.
+     */
+    List<Note> loadNotes(int ticketId) {
+        try (CallScope scope = metrics.begin("DataStore.loadNotes")) {
+            appender.flush();
+            return pool.read(connection -> ticketLoader.notesOf(connection, ticketId));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load notes", ex);
+        }
+    }
+
+    /**
+     * Backs the lazy history of {@link FetchPlan#SUMMARY} tickets.
+     */
+    List<TicketHistoryEntry> loadHistory(int ticketId) {
+        try (CallScope scope = metrics.begin("DataStore.loadHistory")) {
+            appender.flush();
+            return pool.read(connection -> ticketLoader.historyOf(connection, ticketId));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load history", ex);
+        }
+    }
+
+    /**
+     * Counts tickets per assigned agent, restricted to the given statuses.
+     */
+    public Map<Integer, Long> countTicketsByAgent(Set<TicketStatus> statuses) {
+        Map<Integer, Long> counts = new HashMap<>();
+        if (statuses.isEmpty()) {
+            return counts;
+        }
+        String placeholders = String.join(",", Collections.nCopies(statuses.size(), "?"));
+        try (CallScope scope = metrics.begin("DataStore.countTicketsByAgent")) {
+            return pool.read(connection -> {
+                try (PreparedStatement ps = prepare(connection, "SELECT assigned_agent_id, COUNT(*) FROM tickets " +
+                        "WHERE assigned_agent_id IS NOT NULL AND status IN (" + placeholders + ") GROUP BY assigned_agent_id")) {
+                    int index = 1;
+                    for (TicketStatus status : statuses) {
+                        ps.setString(index++, status.name());
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            counts.put(rs.getInt(1), rs.getLong(2));
+                        }
+                    }
+                }
+                return counts;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to count tickets", ex);
+        }
+    }
+
+    /**
+     * Appends a note to a ticket. Depending on {@link DataStoreConfig#durability} the row may be
+     * written by a background batch after this returns; reads through this store still see it.
+     */
     public void addNote(int ticketId, Note note) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO notes(ticket_id, author_id, author_name, message, created_at) VALUES(?,?,?,?,?)")) {
-            ps.setInt(1, ticketId);
-            ps.setInt(2, note.getAuthorId());
-            ps.setString(3, note.getAuthorName());
-            ps.setString(4, note.getMessage());
-            ps.setString(5, note.getCreatedAt().toString());
-            ps.executeUpdate();
+        try (CallScope scope = metrics.begin("DataStore.addNote")) {
+            appender.appendNote(ticketId, note);
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to add note", ex);
         }
     }
 
+    /**
+     * Appends a history entry to a ticket, with the same durability rules as {@link #addNote}.
+     */
     public void addHistory(int ticketId, TicketHistoryEntry entry) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO ticket_history(ticket_id, timestamp, action, performed_by) VALUES(?,?,?,?)")) {
-            ps.setInt(1, ticketId);
-            ps.setString(2, entry.getTimestamp().toString());
-            ps.setString(3, entry.getAction());
-            ps.setString(4, entry.getPerformedBy());
-            ps.executeUpdate();
+        try (CallScope scope = metrics.begin("DataStore.addHistory")) {
+            appender.appendHistory(ticketId, entry);
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to add history entry", ex);
         }
     }
 
-    private Ticket mapTicket(ResultSet rs) throws SQLException {
-        int id = rs.getInt("id");
-        int requesterId = rs.getInt("requester_id");
-        Optional<User> requesterOpt = findUser(requesterId);
-        User requester = requesterOpt.orElseThrow(() -> new IllegalStateException("Requester missing for ticket " + id));
-        String title = rs.getString("title");
-        String description = rs.getString("description");
-        String category = rs.getString("category");
-        LocalDateTime createdAt = LocalDateTime.parse(rs.getString("created_at"));
-        Ticket ticket = new Ticket(id, requester, title, description, category, createdAt);
-        int assignedAgentId = rs.getInt("assigned_agent_id");
-        if (!rs.wasNull()) {
-            findUser(assignedAgentId).ifPresent(ticket::setAssignedAgent);
-        }
-        ticket.setStatus(TicketStatus.valueOf(rs.getString("status")));
-        ticket.setUpdatedAt(LocalDateTime.parse(rs.getString("updated_at")));
-        int rating = rs.getInt("rating");
-        if (!rs.wasNull()) {
-            ticket.setRating(rating);
-        }
-        ticket.setAgentFlagged(rs.getInt("agent_flagged") == 1);
-        ticket.getNotes().addAll(loadNotes(id));
-        ticket.getHistory().addAll(loadHistory(id));
-        return ticket;
-    }
-
-    private List<Note> loadNotes(int ticketId) throws SQLException {
-        List<Note> notes = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM notes WHERE ticket_id=? ORDER BY created_at")) {
-            ps.setInt(1, ticketId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    notes.add(new Note(
-                            rs.getInt("author_id"),
-                            rs.getString("author_name"),
-                            rs.getString("message"),
-                            LocalDateTime.parse(rs.getString("created_at"))
-                    ));
+    /**
+     * Writes every queued note and history entry now.
+     */
+    public void flushAppends() {
+        try (CallScope scope = metrics.begin("DataStore.flushAppends")) {
+            appender.flush();
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to flush notes and history", ex);
+        }
+    }
+
+    public int getPendingAppendCount() {
+        return appender.pendingCount();
+    }
+    // endregion
+
+    // region Reports
+    /**
+     * Counts resolved and reopened tickets per year-month of their last update, optionally
+     * split by category and agent. Reads the {@code ticket_daily_stats} rollup, so the cost
+     * depends on the number of days in range rather than on the number of tickets.
+     */
+    public List<TicketReportRow> reportTickets(TicketReportQuery query) {
+        List<String> groups = new ArrayList<>();
+        groups.add("substr(day, 1, 7)");
+        for (ReportDimension dimension : query.getDimensions()) {
+            groups.add(dimension.column());
+        }
+        List<Object> params = new ArrayList<>(List.of(TicketStatus.RESOLVED.name(), TicketStatus.REOPENED.name(),
+                TicketStatus.RESOLVED.name(), TicketStatus.REOPENED.name()));
+        StringBuilder where = new StringBuilder("status IN (?, ?)");
+        if (query.getFrom() != null) {
+            where.append(" AND day >= ?");
+            params.add(query.getFrom().toString());
+        }
+        if (query.getTo() != null) {
+            where.append(" AND day <= ?");
+            params.add(query.getTo().toString());
+        }
+        String columns = String.join(", ", groups);
+        String sql = "SELECT " + columns + ", SUM(CASE WHEN status = ? THEN tickets ELSE 0 END), " +
+                "SUM(CASE WHEN status = ? THEN tickets ELSE 0 END) FROM ticket_daily_stats WHERE " + where +
+                " GROUP BY " + columns + " HAVING SUM(tickets) > 0 ORDER BY " + columns;
+        try (CallScope scope = metrics.begin("DataStore.reportTickets")) {
+            return pool.read(connection -> {
+                List<TicketReportRow> rows = new ArrayList<>();
+                try (PreparedStatement ps = prepare(connection, sql)) {
+                    for (int i = 0; i < params.size(); i++) {
+                        ps.setObject(i + 1, params.get(i));
+                    }
+                    try (ResultSet rs = ps.executeQuery()) {
+                        while (rs.next()) {
+                            int column = 1;
+                            YearMonth month = YearMonth.parse(rs.getString(column++));
+                            String category = null;
+                            User agent = null;
+                            if (query.getDimensions().contains(ReportDimension.CATEGORY)) {
+                                category = rs.getString(column++);
+                            }
+                            if (query.getDimensions().contains(ReportDimension.AGENT)) {
+                                agent = rollupAgent(connection, rs.getInt(column++));
+                            }
+                            rows.add(new TicketReportRow(month, category, agent, rs.getLong(column++), rs.getLong(column)));
+                        }
+                    }
                 }
-            }
+                metrics.rowsHydrated(rows.size());
+                return rows;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to build ticket report", ex);
         }
-        return notes;
     }
 
-    private List<TicketHistoryEntry> loadHistory(int ticketId) throws SQLException {
-        List<TicketHistoryEntry> history = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM ticket_history WHERE ticket_id=? ORDER BY timestamp")) {
-            ps.setInt(1, ticketId);
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    history.add(new TicketHistoryEntry(
-                            LocalDateTime.parse(rs.getString("timestamp")),
-                            rs.getString("action"),
-                            rs.getString("performed_by")
-                    ));
+    /**
+     * Rating totals per agent over every ticket assigned to them, ordered by agent id.
+     */
+    public List<AgentRatingRow> agentRatings() {
+        try (CallScope scope = metrics.begin("DataStore.agentRatings")) {
+            return pool.read(connection -> {
+                List<AgentRatingRow> rows = new ArrayList<>();
+                try (PreparedStatement ps = prepare(connection,
+                        "SELECT agent_id, SUM(tickets), SUM(rating_sum), SUM(rating_count), SUM(flagged) FROM ticket_daily_stats " +
+                                "WHERE agent_id <> 0 GROUP BY agent_id HAVING SUM(tickets) > 0 ORDER BY agent_id");
+                     ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        User agent = rollupAgent(connection, rs.getInt(1));
+                        if (agent != null) {
+                            rows.add(new AgentRatingRow(agent, rs.getLong(2), rs.getLong(3), rs.getLong(4), rs.getLong(5)));
+                        }
+                    }
                 }
-            }
+                metrics.rowsHydrated(rows.size());
+                return rows;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load agent ratings", ex);
         }
-        return history;
+    }
+
+    /**
+     * Recomputes the {@code ticket_daily_stats} rollup from the ticket table, e.g. after bulk
+     * imports that bypassed the triggers. Returns the number of rollup rows.
+     */
+    public int rebuildDailyStats() {
+        try (CallScope scope = metrics.begin("DataStore.rebuildDailyStats")) {
+            return pool.transaction(connection -> {
+                try (Statement st = connection.createStatement()) {
+                    st.executeUpdate("DELETE FROM ticket_daily_stats");
+                    return st.executeUpdate(SchemaMigrator.statsBackfill(timestampFormat));
+                }
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to rebuild ticket statistics", ex);
+        }
+    }
+
+    /**
+     * Rollup rows store unassigned tickets under agent id 0.
+     */
+    private User rollupAgent(Connection connection, int agentId) throws SQLException {
+        return agentId == 0 ? null : loadUser(connection, agentId).orElse(null);
     }
     // endregion
 
     // region Change requests
     public ChangeRequest createChangeRequest(User requester, String title, String description, LocalDate expiry, LocalDateTime createdAt) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "INSERT INTO change_requests(requester_id, title, description, status, expiry_date, archived, implementation_note, created_at) " +
-                        "VALUES(?,?,?,?,?,?,?,?)",
-                Statement.RETURN_GENERATED_KEYS)) {
-            ps.setInt(1, requester.getId());
-            ps.setString(2, title);
-            ps.setString(3, description);
-            ps.setString(4, ChangeRequestStatus.RAISED.name());
-            ps.setString(5, expiry.toString());
-            ps.setInt(6, 0);
-            ps.setNull(7, java.sql.Types.VARCHAR);
-            ps.setString(8, createdAt.toString());
-            ps.executeUpdate();
-            try (ResultSet keys = ps.getGeneratedKeys()) {
-                if (keys.next()) {
-                    int id = keys.getInt(1);
-                    return new ChangeRequest(id, requester, title, description, expiry, createdAt);
-                }
+        try (CallScope scope = metrics.begin("DataStore.createChangeRequest")) {
+            int id;
+            try {
+                id = pool.write(connection -> {
+                    try (PreparedStatement ps = prepare(connection,
+                            "INSERT INTO change_requests(requester_id, title, description, status, expiry_date, archived, implementation_note, created_at) " +
+                                    "VALUES(?,?,?,?,?,?,?,?)",
+                            Statement.RETURN_GENERATED_KEYS)) {
+                        ps.setInt(1, requester.getId());
+                        ps.setString(2, title);
+                        ps.setString(3, description);
+                        ps.setString(4, ChangeRequestStatus.RAISED.name());
+                        ps.setObject(5, timestampFormat.encode(expiry));
+                        ps.setInt(6, 0);
+                        ps.setNull(7, java.sql.Types.VARCHAR);
+                        ps.setObject(8, timestampFormat.encode(createdAt));
+                        ps.executeUpdate();
+                        return generatedKey(ps);
+                    }
+                });
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to create change request", ex);
             }
-        } catch (SQLException ex) {
-            throw new IllegalStateException("Unable to create change request", ex);
+            if (id < 0) {
+                throw new IllegalStateException("Change request id not generated");
+            }
+            return new ChangeRequest(id, requester, title, description, expiry, createdAt);
         }
-        throw new IllegalStateException("Change request id not generated");
     }
 
     public List<ChangeRequest> getChangeRequests() {
-        List<ChangeRequest> requests = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM change_requests")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    requests.add(mapChangeRequest(rs));
-                }
+        try (CallScope scope = metrics.begin("DataStore.getChangeRequests")) {
+            return pool.read(connection -> queryChangeRequests(connection, "SELECT * FROM change_requests"));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load change requests", ex);
+        }
+    }
+
+    /**
+     * Streams every change request, archived ones included, in id order, fetching
+     * {@link DataStoreConfig#streamBatchSize} rows per query (see
+     * {@link #streamTickets(TicketFilter, FetchPlan)}).
+     */
+    public Stream<ChangeRequest> streamChangeRequests() {
+        return stream((last, limit) -> {
+            try (CallScope scope = metrics.begin("DataStore.streamChangeRequestsBatch")) {
+                return pool.read(connection -> queryChangeRequests(connection,
+                        "SELECT * FROM change_requests WHERE id > ? ORDER BY id LIMIT ?", last == null ? Integer.MIN_VALUE : last.getId(), limit));
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to load change requests", ex);
             }
+        });
+    }
+
+    /**
+     * Returns the change requests created in the given calendar quarter (1-4) of any year.
+     */
+    public List<ChangeRequest> findChangeRequestsInQuarter(int quarter) {
+        try (CallScope scope = metrics.begin("DataStore.findChangeRequestsInQuarter")) {
+            return pool.read(connection -> queryChangeRequests(connection,
+                    "SELECT * FROM change_requests WHERE " + SchemaMigrator.changeRequestQuarter(timestampFormat) + " = ?", quarter));
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to load change requests", ex);
         }
-        return requests;
     }
 
-    public List<ChangeRequest> getArchivedChanges() {
-        List<ChangeRequest> requests = new ArrayList<>();
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM change_requests WHERE archived = 1")) {
-            try (ResultSet rs = ps.executeQuery()) {
-                while (rs.next()) {
-                    requests.add(mapChangeRequest(rs));
+    /**
+     * Returns the active (not archived) change requests expiring on or before {@code threshold},
+     * soonest first. Answered from the partial expiry index over active change requests.
+     */
+    public List<ChangeRequest> findChangeRequestsExpiringBy(LocalDate threshold) {
+        try (CallScope scope = metrics.begin("DataStore.findChangeRequestsExpiringBy")) {
+            return pool.read(connection -> queryChangeRequests(connection,
+                    "SELECT * FROM change_requests WHERE archived = 0 AND expiry_date <= ? ORDER BY expiry_date, id", timestampFormat.encode(threshold)));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load expiring change requests", ex);
+        }
+    }
+
+    /**
+     * Archives every active change request created before {@code cutoff} with one UPDATE and
+     * returns the number archived.
+     */
+    public int archiveChangeRequestsCreatedBefore(LocalDate cutoff) {
+        try (CallScope scope = metrics.begin("DataStore.archiveChangeRequestsCreatedBefore")) {
+            return pool.write(connection -> {
+                try (PreparedStatement ps = prepare(connection,
+                        "UPDATE change_requests SET archived = 1, status = ?, version = version + 1 WHERE archived = 0 AND created_at < ?")) {
+                    ps.setString(1, ChangeRequestStatus.ARCHIVED.name());
+                    ps.setObject(2, timestampFormat.encode(cutoff.atStartOfDay()));
+                    return ps.executeUpdate();
                 }
-            }
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to archive change requests", ex);
+        }
+    }
+
+    public List<ChangeRequest> getArchivedChanges() {
+        try (CallScope scope = metrics.begin("DataStore.getArchivedChanges")) {
+            return pool.read(connection -> queryChangeRequests(connection, "SELECT * FROM change_requests WHERE archived = 1"));
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to load archived changes", ex);
         }
-        return requests;
     }
 
     public Optional<ChangeRequest> findChangeRequest(int id) {
-        try (PreparedStatement ps = connection.prepareStatement("SELECT * FROM change_requests WHERE id=?")) {
-            ps.setInt(1, id);
-            try (ResultSet rs = ps.executeQuery()) {
-                if (rs.next()) {
-                    return Optional.of(mapChangeRequest(rs));
-                }
-            }
+        try (CallScope scope = metrics.begin("DataStore.findChangeRequest")) {
+            return pool.read(connection -> queryChangeRequests(connection, "SELECT * FROM change_requests WHERE id=?", id))
+                    .stream().findFirst();
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to find change request", ex);
         }
-        return Optional.empty();
     }
 
+    /**
+     * Compare-and-set update of the changed fields, like {@link #updateTicket(Ticket)}.
+     */
     public void updateChangeRequest(ChangeRequest cr) {
-        try (PreparedStatement ps = connection.prepareStatement(
-                "UPDATE change_requests SET title=?, description=?, status=?, expiry_date=?, archived=?, implementation_note=? WHERE id=?")) {
-            ps.setString(1, cr.getTitle());
-            ps.setString(2, cr.getDescription());
-            ps.setString(3, cr.getStatus().name());
-            ps.setString(4, cr.getExpiryDate().toString());
-            ps.setInt(5, cr.isArchived() ? 1 : 0);
-            ps.setString(6, cr.getImplementationNote());
-            ps.setInt(7, cr.getId());
-            ps.executeUpdate();
+        Set<ChangeRequestField> changed = cr.getChangedFields();
+        if (changed.isEmpty()) {
+            return;
+        }
+        int version = cr.getVersion();
+        int updated;
+        try (CallScope scope = metrics.begin("DataStore.updateChangeRequest")) {
+            StringBuilder sql = new StringBuilder("UPDATE change_requests SET ");
+            for (ChangeRequestField field : changed) {
+                sql.append(changeRequestColumn(field)).append("=?, ");
+            }
+            sql.append("version=version+1 WHERE id=? AND version=?");
+            updated = pool.write(connection -> {
+                try (PreparedStatement ps = prepare(connection, sql.toString())) {
+                    int index = 1;
+                    for (ChangeRequestField field : changed) {
+                        switch (field) {
+                            case TITLE -> ps.setString(index, cr.getTitle());
+                            case DESCRIPTION -> ps.setString(index, cr.getDescription());
+                            case STATUS -> ps.setString(index, cr.getStatus().name());
+                            case EXPIRY_DATE -> ps.setObject(index, timestampFormat.encode(cr.getExpiryDate()));
+                            case ARCHIVED -> ps.setInt(index, cr.isArchived() ? 1 : 0);
+                            case IMPLEMENTATION_NOTE -> ps.setString(index, cr.getImplementationNote());
+                        }
+                        index++;
+                    }
+                    ps.setInt(index++, cr.getId());
+                    ps.setInt(index, version);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to update change request", ex);
         }
+        if (updated == 0) {
+            throw new ConcurrentUpdateException("Change request", cr.getId(), version);
+        }
+        cr.setVersion(version + 1);
+        cr.clearChangedFields();
+    }
+
+    private static String changeRequestColumn(ChangeRequestField field) {
+        return switch (field) {
+            case TITLE -> "title";
+            case DESCRIPTION -> "description";
+            case STATUS -> "status";
+            case EXPIRY_DATE -> "expiry_date";
+            case ARCHIVED -> "archived";
+            case IMPLEMENTATION_NOTE -> "implementation_note";
+        };
     }
 
     public void removeChangeRequest(int id) {
-        try (PreparedStatement ps = connection.prepareStatement("DELETE FROM change_requests WHERE id=?")) {
-            ps.setInt(1, id);
-            ps.executeUpdate();
+        try (CallScope scope = metrics.begin("DataStore.removeChangeRequest")) {
+            pool.write(connection -> {
+                try (PreparedStatement ps = prepare(connection, "DELETE FROM change_requests WHERE id=?")) {
+                    ps.setInt(1, id);
+                    return ps.executeUpdate();
+                }
+            });
         } catch (SQLException ex) {
             throw new IllegalStateException("Unable to remove change request", ex);
         }
     }
 
-    private ChangeRequest mapChangeRequest(ResultSet rs) throws SQLException {
+    private List<ChangeRequest> queryChangeRequests(Connection connection, String sql, Object... params) throws SQLException {
+        List<ChangeRequest> requests = new ArrayList<>();
+        try (PreparedStatement ps = prepare(connection, sql)) {
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    requests.add(mapChangeRequest(connection, rs));
+                }
+            }
+        }
+        metrics.rowsHydrated(requests.size());
+        return requests;
+    }
+
+    private ChangeRequest mapChangeRequest(Connection connection, ResultSet rs) throws SQLException {
         int id = rs.getInt("id");
-        User requester = findUser(rs.getInt("requester_id")).orElseThrow(() -> new IllegalStateException("Missing requester for change request " + id));
-        LocalDate expiry = LocalDate.parse(rs.getString("expiry_date"));
-        LocalDateTime created = LocalDateTime.parse(rs.getString("created_at"));
+        User requester = loadUser(connection, rs.getInt("requester_id")).orElseThrow(() -> new IllegalStateException("Missing requester for change request " + id));
+        LocalDate expiry = timestampFormat.readDate(rs, "expiry_date");
+        LocalDateTime created = timestampFormat.readDateTime(rs, "created_at");
         ChangeRequest cr = new ChangeRequest(id, requester, rs.getString("title"), rs.getString("description"), expiry, created);
         cr.setStatus(ChangeRequestStatus.valueOf(rs.getString("status")));
         cr.setArchived(rs.getInt("archived") == 1);
         cr.setImplementationNote(rs.getString("implementation_note"));
+        cr.setVersion(rs.getInt("version"));
+        cr.clearChangedFields();
         return cr;
     }
     // endregion
 
+    // region Ticket events
+    /**
+     * Appends the event to the ticket event log and sets its offset. Inside
+     * {@link #inTransaction} the event commits or rolls back with the rest of the unit of work.
+     */
+    public void appendTicketEvent(TicketEvent event) {
+        long offset;
+        try (CallScope scope = metrics.begin("DataStore.appendTicketEvent")) {
+            offset = pool.write(connection -> eventLog.append(connection, event));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to append ticket event", ex);
+        }
+        event.setOffset(offset);
+        pool.afterCommit(() -> lastEventOffset.accumulateAndGet(offset, Math::max));
+        if (!pool.holdsWriter()) {
+            snapshotIfDue();
+        }
+    }
+
+    /**
+     * Offset of the last committed ticket event, 0 for an empty log.
+     */
+    public long getLastTicketEventOffset() {
+        return lastEventOffset.get();
+    }
+
+    /**
+     * Offset up to which every ticket event is folded into the snapshots.
+     */
+    public long getTicketSnapshotOffset() {
+        return snapshotOffset.get();
+    }
+
+    /**
+     * Streams the ticket events after {@code offset} in log order, fetched in keyset batches, for
+     * replaying into projections or replicas. Pass the last offset a consumer has applied to
+     * resume it; 0 replays the whole log.
+     */
+    public Stream<TicketEvent> streamTicketEvents(long offset) {
+        return stream((last, limit) -> {
+            try (CallScope scope = metrics.begin("DataStore.streamTicketEventsBatch")) {
+                return pool.read(connection -> eventLog.read(connection, last == null ? offset : last.getOffset(), limit));
+            } catch (SQLException ex) {
+                throw new IllegalStateException("Unable to read ticket events", ex);
+            }
+        });
+    }
+
+    /**
+     * The ticket's state rebuilt from its latest snapshot and the events after it; empty when the
+     * log holds nothing for the ticket.
+     */
+    public Optional<TicketState> loadTicketState(int ticketId) {
+        try (CallScope scope = metrics.begin("DataStore.loadTicketState")) {
+            return Optional.ofNullable(pool.read(connection -> eventLog.loadState(connection, ticketId)));
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load ticket state", ex);
+        }
+    }
+
+    /**
+     * Every ticket's state, keyed by ticket id: all snapshots plus the events after the snapshot
+     * offset. Runs as one read, so the snapshots and the events are consistent.
+     */
+    public Map<Integer, TicketState> loadTicketStates() {
+        try (CallScope scope = metrics.begin("DataStore.loadTicketStates")) {
+            return pool.read(connection -> {
+                Map<Integer, TicketState> states = eventLog.loadSnapshots(connection);
+                long offset = eventLog.snapshotOffset(connection);
+                List<TicketEvent> batch;
+                do {
+                    batch = eventLog.read(connection, offset, streamBatchSize);
+                    for (TicketEvent event : batch) {
+                        states.computeIfAbsent(event.getTicketId(), TicketState::new).apply(event);
+                        offset = event.getOffset();
+                    }
+                } while (batch.size() == streamBatchSize);
+                return states;
+            });
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to load ticket states", ex);
+        }
+    }
+
+    /**
+     * Folds the events appended since the last snapshot into the per-ticket snapshots; returns
+     * the new snapshot offset. Each batch of {@link DataStoreConfig#streamBatchSize} events is
+     * its own short transaction, so other writers get the writer between batches. Runs
+     * automatically on a background thread every {@link DataStoreConfig#snapshotInterval} events.
+     */
+    public long snapshotTicketEvents() {
+        try (CallScope scope = metrics.begin("DataStore.snapshotTicketEvents")) {
+            long offset = pool.read(eventLog::snapshotOffset);
+            List<TicketEvent> batch;
+            do {
+                long after = offset;
+                batch = pool.transaction(connection -> {
+                    List<TicketEvent> events = eventLog.read(connection, after, streamBatchSize);
+                    eventLog.snapshot(connection, events);
+                    return events;
+                });
+                if (!batch.isEmpty()) {
+                    offset = batch.get(batch.size() - 1).getOffset();
+                    snapshotOffset.accumulateAndGet(offset, Math::max);
+                }
+            } while (batch.size() == streamBatchSize && !Thread.currentThread().isInterrupted());
+            return offset;
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Unable to snapshot ticket events", ex);
+        }
+    }
+
+    /**
+     * Hands the snapshot to the background thread once the interval is crossed, so the commit
+     * that crossed it neither waits for the fold nor sees its failures.
+     */
+    private void snapshotIfDue() {
+        if (snapshotter == null || lastEventOffset.get() - snapshotOffset.get() < snapshotInterval) {
+            return;
+        }
+        // one snapshot at a time; commits arriving meanwhile carry on without queueing another
+        if (snapshotting.compareAndSet(false, true)) {
+            try {
+                snapshotter.execute(() -> {
+                    try {
+                        snapshotTicketEvents();
+                    } catch (RuntimeException ex) {
+                        LOG.log(Level.WARNING, "Ticket event snapshot failed; the next one picks up the remaining events", ex);
+                    } finally {
+                        snapshotting.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException ex) {
+                // the store is closing
+                snapshotting.set(false);
+            }
+        }
+    }
+    // endregion
+
+    private <T> Stream<T> stream(KeysetSpliterator.BatchLoader<T> loader) {
+        return StreamSupport.stream(new KeysetSpliterator<>(loader, streamBatchSize), false);
+    }
+
+    private static int generatedKey(PreparedStatement ps) throws SQLException {
+        try (ResultSet keys = ps.getGeneratedKeys()) {
+            return keys.next() ? keys.getInt(1) : -1;
+        }
+    }
+
     @Override
     public void close() throws SQLException {
-        if (connection != null) {
-            connection.close();
+        if (snapshotter != null) {
+            // a running snapshot stops after its current batch; the rest is picked up next time
+            snapshotter.shutdownNow();
+            try {
+                snapshotter.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            appender.close();
+        } finally {
+            pool.close();
         }
     }
 }
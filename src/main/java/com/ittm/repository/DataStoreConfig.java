@@ -0,0 +1,177 @@
+package com.ittm.repository;
+
+import com.ittm.metrics.MetricsRegistry;
+
+/**
+ * Connection and SQLite tuning settings for {@link DataStore}. Defaults suit an interactive
+ * helpdesk workload; benchmarks and tools override individual values.
+ */
+public class DataStoreConfig {
+    private int readerPoolSize = Math.max(2, Runtime.getRuntime().availableProcessors());
+    private int busyTimeoutMillis = 5_000;
+    private long mmapSizeBytes = 256L * 1024 * 1024;
+    private int cacheSizeKib = 16 * 1024;
+    private int statementCacheSize = 64;
+    private int userCacheSize = 10_000;
+    private Durability durability = Durability.SYNC;
+    private int appendBatchSize = 256;
+    private long appendFlushIntervalMillis = 5;
+    private MetricsRegistry metrics;
+    private TimestampFormat timestampFormat = TimestampFormat.ISO_TEXT;
+    private int streamBatchSize = 500;
+    private int snapshotInterval = 5_000;
+
+    public int getReaderPoolSize() {
+        return readerPoolSize;
+    }
+
+    /**
+     * Number of read-only connections; reads run on the writer connection when set to zero.
+     */
+    public DataStoreConfig readerPoolSize(int readerPoolSize) {
+        this.readerPoolSize = readerPoolSize;
+        return this;
+    }
+
+    public int getBusyTimeoutMillis() {
+        return busyTimeoutMillis;
+    }
+
+    public DataStoreConfig busyTimeoutMillis(int busyTimeoutMillis) {
+        this.busyTimeoutMillis = busyTimeoutMillis;
+        return this;
+    }
+
+    public long getMmapSizeBytes() {
+        return mmapSizeBytes;
+    }
+
+    public DataStoreConfig mmapSizeBytes(long mmapSizeBytes) {
+        this.mmapSizeBytes = mmapSizeBytes;
+        return this;
+    }
+
+    public int getCacheSizeKib() {
+        return cacheSizeKib;
+    }
+
+    public DataStoreConfig cacheSizeKib(int cacheSizeKib) {
+        this.cacheSizeKib = cacheSizeKib;
+        return this;
+    }
+
+    public int getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    /**
+     * Maximum number of compiled statements kept per connection; zero disables the cache.
+     */
+    public DataStoreConfig statementCacheSize(int statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+        return this;
+    }
+
+    public int getUserCacheSize() {
+        return userCacheSize;
+    }
+
+    /**
+     * Maximum number of users kept in the read-through user cache; zero disables caching.
+     */
+    public DataStoreConfig userCacheSize(int userCacheSize) {
+        this.userCacheSize = userCacheSize;
+        return this;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    /**
+     * How notes and history entries are written; see {@link Durability}.
+     */
+    public DataStoreConfig durability(Durability durability) {
+        this.durability = durability;
+        return this;
+    }
+
+    public int getAppendBatchSize() {
+        return appendBatchSize;
+    }
+
+    /**
+     * Number of queued notes and history entries that triggers an immediate flush.
+     */
+    public DataStoreConfig appendBatchSize(int appendBatchSize) {
+        this.appendBatchSize = appendBatchSize;
+        return this;
+    }
+
+    public long getAppendFlushIntervalMillis() {
+        return appendFlushIntervalMillis;
+    }
+
+    /**
+     * Longest time a queued note or history entry waits before being written.
+     */
+    public DataStoreConfig appendFlushIntervalMillis(long appendFlushIntervalMillis) {
+        this.appendFlushIntervalMillis = appendFlushIntervalMillis;
+        return this;
+    }
+
+    public MetricsRegistry getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registry that records call latency, statements and hydrated rows; null (the default) gives
+     * every store its own enabled registry. Pass {@code new MetricsRegistry(false)} to turn
+     * recording off.
+     */
+    public DataStoreConfig metrics(MetricsRegistry metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public TimestampFormat getTimestampFormat() {
+        return timestampFormat;
+    }
+
+    /**
+     * Storage format for timestamps. {@link TimestampFormat#EPOCH} converts an existing ISO text
+     * database on open (a one-time copy of the ticket, note, history and change request tables);
+     * a database already holding epoch columns keeps them whichever format is configured.
+     */
+    public DataStoreConfig timestampFormat(TimestampFormat timestampFormat) {
+        this.timestampFormat = timestampFormat;
+        return this;
+    }
+
+    public int getStreamBatchSize() {
+        return streamBatchSize;
+    }
+
+    /**
+     * Rows fetched per keyset query by the {@code stream*} methods of {@link DataStore}; bounds
+     * how many tickets (with their notes and history under {@link FetchPlan#FULL}) a stream holds.
+     */
+    public DataStoreConfig streamBatchSize(int streamBatchSize) {
+        this.streamBatchSize = streamBatchSize;
+        return this;
+    }
+
+    public int getSnapshotInterval() {
+        return snapshotInterval;
+    }
+
+    /**
+     * Ticket events appended between automatic snapshots (see
+     * {@link DataStore#snapshotTicketEvents()}); the commit that crosses the interval starts the
+     * snapshot on a background thread. Zero leaves snapshots to explicit calls.
+     */
+    public DataStoreConfig snapshotInterval(int snapshotInterval) {
+        this.snapshotInterval = snapshotInterval;
+        return this;
+    }
+}
@@ -0,0 +1,21 @@
+package com.ittm.repository;
+
+/**
+ * How {@link DataStore#addNote} and {@link DataStore#addHistory} persist their rows.
+ */
+public enum Durability {
+    /**
+     * Insert on the caller's thread before returning (one commit per row outside a unit of work).
+     */
+    SYNC,
+    /**
+     * Queue the row and block until the batch containing it has been committed, so concurrent
+     * callers share one commit.
+     */
+    GROUP_COMMIT,
+    /**
+     * Queue the row and return immediately; rows still queued are lost if the process dies
+     * before the next flush.
+     */
+    ASYNC
+}
@@ -0,0 +1,16 @@
+package com.ittm.repository;
+
+/**
+ * How much of the ticket graph the {@link DataStore} ticket queries hydrate.
+ */
+public enum FetchPlan {
+    /**
+     * Ticket columns, requester and agent only. Notes and history are loaded per ticket on
+     * first access, so use {@link #FULL} when they are needed for many tickets.
+     */
+    SUMMARY,
+    /**
+     * Ticket columns, requester, agent, notes and history, each loaded with one set-based query.
+     */
+    FULL
+}
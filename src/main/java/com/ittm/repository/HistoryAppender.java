@@ -0,0 +1,304 @@
+package com.ittm.repository;
+
+import com.ittm.model.Note;
+import com.ittm.model.TicketHistoryEntry;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Write path for the append-only {@code notes} and {@code ticket_history} tables. In
+ * {@link Durability#SYNC} mode rows are inserted on the caller's thread; otherwise they are
+ * queued and a background thread writes them in multi-row INSERTs, one transaction per batch.
+ * In {@link Durability#GROUP_COMMIT} mode the flusher starts as soon as a row is queued, and
+ * rows arriving while it commits form the next batch; in {@link Durability#ASYNC} mode it waits
+ * until {@code batchSize} rows are queued or {@code flushIntervalMillis} has passed.
+ *
+ * <p>Rows appended inside {@link DataStore#inTransaction} are only queued once that unit of work
+ * commits, so a rollback never leaves orphaned notes or history behind. Readers call
+ * {@link #flush()} before loading notes or history, so queued rows are never invisible to a
+ * subsequent read outside a unit of work. A batch that fails to commit goes back to the front of
+ * the queue and is retried, so rows already accepted are not lost to a transient error.
+ */
+class HistoryAppender implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(HistoryAppender.class.getName());
+    private static final int[] ROWS_PER_STATEMENT = {64, 16, 4, 1};
+    private static final String NOTE_COLUMNS = "INSERT INTO notes(ticket_id, author_id, author_name, message, created_at) VALUES";
+    private static final String HISTORY_COLUMNS = "INSERT INTO ticket_history(ticket_id, timestamp, action, performed_by) VALUES";
+
+    private final DataStore dataStore;
+    private final ConnectionPool pool;
+    private final Durability durability;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final LinkedBlockingDeque<Pending> queue = new LinkedBlockingDeque<>();
+    private final AtomicInteger unwritten = new AtomicInteger();
+    private final ThreadLocal<List<CompletableFuture<Void>>> awaiting = ThreadLocal.withInitial(ArrayList::new);
+    private final Object batchReady = new Object();
+    private final Thread flusher;
+    private volatile boolean closed;
+
+    HistoryAppender(DataStore dataStore, ConnectionPool pool, DataStoreConfig config) {
+        this.dataStore = dataStore;
+        this.pool = pool;
+        this.durability = config.getDurability();
+        this.batchSize = Math.max(1, config.getAppendBatchSize());
+        this.flushIntervalMillis = Math.max(1, config.getAppendFlushIntervalMillis());
+        if (durability == Durability.SYNC) {
+            flusher = null;
+        } else {
+            flusher = new Thread(this::runFlusher, "ittm-history-appender");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    void appendNote(int ticketId, Note note) throws SQLException {
+        append(new Pending(ticketId, note, null));
+    }
+
+    void appendHistory(int ticketId, TicketHistoryEntry entry) throws SQLException {
+        append(new Pending(ticketId, null, entry));
+    }
+
+    private void append(Pending pending) throws SQLException {
+        if (durability == Durability.SYNC || closed) {
+            pool.write(connection -> {
+                insert(connection, List.of(pending));
+                return null;
+            });
+            return;
+        }
+        if (durability == Durability.GROUP_COMMIT) {
+            pending.committed = new CompletableFuture<>();
+        }
+        if (pool.holdsWriter()) {
+            // queue only once the enclosing unit of work commits; a rollback drops the row
+            if (pending.committed != null) {
+                awaiting.get().add(pending.committed);
+            }
+            pool.afterCommit(() -> enqueue(pending));
+            return;
+        }
+        enqueue(pending);
+        if (pending.committed != null) {
+            await(pending.committed);
+        }
+    }
+
+    private void enqueue(Pending pending) {
+        unwritten.incrementAndGet();
+        queue.add(pending);
+        if (durability == Durability.GROUP_COMMIT || queue.size() >= batchSize) {
+            synchronized (batchReady) {
+                batchReady.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Called once the outermost unit of work of this thread has finished: in
+     * {@link Durability#GROUP_COMMIT} mode blocks until the rows it appended are committed.
+     * Must not be called while holding the writer, which the flusher needs.
+     */
+    void awaitUnitOfWork(boolean committed) throws SQLException {
+        List<CompletableFuture<Void>> futures = awaiting.get();
+        if (futures.isEmpty()) {
+            return;
+        }
+        List<CompletableFuture<Void>> pending = new ArrayList<>(futures);
+        futures.clear();
+        if (committed) {
+            for (CompletableFuture<Void> future : pending) {
+                await(future);
+            }
+        }
+    }
+
+    /**
+     * Writes every queued row before returning. Rows are only taken off the queue by the thread
+     * holding the writer, inside the transaction that inserts them, so once this returns every
+     * row appended before the call is committed. Does nothing while the calling thread holds the
+     * writer: the rows would join that thread's transaction and be lost if it rolled back. If the
+     * batch fails, its rows are put back at the front of the queue before the error is rethrown;
+     * flushes are serialized so no later row can be written ahead of them.
+     */
+    void flush() throws SQLException {
+        if (unwritten.get() == 0 || pool.holdsWriter()) {
+            return;
+        }
+        writeQueued();
+    }
+
+    private synchronized void writeQueued() throws SQLException {
+        List<Pending> written = new ArrayList<>();
+        try {
+            pool.transaction(connection -> {
+                while (!queue.isEmpty()) {
+                    List<Pending> batch = new ArrayList<>(batchSize);
+                    queue.drainTo(batch, batchSize);
+                    written.addAll(batch);
+                    insert(connection, batch);
+                }
+                return null;
+            });
+        } catch (SQLException | RuntimeException ex) {
+            for (int i = written.size() - 1; i >= 0; i--) {
+                queue.addFirst(written.get(i));
+            }
+            throw ex;
+        }
+        complete(written);
+    }
+
+    int pendingCount() {
+        return unwritten.get();
+    }
+
+    private void complete(List<Pending> rows) {
+        unwritten.addAndGet(-rows.size());
+        for (Pending row : rows) {
+            if (row.committed != null) {
+                row.committed.complete(null);
+            }
+        }
+    }
+
+    private void insert(Connection connection, List<Pending> rows) throws SQLException {
+        List<Pending> notes = new ArrayList<>();
+        List<Pending> history = new ArrayList<>();
+        for (Pending row : rows) {
+            (row.note != null ? notes : history).add(row);
+        }
+        insertChunked(connection, notes, NOTE_COLUMNS, "(?,?,?,?,?)");
+        insertChunked(connection, history, HISTORY_COLUMNS, "(?,?,?,?)");
+    }
+
+    /**
+     * Inserts the rows with as few statements as possible while only ever using a handful of
+     * distinct statement shapes, so the multi-row INSERTs stay in the statement cache.
+     */
+    private void insertChunked(Connection connection, List<Pending> rows, String insert, String tuple) throws SQLException {
+        int offset = 0;
+        for (int chunk : ROWS_PER_STATEMENT) {
+            while (rows.size() - offset >= chunk) {
+                String sql = insert + String.join(",", Collections.nCopies(chunk, tuple));
+                try (PreparedStatement ps = dataStore.prepare(connection, sql)) {
+                    int index = 1;
+                    for (int i = offset; i < offset + chunk; i++) {
+                        index = rows.get(i).bind(ps, index, dataStore.getTimestampFormat());
+                    }
+                    ps.executeUpdate();
+                }
+                offset += chunk;
+            }
+        }
+    }
+
+    private void runFlusher() {
+        while (!closed) {
+            try {
+                synchronized (batchReady) {
+                    if (!closed && (queue.isEmpty() || durability == Durability.ASYNC && queue.size() < batchSize)) {
+                        batchReady.wait(flushIntervalMillis);
+                    }
+                }
+                flush();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (SQLException | RuntimeException ex) {
+                // the rows are back on the queue; retry after a pause instead of spinning
+                LOG.log(Level.WARNING, "Failed to write a batch of notes and history; retrying", ex);
+                try {
+                    Thread.sleep(flushIntervalMillis);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private static void await(CompletableFuture<Void> committed) throws SQLException {
+        try {
+            committed.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for group commit", ex);
+        } catch (ExecutionException ex) {
+            throw new SQLException("Group commit failed", ex.getCause());
+        }
+    }
+
+    /**
+     * Stops the background thread and writes everything still queued. If that last write fails
+     * the rows cannot be retried any more, so callers still waiting on them are failed.
+     */
+    @Override
+    public void close() throws SQLException {
+        closed = true;
+        if (flusher != null) {
+            synchronized (batchReady) {
+                batchReady.notifyAll();
+            }
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            flush();
+        } catch (SQLException | RuntimeException ex) {
+            List<Pending> lost = new ArrayList<>();
+            queue.drainTo(lost);
+            unwritten.addAndGet(-lost.size());
+            for (Pending row : lost) {
+                if (row.committed != null) {
+                    row.committed.completeExceptionally(ex);
+                }
+            }
+            throw ex;
+        }
+    }
+
+    private static final class Pending {
+        private final int ticketId;
+        private final Note note;
+        private final TicketHistoryEntry entry;
+        private CompletableFuture<Void> committed;
+
+        private Pending(int ticketId, Note note, TicketHistoryEntry entry) {
+            this.ticketId = ticketId;
+            this.note = note;
+            this.entry = entry;
+        }
+
+        private int bind(PreparedStatement ps, int index, TimestampFormat format) throws SQLException {
+            ps.setInt(index++, ticketId);
+            if (note != null) {
+                ps.setInt(index++, note.getAuthorId());
+                ps.setString(index++, note.getAuthorName());
+                ps.setString(index++, note.getMessage());
+                ps.setObject(index++, format.encode(note.getCreatedAt()));
+            } else {
+                ps.setObject(index++, format.encode(entry.getTimestamp()));
+                ps.setString(index++, entry.getAction());
+                ps.setString(index++, entry.getPerformedBy());
+            }
+            return index;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.ittm.repository;
+
+import com.ittm.model.TicketStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs {@code EXPLAIN QUERY PLAN} over the hot statements issued by the services and reports
+ * every plan step that scans a table without an index. Full-table reads that are inherent to
+ * the call (e.g. listing all tickets) are deliberately not part of the list.
+ */
+class IndexUsageCheck {
+    private final DataStore dataStore;
+
+    IndexUsageCheck(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Returns the offending plan lines keyed by statement; empty when every hot query is indexed.
+     */
+    Map<String, List<String>> findUnindexedQueries() {
+        Map<String, List<String>> violations = new LinkedHashMap<>();
+        for (String sql : hotQueries(dataStore.getTimestampFormat())) {
+            List<String> offending = new ArrayList<>();
+            for (String detail : dataStore.explainQueryPlan(sql, dummyParams(sql))) {
+                // scans of materialized subqueries read already-limited intermediate rows, not tables
+                if (detail.startsWith("SCAN ") && !detail.contains(" INDEX ") && !detail.startsWith("SCAN (subquery-")) {
+                    offending.add(detail);
+                }
+            }
+            if (!offending.isEmpty()) {
+                violations.put(sql, offending);
+            }
+        }
+        return violations;
+    }
+
+    private static List<String> hotQueries(TimestampFormat format) {
+        List<String> queries = new ArrayList<>();
+        queries.add("SELECT id, name, role FROM users WHERE id = ?");
+        queries.addAll(TicketGraphLoader.statements("id = ?", "ORDER BY id"));
+        queries.addAll(TicketGraphLoader.statements("id IN (SELECT value FROM json_each(?))", "ORDER BY id"));
+        TicketFilter byStatus = new TicketFilter().status(TicketStatus.OPEN).createdFrom(LocalDate.now());
+        TicketFilter byRequester = new TicketFilter().requesterId(1);
+        TicketFilter byAgent = new TicketFilter().agentId(1);
+        for (TicketFilter filter : List.of(new TicketFilter(), byStatus, byRequester, byAgent)) {
+            List<Object> params = new ArrayList<>();
+            queries.addAll(TicketGraphLoader.statements(filter.toWhereClause(format, new PageCursor(LocalDateTime.now(), 1), params),
+                    TicketFilter.pageOrder(50)));
+        }
+        queries.add("SELECT assigned_agent_id, COUNT(*) FROM tickets " +
+                "WHERE assigned_agent_id IS NOT NULL AND status IN (?,?,?) GROUP BY assigned_agent_id");
+        queries.add("SELECT substr(day, 1, 7), category, agent_id, SUM(tickets) FROM ticket_daily_stats " +
+                "WHERE status IN (?, ?) AND day >= ? AND day <= ? GROUP BY substr(day, 1, 7), category, agent_id");
+        queries.add("SELECT id, name, role FROM users WHERE id > ? ORDER BY id LIMIT ?");
+        queries.add("SELECT * FROM change_requests WHERE id=?");
+        queries.add("SELECT * FROM change_requests WHERE id > ? ORDER BY id LIMIT ?");
+        queries.add("SELECT * FROM change_requests WHERE archived = 0 AND expiry_date <= ? ORDER BY expiry_date, id");
+        queries.add("UPDATE change_requests SET archived = 1, status = ?, version = version + 1 WHERE archived = 0 AND created_at < ?");
+        queries.add("SELECT * FROM change_requests WHERE " + SchemaMigrator.changeRequestQuarter(format) + " = ?");
+        queries.add(DataStore.textSearchSql(false));
+        queries.add(DataStore.textSearchSql(true));
+        queries.add(TicketEventLog.READ_SQL);
+        queries.add(TicketEventLog.READ_TICKET_SQL);
+        queries.add(TicketEventLog.SNAPSHOT_SQL);
+        return queries;
+    }
+
+    private static Object[] dummyParams(String sql) {
+        Object[] params = new Object[(int) sql.chars().filter(c -> c == '?').count()];
+        for (int i = 0; i < params.length; i++) {
+            params[i] = sql.contains("json_each") ? "[1]" : 1;
+        }
+        return params;
+    }
+}
@@ -0,0 +1,57 @@
+package com.ittm.repository;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over a keyset-ordered result that fetches one batch at a time. Each batch is read
+ * by its own short call that returns its connection to the pool before the elements are handed
+ * out, so consumers may block or call back into the store while iterating, and at most one
+ * batch is reachable from the spliterator at any time.
+ */
+final class KeysetSpliterator<T> extends Spliterators.AbstractSpliterator<T> {
+    interface BatchLoader<T> {
+        /**
+         * Loads up to {@code limit} elements ordered after {@code last}, or from the start when
+         * {@code last} is null.
+         */
+        List<T> next(T last, int limit);
+    }
+
+    private final BatchLoader<T> loader;
+    private final int batchSize;
+    private Iterator<T> batch;
+    private T last;
+    private boolean exhausted;
+
+    KeysetSpliterator(BatchLoader<T> loader, int batchSize) {
+        super(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive");
+        }
+        this.loader = loader;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (batch == null || !batch.hasNext()) {
+            if (exhausted) {
+                return false;
+            }
+            List<T> loaded = loader.next(last, batchSize);
+            exhausted = loaded.size() < batchSize;
+            if (loaded.isEmpty()) {
+                batch = null;
+                return false;
+            }
+            last = loaded.get(loaded.size() - 1);
+            batch = loaded.iterator();
+        }
+        action.accept(batch.next());
+        return true;
+    }
+}
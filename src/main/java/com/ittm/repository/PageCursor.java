@@ -0,0 +1,25 @@
+package com.ittm.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Keyset position in the (created_at, id) ticket ordering. The next page starts strictly
+ * after this position, so paging cost depends on the page size rather than the offset.
+ */
+public class PageCursor {
+    private final LocalDateTime createdAt;
+    private final int id;
+
+    public PageCursor(LocalDateTime createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+}
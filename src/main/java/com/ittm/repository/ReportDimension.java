@@ -0,0 +1,20 @@
+package com.ittm.repository;
+
+/**
+ * Extra grouping columns of {@code ticket_daily_stats} for
+ * {@link DataStore#reportTickets(TicketReportQuery)}, applied after the year-month.
+ */
+public enum ReportDimension {
+    CATEGORY("category"),
+    AGENT("agent_id");
+
+    private final String column;
+
+    ReportDimension(String column) {
+        this.column = column;
+    }
+
+    String column() {
+        return column;
+    }
+}
@@ -0,0 +1,348 @@
+package com.ittm.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Applies ordered, versioned schema migrations at startup. The highest applied version is
+ * recorded in {@code schema_version}; every pending migration runs in its own transaction so
+ * a failure leaves the database at the last good version.
+ */
+class SchemaMigrator {
+    /**
+     * Rollup triggers and the quarter index embed timestamp expressions; they are recreated for
+     * the new format instead of being copied when a table is converted to epoch columns.
+     */
+    private static final List<String> FORMAT_DEPENDENT = List.of(
+            "trg_ticket_stats_insert", "trg_ticket_stats_update", "trg_ticket_stats_delete", "idx_change_requests_quarter");
+
+    private final List<Migration> migrations = new ArrayList<>();
+
+    SchemaMigrator() {
+        register(1, "Base tables",
+                "CREATE TABLE IF NOT EXISTS users (id INTEGER PRIMARY KEY, name TEXT, role TEXT)",
+                "CREATE TABLE IF NOT EXISTS tickets (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, requester_id INTEGER, assigned_agent_id INTEGER, category TEXT, " +
+                        "title TEXT, description TEXT, status TEXT, created_at TEXT, updated_at TEXT, rating INTEGER, agent_flagged INTEGER)",
+                "CREATE TABLE IF NOT EXISTS notes (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, ticket_id INTEGER, author_id INTEGER, author_name TEXT, message TEXT, created_at TEXT)",
+                "CREATE TABLE IF NOT EXISTS ticket_history (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, ticket_id INTEGER, timestamp TEXT, action TEXT, performed_by TEXT)",
+                "CREATE TABLE IF NOT EXISTS change_requests (" +
+                        "id INTEGER PRIMARY KEY AUTOINCREMENT, requester_id INTEGER, title TEXT, description TEXT, status TEXT, " +
+                        "expiry_date TEXT, archived INTEGER, implementation_note TEXT, created_at TEXT)");
+        register(2, "Indexes for ticket access paths",
+                "CREATE INDEX IF NOT EXISTS idx_tickets_requester ON tickets(requester_id, created_at)",
+                "CREATE INDEX IF NOT EXISTS idx_tickets_agent_status ON tickets(assigned_agent_id, status)",
+                "CREATE INDEX IF NOT EXISTS idx_tickets_status_created ON tickets(status, created_at)",
+                "CREATE INDEX IF NOT EXISTS idx_tickets_created ON tickets(created_at)",
+                "CREATE INDEX IF NOT EXISTS idx_notes_ticket ON notes(ticket_id, created_at)",
+                "CREATE INDEX IF NOT EXISTS idx_history_ticket ON ticket_history(ticket_id, timestamp)");
+        register(3, "Keyset pagination index for agent ticket views",
+                "CREATE INDEX IF NOT EXISTS idx_tickets_agent_created ON tickets(assigned_agent_id, created_at)");
+        // the epoch conversion runs after the latest migration, so a database still missing this one holds ISO text
+        String[] textStatsTriggers = statsTriggers(TimestampFormat.ISO_TEXT);
+        register(4, "Daily ticket statistics rollup maintained by triggers",
+                "CREATE TABLE IF NOT EXISTS ticket_daily_stats (" +
+                        "day TEXT NOT NULL, category TEXT NOT NULL, agent_id INTEGER NOT NULL, status TEXT NOT NULL, " +
+                        "tickets INTEGER NOT NULL, rating_sum INTEGER NOT NULL, rating_count INTEGER NOT NULL, flagged INTEGER NOT NULL, " +
+                        "PRIMARY KEY (day, category, agent_id, status)) WITHOUT ROWID",
+                textStatsTriggers[0],
+                textStatsTriggers[1],
+                textStatsTriggers[2],
+                "DELETE FROM ticket_daily_stats",
+                statsBackfill(TimestampFormat.ISO_TEXT),
+                quarterIndex(TimestampFormat.ISO_TEXT));
+        register(5, "Partial indexes over active change requests for expiry and archiving",
+                "CREATE INDEX IF NOT EXISTS idx_change_requests_active_expiry ON change_requests(expiry_date) WHERE archived = 0",
+                "CREATE INDEX IF NOT EXISTS idx_change_requests_active_created ON change_requests(created_at) WHERE archived = 0");
+        register(6, "Full-text indexes over ticket text and notes",
+                "CREATE VIRTUAL TABLE IF NOT EXISTS ticket_fts USING fts5(" +
+                        "title, description, content='tickets', content_rowid='id', tokenize='porter unicode61', prefix='2 3 4')",
+                "CREATE VIRTUAL TABLE IF NOT EXISTS note_fts USING fts5(" +
+                        "message, content='notes', content_rowid='id', tokenize='porter unicode61', prefix='2 3 4')",
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_fts_insert AFTER INSERT ON tickets BEGIN " +
+                        ftsInsert("ticket_fts", "NEW", "title", "description") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_fts_update AFTER UPDATE ON tickets WHEN " +
+                        "OLD.title IS NOT NEW.title OR OLD.description IS NOT NEW.description BEGIN " +
+                        ftsDelete("ticket_fts", "title", "description") + "; " + ftsInsert("ticket_fts", "NEW", "title", "description") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_fts_delete AFTER DELETE ON tickets BEGIN " +
+                        ftsDelete("ticket_fts", "title", "description") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_note_fts_insert AFTER INSERT ON notes BEGIN " +
+                        ftsInsert("note_fts", "NEW", "message") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_note_fts_update AFTER UPDATE ON notes WHEN OLD.message IS NOT NEW.message BEGIN " +
+                        ftsDelete("note_fts", "message") + "; " + ftsInsert("note_fts", "NEW", "message") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_note_fts_delete AFTER DELETE ON notes BEGIN " +
+                        ftsDelete("note_fts", "message") + "; END",
+                "INSERT INTO ticket_fts(ticket_fts) VALUES('rebuild')",
+                "INSERT INTO note_fts(note_fts) VALUES('rebuild')");
+        register(7, "Row versions for optimistic concurrency control",
+                "ALTER TABLE tickets ADD COLUMN version INTEGER NOT NULL DEFAULT 0",
+                "ALTER TABLE change_requests ADD COLUMN version INTEGER NOT NULL DEFAULT 0");
+        // tickets raised before the event log get a snapshot at offset 0 to replay on top of
+        register(8, "Append-only ticket events and per-ticket snapshots", TicketEventLog::snapshotExistingTickets,
+                "CREATE TABLE IF NOT EXISTS ticket_events (seq INTEGER PRIMARY KEY AUTOINCREMENT, ticket_id INTEGER NOT NULL, event BLOB NOT NULL)",
+                "CREATE INDEX IF NOT EXISTS idx_ticket_events_ticket ON ticket_events(ticket_id, seq)",
+                "CREATE TABLE IF NOT EXISTS ticket_snapshots (ticket_id INTEGER PRIMARY KEY, seq INTEGER NOT NULL, state BLOB NOT NULL)");
+    }
+
+    /**
+     * Recomputes {@code ticket_daily_stats} from the {@code tickets} table.
+     */
+    static String statsBackfill(TimestampFormat format) {
+        return "INSERT INTO ticket_daily_stats(day, category, agent_id, status, tickets, rating_sum, rating_count, flagged) " +
+                "SELECT " + format.dayOf("updated_at") + ", COALESCE(category, ''), COALESCE(assigned_agent_id, 0), status, " +
+                "COUNT(*), COALESCE(SUM(rating), 0), COUNT(rating), COALESCE(SUM(agent_flagged), 0) " +
+                "FROM tickets GROUP BY 1, 2, 3, 4";
+    }
+
+    /**
+     * Calendar quarter (1-4) of a change request's creation date; indexed, so queries must use
+     * exactly this expression for the database's format.
+     */
+    static String changeRequestQuarter(TimestampFormat format) {
+        return "(" + format.monthOf("created_at") + " + 2) / 3";
+    }
+
+    private static String quarterIndex(TimestampFormat format) {
+        return "CREATE INDEX IF NOT EXISTS idx_change_requests_quarter ON change_requests(" + changeRequestQuarter(format) + ")";
+    }
+
+    /**
+     * The insert, update and delete triggers that keep {@code ticket_daily_stats} current.
+     */
+    private static String[] statsTriggers(TimestampFormat format) {
+        return new String[]{
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_stats_insert AFTER INSERT ON tickets BEGIN " +
+                        statsDelta(format, "NEW", "1") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_stats_update AFTER UPDATE ON tickets WHEN " +
+                        format.dayOf("OLD.updated_at") + " IS NOT " + format.dayOf("NEW.updated_at") + " OR OLD.status IS NOT NEW.status " +
+                        "OR OLD.category IS NOT NEW.category OR OLD.assigned_agent_id IS NOT NEW.assigned_agent_id " +
+                        "OR OLD.rating IS NOT NEW.rating OR OLD.agent_flagged IS NOT NEW.agent_flagged BEGIN " +
+                        statsDelta(format, "OLD", "-1") + "; " + statsDelta(format, "NEW", "1") + "; " + emptyStatsCleanup(format, "OLD") + "; END",
+                "CREATE TRIGGER IF NOT EXISTS trg_ticket_stats_delete AFTER DELETE ON tickets BEGIN " +
+                        statsDelta(format, "OLD", "-1") + "; " + emptyStatsCleanup(format, "OLD") + "; END"};
+    }
+
+    /**
+     * Adds ({@code sign} 1) or removes ({@code sign} -1) the {@code row} (OLD or NEW) ticket from
+     * its rollup bucket.
+     */
+    private static String statsDelta(TimestampFormat format, String row, String sign) {
+        return "INSERT INTO ticket_daily_stats(day, category, agent_id, status, tickets, rating_sum, rating_count, flagged) VALUES (" +
+                format.dayOf(row + ".updated_at") + ", COALESCE(" + row + ".category, ''), COALESCE(" + row + ".assigned_agent_id, 0), " +
+                row + ".status, " + sign + ", " + sign + " * COALESCE(" + row + ".rating, 0), " +
+                sign + " * (" + row + ".rating IS NOT NULL), " + sign + " * COALESCE(" + row + ".agent_flagged, 0)) " +
+                "ON CONFLICT(day, category, agent_id, status) DO UPDATE SET tickets = tickets + excluded.tickets, " +
+                "rating_sum = rating_sum + excluded.rating_sum, rating_count = rating_count + excluded.rating_count, " +
+                "flagged = flagged + excluded.flagged";
+    }
+
+    private static String emptyStatsCleanup(TimestampFormat format, String row) {
+        return "DELETE FROM ticket_daily_stats WHERE day = " + format.dayOf(row + ".updated_at") + " " +
+                "AND category = COALESCE(" + row + ".category, '') AND agent_id = COALESCE(" + row + ".assigned_agent_id, 0) " +
+                "AND status = " + row + ".status AND tickets = 0";
+    }
+
+    /**
+     * Indexes the {@code row} (OLD or NEW) text columns in an external-content FTS table.
+     */
+    private static String ftsInsert(String table, String row, String... columns) {
+        return "INSERT INTO " + table + "(rowid, " + String.join(", ", columns) + ") VALUES (" + row + ".id, " +
+                row + "." + String.join(", " + row + ".", columns) + ")";
+    }
+
+    /**
+     * Removes the OLD row from an external-content FTS table, which needs the indexed values
+     * to find its postings.
+     */
+    private static String ftsDelete(String table, String... columns) {
+        return "INSERT INTO " + table + "(" + table + ", rowid, " + String.join(", ", columns) + ") VALUES ('delete', OLD.id, " +
+                "OLD." + String.join(", OLD.", columns) + ")";
+    }
+
+    private void register(int version, String description, String... statements) {
+        migrations.add(new Migration(version, description, null, statements));
+    }
+
+    /**
+     * Registers a migration that also runs {@code step} on the connection after its statements,
+     * for data changes SQL alone cannot express.
+     */
+    private void register(int version, String description, MigrationStep step, String... statements) {
+        migrations.add(new Migration(version, description, step, statements));
+    }
+
+    /**
+     * Applies the pending migrations, then converts an ISO text database to epoch columns when
+     * {@code format} asks for them. The conversion is one-way: a converted database keeps its
+     * epoch columns whatever format is requested later (see {@link #storedFormat}).
+     */
+    void migrate(Connection connection, TimestampFormat format) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE IF NOT EXISTS schema_version (version INTEGER PRIMARY KEY, description TEXT, applied_at TEXT)");
+        }
+        int current = currentVersion(connection);
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            for (Migration migration : migrations) {
+                if (migration.version > current) {
+                    apply(connection, migration);
+                    connection.commit();
+                }
+            }
+            if (format == TimestampFormat.EPOCH && storedFormat(connection) == TimestampFormat.ISO_TEXT) {
+                convertToEpoch(connection);
+                connection.commit();
+            }
+        } catch (SQLException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * The format the timestamp columns of this database hold, told apart by the declared type of
+     * {@code tickets.created_at}.
+     */
+    static TimestampFormat storedFormat(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT type FROM pragma_table_info('tickets') WHERE name = 'created_at'")) {
+            return rs.next() && "INTEGER".equalsIgnoreCase(rs.getString(1)) ? TimestampFormat.EPOCH : TimestampFormat.ISO_TEXT;
+        }
+    }
+
+    private void convertToEpoch(Connection connection) throws SQLException {
+        rebuildWithEpochColumns(connection, "tickets", List.of("created_at", "updated_at"), List.of());
+        rebuildWithEpochColumns(connection, "notes", List.of("created_at"), List.of());
+        rebuildWithEpochColumns(connection, "ticket_history", List.of("timestamp"), List.of());
+        rebuildWithEpochColumns(connection, "change_requests", List.of("created_at"), List.of("expiry_date"));
+        try (Statement st = connection.createStatement()) {
+            for (String trigger : statsTriggers(TimestampFormat.EPOCH)) {
+                st.executeUpdate(trigger);
+            }
+            st.executeUpdate(quarterIndex(TimestampFormat.EPOCH));
+        }
+    }
+
+    /**
+     * SQLite cannot change the type of a column in place: the rows are copied into a new table
+     * that declares the timestamp columns INTEGER, which then replaces the old one under its
+     * name, together with its AUTOINCREMENT position, indexes and triggers. Row ids are kept,
+     * so the full-text indexes stay valid.
+     */
+    private static void rebuildWithEpochColumns(Connection connection, String table, List<String> dateTimes, List<String> dates)
+            throws SQLException {
+        String copy = table + "_epoch";
+        String ddl = queryStrings(connection, "SELECT sql FROM sqlite_master WHERE type = 'table' AND name = ?", table).get(0)
+                .replaceFirst("^CREATE TABLE (IF NOT EXISTS )?\\w+", "CREATE TABLE " + copy);
+        List<String> select = new ArrayList<>();
+        List<String> columns = queryStrings(connection, "SELECT name FROM pragma_table_info(?) ORDER BY cid", table);
+        for (String column : columns) {
+            if (dateTimes.contains(column)) {
+                select.add("CAST(round(unixepoch(" + column + ", 'subsec') * 1000) AS INTEGER)");
+            } else if (dates.contains(column)) {
+                select.add("unixepoch(" + column + ") / 86400");
+            } else {
+                select.add(column);
+                continue;
+            }
+            ddl = ddl.replaceFirst("\\b" + column + " TEXT\\b", column + " INTEGER");
+        }
+        List<String> dependents = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(
+                "SELECT name, sql FROM sqlite_master WHERE type IN ('index', 'trigger') AND tbl_name = ? AND sql IS NOT NULL")) {
+            ps.setString(1, table);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    if (!FORMAT_DEPENDENT.contains(rs.getString(1))) {
+                        dependents.add(rs.getString(2));
+                    }
+                }
+            }
+        }
+        List<String> sequence = queryStrings(connection, "SELECT seq FROM sqlite_sequence WHERE name = ?", table);
+        String columnList = String.join(", ", columns);
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate(ddl);
+            st.executeUpdate("INSERT INTO " + copy + "(" + columnList + ") SELECT " + String.join(", ", select) + " FROM " + table);
+            st.executeUpdate("DROP TABLE " + table);
+            st.executeUpdate("ALTER TABLE " + copy + " RENAME TO " + table);
+            for (String sql : dependents) {
+                st.executeUpdate(sql);
+            }
+        }
+        if (!sequence.isEmpty()) {
+            try (PreparedStatement ps = connection.prepareStatement("UPDATE sqlite_sequence SET seq = ? WHERE name = ?")) {
+                ps.setLong(1, Long.parseLong(sequence.get(0)));
+                ps.setString(2, table);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static List<String> queryStrings(Connection connection, String sql, String param) throws SQLException {
+        List<String> values = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(sql)) {
+            ps.setString(1, param);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    values.add(rs.getString(1));
+                }
+            }
+        }
+        return values;
+    }
+
+    static int currentVersion(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private void apply(Connection connection, Migration migration) throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            for (String sql : migration.statements) {
+                st.executeUpdate(sql);
+            }
+        }
+        if (migration.step != null) {
+            migration.step.run(connection);
+        }
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO schema_version(version, description, applied_at) VALUES(?,?,?)")) {
+            ps.setInt(1, migration.version);
+            ps.setString(2, migration.description);
+            ps.setString(3, LocalDateTime.now().toString());
+            ps.executeUpdate();
+        }
+    }
+
+    private interface MigrationStep {
+        void run(Connection connection) throws SQLException;
+    }
+
+    private static final class Migration {
+        private final int version;
+        private final String description;
+        private final MigrationStep step;
+        private final String[] statements;
+
+        private Migration(int version, String description, MigrationStep step, String[] statements) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+            this.statements = statements;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.ittm.repository;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU cache of compiled statements for one connection, keyed by SQL text. Callers keep using
+ * try-with-resources: closing a cached statement only clears its parameters and hands it back,
+ * and the underlying statement is closed on eviction or when the cache is closed together with
+ * its connection. A statement that is still checked out (e.g. the same SQL issued while its
+ * result set is open) is bypassed with a one-off statement instead of being shared.
+ *
+ * <p>Not thread-safe: {@link ConnectionPool} only lends a connection to one thread at a time.
+ */
+class StatementCache implements AutoCloseable {
+    private final Connection connection;
+    private final int capacity;
+    private final AtomicLong hits;
+    private final AtomicLong misses;
+    private final LinkedHashMap<String, Entry> entries;
+
+    StatementCache(Connection connection, int capacity, AtomicLong hits, AtomicLong misses) {
+        this.connection = connection;
+        this.capacity = capacity;
+        this.hits = hits;
+        this.misses = misses;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() <= StatementCache.this.capacity) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        if (capacity <= 0) {
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        String key = autoGeneratedKeys + ":" + sql;
+        Entry entry = entries.get(key);
+        if (entry != null && entry.inUse) {
+            misses.incrementAndGet();
+            return connection.prepareStatement(sql, autoGeneratedKeys);
+        }
+        if (entry == null) {
+            misses.incrementAndGet();
+            entry = new Entry(connection.prepareStatement(sql, autoGeneratedKeys));
+            entries.put(key, entry);
+        } else {
+            hits.incrementAndGet();
+        }
+        entry.inUse = true;
+        return entry.proxy;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        List<Entry> all = new ArrayList<>(entries.values());
+        entries.clear();
+        for (Entry entry : all) {
+            entry.statement.close();
+        }
+    }
+
+    private static final class Entry implements InvocationHandler {
+        private final PreparedStatement statement;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+
+        private Entry(PreparedStatement statement) {
+            this.statement = statement;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(), new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        private void evict() {
+            evicted = true;
+            if (!inUse) {
+                closeQuietly();
+            }
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (method.getName().equals("close") && method.getParameterCount() == 0) {
+                release();
+                return null;
+            }
+            if (method.getName().equals("isClosed") && method.getParameterCount() == 0) {
+                return !inUse || statement.isClosed();
+            }
+            try {
+                return method.invoke(statement, args);
+            } catch (InvocationTargetException ex) {
+                throw ex.getCause();
+            }
+        }
+
+        private void release() throws SQLException {
+            inUse = false;
+            if (evicted) {
+                statement.close();
+            } else {
+                statement.clearParameters();
+            }
+        }
+
+        private void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException ignored) {
+                // the statement is being discarded anyway
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.ittm.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns needed to schedule a ticket's escalation, without hydrating the ticket.
+ */
+public class TicketAge {
+    private final int id;
+    private final String category;
+    private final LocalDateTime createdAt;
+
+    TicketAge(int id, String category, LocalDateTime createdAt) {
+        this.id = id;
+        this.category = category;
+        this.createdAt = createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,55 @@
+package com.ittm.repository;
+
+import com.ittm.model.TicketStatus;
+
+import java.time.LocalDateTime;
+
+/**
+ * The committed ownership, status and age of a ticket, as handed to
+ * {@link DataStore#addTicketListener} listeners. Captured when the row is written, so later
+ * changes to the {@link com.ittm.model.Ticket} object do not show through.
+ */
+public class TicketChange {
+    private final int ticketId;
+    private final int requesterId;
+    private final int agentId;
+    private final TicketStatus status;
+    private final String category;
+    private final LocalDateTime createdAt;
+
+    TicketChange(int ticketId, int requesterId, int agentId, TicketStatus status, String category, LocalDateTime createdAt) {
+        this.ticketId = ticketId;
+        this.requesterId = requesterId;
+        this.agentId = agentId;
+        this.status = status;
+        this.category = category;
+        this.createdAt = createdAt;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public int getRequesterId() {
+        return requesterId;
+    }
+
+    /**
+     * The assigned agent's id, or 0 when the ticket is unassigned.
+     */
+    public int getAgentId() {
+        return agentId;
+    }
+
+    public TicketStatus getStatus() {
+        return status;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+}
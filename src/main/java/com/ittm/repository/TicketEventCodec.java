@@ -0,0 +1,175 @@
+package com.ittm.repository;
+
+import com.ittm.model.TicketEvent;
+import com.ittm.model.TicketEventType;
+import com.ittm.model.TicketState;
+import com.ittm.model.TicketStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Binary encoding of {@link TicketEvent}s and {@link TicketState} snapshots. Integers are
+ * zigzag varints, timestamps UTC epoch milliseconds (as in {@link TimestampFormat#EPOCH}),
+ * strings a varint length plus one (zero for null) followed by UTF-8, and statuses their
+ * {@link TicketStatus} ordinal, so new statuses must only ever be added at the end. The ticket id
+ * and the offset live in their own indexed columns and are not repeated here; a status change
+ * takes about ten bytes.
+ */
+final class TicketEventCodec {
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    private TicketEventCodec() {
+    }
+
+    static byte[] encode(TicketEvent event) {
+        Output out = new Output(32);
+        out.writeByte(event.getType().getCode());
+        out.writeVarint(event.getActorId());
+        out.writeVarint(event.getAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        switch (event.getType()) {
+            case CREATED -> {
+                out.writeString(event.getCategory());
+                out.writeString(event.getTitle());
+            }
+            case ASSIGNED -> out.writeVarint(event.getAgentId());
+            case STATUS_CHANGED -> out.writeByte(event.getStatus().ordinal());
+            case RATED -> {
+                out.writeVarint(event.getRating());
+                out.writeByte(event.isAgentFlagged() ? 1 : 0);
+            }
+            case NOTE_ADDED -> {
+                // the actor is the author; the note itself stays in the notes table
+            }
+        }
+        return out.toByteArray();
+    }
+
+    static TicketEvent decode(long offset, int ticketId, byte[] bytes) {
+        Input in = new Input(bytes);
+        TicketEventType type = TicketEventType.fromCode(in.readByte());
+        int actorId = (int) in.readVarint();
+        LocalDateTime at = LocalDateTime.ofInstant(Instant.ofEpochMilli(in.readVarint()), ZoneOffset.UTC);
+        TicketEvent event = switch (type) {
+            case CREATED -> TicketEvent.created(ticketId, at, actorId, in.readString(), in.readString());
+            case ASSIGNED -> TicketEvent.assigned(ticketId, at, actorId, (int) in.readVarint());
+            case STATUS_CHANGED -> TicketEvent.statusChanged(ticketId, at, actorId, STATUSES[in.readByte()]);
+            case RATED -> TicketEvent.rated(ticketId, at, actorId, (int) in.readVarint(), in.readByte() == 1);
+            case NOTE_ADDED -> TicketEvent.noteAdded(ticketId, at, actorId);
+        };
+        event.setOffset(offset);
+        return event;
+    }
+
+    static byte[] encode(TicketState state) {
+        Output out = new Output(48);
+        out.writeVarint(state.getRequesterId());
+        out.writeVarint(state.getAgentId());
+        out.writeString(state.getCategory());
+        out.writeString(state.getTitle());
+        out.writeByte(state.getStatus() == null ? 0 : state.getStatus().ordinal() + 1);
+        out.writeVarint(state.getRating() == null ? 0 : state.getRating() + 1L);
+        out.writeByte(state.isAgentFlagged() ? 1 : 0);
+        out.writeVarint(state.getNoteCount());
+        return out.toByteArray();
+    }
+
+    static TicketState decodeState(long offset, int ticketId, byte[] bytes) {
+        Input in = new Input(bytes);
+        int requesterId = (int) in.readVarint();
+        int agentId = (int) in.readVarint();
+        String category = in.readString();
+        String title = in.readString();
+        int status = in.readByte();
+        long rating = in.readVarint();
+        boolean agentFlagged = in.readByte() == 1;
+        int noteCount = (int) in.readVarint();
+        return new TicketState(ticketId, requesterId, agentId, category, title, status == 0 ? null : STATUSES[status - 1],
+                rating == 0 ? null : (int) (rating - 1), agentFlagged, noteCount, offset);
+    }
+
+    private static final class Output {
+        private byte[] buffer;
+        private int size;
+
+        private Output(int capacity) {
+            buffer = new byte[capacity];
+        }
+
+        private void writeByte(int value) {
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            buffer[size++] = (byte) value;
+        }
+
+        private void writeVarint(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        private void writeString(String value) {
+            if (value == null) {
+                writeVarint(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(utf8.length + 1L);
+            for (byte b : utf8) {
+                writeByte(b);
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(buffer, size);
+        }
+    }
+
+    private static final class Input {
+        private final byte[] bytes;
+        private int position;
+
+        private Input(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        private int readByte() {
+            if (position == bytes.length) {
+                throw new IllegalStateException("Truncated ticket event");
+            }
+            return bytes[position++] & 0xFF;
+        }
+
+        private long readVarint() {
+            long zigzag = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                zigzag |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    break;
+                }
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        private String readString() {
+            int length = (int) readVarint() - 1;
+            if (length < 0) {
+                return null;
+            }
+            if (position + length > bytes.length) {
+                throw new IllegalStateException("Truncated ticket event");
+            }
+            String value = new String(bytes, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+    }
+}
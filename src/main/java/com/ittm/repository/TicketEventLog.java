@@ -0,0 +1,198 @@
+package com.ittm.repository;
+
+import com.ittm.model.TicketEvent;
+import com.ittm.model.TicketState;
+import com.ittm.model.TicketStatus;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL for the append-only {@code ticket_events} log and its {@code ticket_snapshots}. The
+ * {@code seq} of an event is its offset. A snapshot row holds one ticket's state folded up to the
+ * {@code seq} stored with it, and every event up to the highest snapshot {@code seq} is folded,
+ * so a ticket's current state is its snapshot plus the ticket's events after that offset.
+ * Snapshots are derived data and can be dropped and rebuilt from the log at any time.
+ */
+class TicketEventLog {
+    static final String READ_SQL = "SELECT seq, ticket_id, event FROM ticket_events WHERE seq > ? ORDER BY seq LIMIT ?";
+    static final String READ_TICKET_SQL = "SELECT seq, ticket_id, event FROM ticket_events WHERE ticket_id = ? AND seq > ? ORDER BY seq";
+    static final String SNAPSHOT_SQL = "SELECT seq, state FROM ticket_snapshots WHERE ticket_id = ?";
+
+    private final DataStore dataStore;
+
+    TicketEventLog(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Inserts the event and returns the offset it was given.
+     */
+    long append(Connection connection, TicketEvent event) throws SQLException {
+        try (PreparedStatement ps = dataStore.prepare(connection, "INSERT INTO ticket_events(ticket_id, event) VALUES(?,?)",
+                Statement.RETURN_GENERATED_KEYS)) {
+            ps.setInt(1, event.getTicketId());
+            ps.setBytes(2, TicketEventCodec.encode(event));
+            ps.executeUpdate();
+            try (ResultSet keys = ps.getGeneratedKeys()) {
+                if (!keys.next()) {
+                    throw new SQLException("Event offset not generated");
+                }
+                return keys.getLong(1);
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} events after {@code offset}, in log order.
+     */
+    List<TicketEvent> read(Connection connection, long offset, int limit) throws SQLException {
+        try (PreparedStatement ps = dataStore.prepare(connection, READ_SQL)) {
+            ps.setLong(1, offset);
+            ps.setInt(2, limit);
+            return readEvents(ps, limit);
+        }
+    }
+
+    List<TicketEvent> readTicket(Connection connection, int ticketId, long offset) throws SQLException {
+        try (PreparedStatement ps = dataStore.prepare(connection, READ_TICKET_SQL)) {
+            ps.setInt(1, ticketId);
+            ps.setLong(2, offset);
+            return readEvents(ps, 16);
+        }
+    }
+
+    long lastOffset(Connection connection) throws SQLException {
+        return queryLong(connection, "SELECT COALESCE(MAX(seq), 0) FROM ticket_events");
+    }
+
+    long snapshotOffset(Connection connection) throws SQLException {
+        return queryLong(connection, "SELECT COALESCE(MAX(seq), 0) FROM ticket_snapshots");
+    }
+
+    /**
+     * The ticket's latest snapshot, or null when it has none yet.
+     */
+    TicketState loadSnapshot(Connection connection, int ticketId) throws SQLException {
+        try (PreparedStatement ps = dataStore.prepare(connection, SNAPSHOT_SQL)) {
+            ps.setInt(1, ticketId);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? TicketEventCodec.decodeState(rs.getLong(1), ticketId, rs.getBytes(2)) : null;
+            }
+        }
+    }
+
+    /**
+     * Current state of the ticket, or null when the log knows nothing about it.
+     */
+    TicketState loadState(Connection connection, int ticketId) throws SQLException {
+        TicketState state = loadSnapshot(connection, ticketId);
+        List<TicketEvent> events = readTicket(connection, ticketId, state == null ? 0 : state.getOffset());
+        if (state == null && events.isEmpty()) {
+            return null;
+        }
+        if (state == null) {
+            state = new TicketState(ticketId);
+        }
+        for (TicketEvent event : events) {
+            state.apply(event);
+        }
+        return state;
+    }
+
+    /**
+     * Every ticket's snapshot, keyed by ticket id; callers replay the events after
+     * {@link #snapshotOffset} on top.
+     */
+    Map<Integer, TicketState> loadSnapshots(Connection connection) throws SQLException {
+        Map<Integer, TicketState> states = new HashMap<>();
+        try (PreparedStatement ps = dataStore.prepare(connection, "SELECT ticket_id, seq, state FROM ticket_snapshots");
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                int ticketId = rs.getInt(1);
+                states.put(ticketId, TicketEventCodec.decodeState(rs.getLong(2), ticketId, rs.getBytes(3)));
+            }
+        }
+        return states;
+    }
+
+    /**
+     * Folds {@code events}, a run of consecutive events from the log, into the snapshots of the
+     * tickets they touch. Events a ticket's snapshot already covers are skipped, so overlapping
+     * runs are harmless. Must run in a transaction.
+     */
+    void snapshot(Connection connection, List<TicketEvent> events) throws SQLException {
+        if (events.isEmpty()) {
+            return;
+        }
+        Map<Integer, TicketState> touched = new HashMap<>();
+        for (TicketEvent event : events) {
+            TicketState state = touched.get(event.getTicketId());
+            if (state == null) {
+                state = loadSnapshot(connection, event.getTicketId());
+                if (state == null) {
+                    state = new TicketState(event.getTicketId());
+                }
+                touched.put(event.getTicketId(), state);
+            }
+            state.apply(event);
+        }
+        try (PreparedStatement ps = dataStore.prepare(connection,
+                "INSERT INTO ticket_snapshots(ticket_id, seq, state) VALUES(?,?,?) " +
+                        "ON CONFLICT(ticket_id) DO UPDATE SET seq = excluded.seq, state = excluded.state")) {
+            for (TicketState state : touched.values()) {
+                ps.setInt(1, state.getTicketId());
+                ps.setLong(2, state.getOffset());
+                ps.setBytes(3, TicketEventCodec.encode(state));
+                ps.addBatch();
+            }
+            ps.executeBatch();
+        }
+    }
+
+    /**
+     * Schema migration step: snapshots every existing ticket at offset 0 from its row, so tickets
+     * raised before the event log existed can still be rebuilt.
+     */
+    static void snapshotExistingTickets(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT t.id, t.requester_id, t.assigned_agent_id, t.category, t.title, t.status, t.rating, t.agent_flagged, " +
+                        "(SELECT COUNT(*) FROM notes n WHERE n.ticket_id = t.id) FROM tickets t");
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO ticket_snapshots(ticket_id, seq, state) VALUES(?, 0, ?)");
+             ResultSet rs = select.executeQuery()) {
+            while (rs.next()) {
+                int rating = rs.getInt(7);
+                Integer ratingOrNull = rs.wasNull() ? null : rating;
+                TicketState state = new TicketState(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getString(4), rs.getString(5),
+                        TicketStatus.valueOf(rs.getString(6)), ratingOrNull, rs.getInt(8) == 1, rs.getInt(9), 0);
+                insert.setInt(1, state.getTicketId());
+                insert.setBytes(2, TicketEventCodec.encode(state));
+                insert.executeUpdate();
+            }
+        }
+    }
+
+    private List<TicketEvent> readEvents(PreparedStatement ps, int expected) throws SQLException {
+        List<TicketEvent> events = new ArrayList<>(expected);
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                events.add(TicketEventCodec.decode(rs.getLong(1), rs.getInt(2), rs.getBytes(3)));
+            }
+        }
+        return events;
+    }
+
+    private long queryLong(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement ps = dataStore.prepare(connection, sql);
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : 0;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.ittm.repository;
+
+import com.ittm.model.TicketStatus;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ticket search criteria that {@link DataStore} turns into a parameterized WHERE clause.
+ * Unset criteria do not restrict the result.
+ */
+public class TicketFilter {
+    private TicketStatus status;
+    private LocalDate createdFrom;
+    private LocalDate createdTo;
+    private Integer requesterId;
+    private Integer agentId;
+    private String category;
+
+    public TicketFilter status(TicketStatus status) {
+        this.status = status;
+        return this;
+    }
+
+    /**
+     * Inclusive lower bound on the creation date.
+     */
+    public TicketFilter createdFrom(LocalDate createdFrom) {
+        this.createdFrom = createdFrom;
+        return this;
+    }
+
+    /**
+     * Inclusive upper bound on the creation date.
+     */
+    public TicketFilter createdTo(LocalDate createdTo) {
+        this.createdTo = createdTo;
+        return this;
+    }
+
+    public TicketFilter requesterId(Integer requesterId) {
+        this.requesterId = requesterId;
+        return this;
+    }
+
+    public TicketFilter agentId(Integer agentId) {
+        this.agentId = agentId;
+        return this;
+    }
+
+    public TicketFilter category(String category) {
+        this.category = category;
+        return this;
+    }
+
+    /**
+     * Builds the WHERE clause (without the keyword) and appends its parameters, with timestamps
+     * encoded in the database's {@code format}, to {@code params}.
+     * When {@code after} is set the clause also seeks past that (created_at, id) position.
+     */
+    String toWhereClause(TimestampFormat format, PageCursor after, List<Object> params) {
+        List<String> conditions = new ArrayList<>();
+        if (status != null) {
+            conditions.add("status = ?");
+            params.add(status.name());
+        }
+        if (createdFrom != null) {
+            conditions.add("created_at >= ?");
+            params.add(format.encode(createdFrom.atStartOfDay()));
+        }
+        if (createdTo != null) {
+            conditions.add("created_at < ?");
+            params.add(format.encode(createdTo.plusDays(1).atStartOfDay()));
+        }
+        if (requesterId != null) {
+            conditions.add("requester_id = ?");
+            params.add(requesterId);
+        }
+        if (agentId != null) {
+            conditions.add("assigned_agent_id = ?");
+            params.add(agentId);
+        }
+        if (category != null) {
+            conditions.add("category = ?");
+            params.add(category);
+        }
+        if (after != null) {
+            conditions.add("(created_at, id) > (?, ?)");
+            params.add(format.encode(after.getCreatedAt()));
+            params.add(after.getId());
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    static String pageOrder(int limit) {
+        return limit > 0 ? "ORDER BY created_at, id LIMIT " + limit : "ORDER BY created_at, id";
+    }
+}
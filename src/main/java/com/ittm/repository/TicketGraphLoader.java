@@ -0,0 +1,300 @@
+package com.ittm.repository;
+
+import com.ittm.model.Note;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketHistoryEntry;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Hydrates tickets together with their requester, agent, notes and history using a fixed
+ * number of set-based queries ({@link FetchPlan#SUMMARY} skips the note and history queries
+ * and leaves them to per-ticket lazy loaders). The ticket set is described by a WHERE clause over the
+ * {@code tickets} table which is reused as a sub-select for the dependent tables, so the
+ * number of statements per call does not grow with the number of tickets. Users are resolved
+ * through the store's {@link UserCache} first, so with a warm cache only the ticket, note and
+ * history queries run.
+ */
+class TicketGraphLoader {
+    /**
+     * Largest number of uncached user ids fetched with an explicit IN list; beyond that the
+     * users are selected through the ticket filter sub-select instead.
+     */
+    private static final int MAX_ID_LIST = 500;
+
+    private final DataStore dataStore;
+
+    TicketGraphLoader(DataStore dataStore) {
+        this.dataStore = dataStore;
+    }
+
+    /**
+     * Loads every ticket matching {@code where} (may be empty) ordered by id.
+     */
+    List<Ticket> load(Connection connection, FetchPlan plan, String where, Object... params) throws SQLException {
+        return load(connection, plan, where, "ORDER BY id", params);
+    }
+
+    /**
+     * Loads the tickets matching {@code where}, ordered and limited by {@code orderBy}
+     * (e.g. {@code "ORDER BY created_at, id LIMIT 50"}). The clause is repeated in the
+     * dependent sub-selects so notes and history are fetched for exactly the same page.
+     */
+    List<Ticket> load(Connection connection, FetchPlan plan, String where, String orderBy, Object... params) throws SQLException {
+        String ticketFilter = ticketFilter(where, orderBy);
+        Map<Integer, TicketRow> rows = loadRows(connection, ticketFilter, params);
+        if (rows.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, User> users = resolveUsers(connection, rows.values(), ticketFilter, params);
+        Map<Integer, Ticket> tickets = new LinkedHashMap<>();
+        for (TicketRow row : rows.values()) {
+            tickets.put(row.id, row.toTicket(users));
+        }
+        if (plan == FetchPlan.FULL) {
+            loadNotes(connection, ticketFilter, params, (id, note) -> tickets.get(id).getNotes().add(note));
+            loadHistory(connection, ticketFilter, params, (id, entry) -> tickets.get(id).getHistory().add(entry));
+        } else {
+            for (Ticket ticket : tickets.values()) {
+                int id = ticket.getId();
+                ticket.setNotesLoader(() -> dataStore.loadNotes(id));
+                ticket.setHistoryLoader(() -> dataStore.loadHistory(id));
+            }
+        }
+        return new ArrayList<>(tickets.values());
+    }
+
+    /**
+     * Loads the notes of one ticket, oldest first.
+     */
+    List<Note> notesOf(Connection connection, int ticketId) throws SQLException {
+        List<Note> notes = new ArrayList<>();
+        loadNotes(connection, ticketFilter("id = ?", "ORDER BY id"), new Object[]{ticketId}, (id, note) -> notes.add(note));
+        return notes;
+    }
+
+    /**
+     * Loads the history of one ticket, oldest first.
+     */
+    List<TicketHistoryEntry> historyOf(Connection connection, int ticketId) throws SQLException {
+        List<TicketHistoryEntry> history = new ArrayList<>();
+        loadHistory(connection, ticketFilter("id = ?", "ORDER BY id"), new Object[]{ticketId}, (id, entry) -> history.add(entry));
+        return history;
+    }
+
+    /**
+     * Returns the statements issued by {@link #load(Connection, FetchPlan, String, String, Object...)} for the given filter,
+     * in execution order. Used to inspect their query plans.
+     */
+    static List<String> statements(String where, String orderBy) {
+        String ticketFilter = ticketFilter(where, orderBy);
+        return List.of(rowsSql(ticketFilter), usersSql(ticketFilter), notesSql(ticketFilter), historySql(ticketFilter));
+    }
+
+    private static String ticketFilter(String where, String orderBy) {
+        return "SELECT %s FROM tickets" + (where.isEmpty() ? "" : " WHERE " + where) + " " + orderBy;
+    }
+
+    private static String rowsSql(String ticketFilter) {
+        return ticketFilter.formatted("*");
+    }
+
+    private static String usersSql(String ticketFilter) {
+        return "SELECT id, name, role FROM users WHERE id IN (" + ticketFilter.formatted("requester_id") + ")" +
+                " OR id IN (" + ticketFilter.formatted("assigned_agent_id") + ")";
+    }
+
+    private static String notesSql(String ticketFilter) {
+        return "SELECT * FROM notes WHERE ticket_id IN (" + ticketFilter.formatted("id") + ") ORDER BY ticket_id, created_at, id";
+    }
+
+    private static String historySql(String ticketFilter) {
+        return "SELECT * FROM ticket_history WHERE ticket_id IN (" + ticketFilter.formatted("id") + ") ORDER BY ticket_id, timestamp, id";
+    }
+
+    private Map<Integer, TicketRow> loadRows(Connection connection, String ticketFilter, Object[] params) throws SQLException {
+        Map<Integer, TicketRow> rows = new LinkedHashMap<>();
+        try (PreparedStatement ps = dataStore.prepare(connection, rowsSql(ticketFilter))) {
+            bind(ps, 0, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    TicketRow row = new TicketRow(rs, dataStore.getTimestampFormat());
+                    rows.put(row.id, row);
+                }
+            }
+        }
+        dataStore.getMetrics().rowsHydrated(rows.size());
+        return rows;
+    }
+
+    private Map<Integer, User> resolveUsers(Connection connection, Collection<TicketRow> rows, String ticketFilter,
+                                            Object[] params) throws SQLException {
+        UserCache cache = dataStore.userCache();
+        Map<Integer, User> users = new HashMap<>();
+        Set<Integer> missing = new LinkedHashSet<>();
+        for (TicketRow row : rows) {
+            resolveCached(cache, row.requesterId, users, missing);
+            if (row.assignedAgentId != null) {
+                resolveCached(cache, row.assignedAgentId, users, missing);
+            }
+        }
+        if (missing.isEmpty()) {
+            return users;
+        }
+        long generation = dataStore.userLoadGeneration();
+        if (missing.size() <= MAX_ID_LIST) {
+            String placeholders = String.join(",", Collections.nCopies(missing.size(), "?"));
+            try (PreparedStatement ps = dataStore.prepare(connection, "SELECT id, name, role FROM users WHERE id IN (" + placeholders + ")")) {
+                bind(ps, 0, missing.toArray());
+                dataStore.getMetrics().rowsHydrated(readUsers(ps, cache, generation, users));
+            }
+        } else {
+            try (PreparedStatement ps = dataStore.prepare(connection, usersSql(ticketFilter))) {
+                bind(ps, bind(ps, 0, params), params);
+                dataStore.getMetrics().rowsHydrated(readUsers(ps, cache, generation, users));
+            }
+        }
+        return users;
+    }
+
+    private static void resolveCached(UserCache cache, int id, Map<Integer, User> users, Set<Integer> missing) {
+        if (users.containsKey(id) || missing.contains(id)) {
+            return;
+        }
+        User cached = cache.get(id);
+        if (cached != null) {
+            users.put(id, cached);
+        } else {
+            missing.add(id);
+        }
+    }
+
+    private static int readUsers(PreparedStatement ps, UserCache cache, long generation, Map<Integer, User> users) throws SQLException {
+        int count = 0;
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                User user = DataStore.mapUser(rs);
+                cache.put(user, generation);
+                users.putIfAbsent(user.getId(), user);
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void loadNotes(Connection connection, String ticketFilter, Object[] params, BiConsumer<Integer, Note> sink) throws SQLException {
+        TimestampFormat format = dataStore.getTimestampFormat();
+        try (PreparedStatement ps = dataStore.prepare(connection, notesSql(ticketFilter))) {
+            bind(ps, 0, params);
+            int count = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    count++;
+                    sink.accept(rs.getInt("ticket_id"), new Note(
+                            rs.getInt("author_id"),
+                            rs.getString("author_name"),
+                            rs.getString("message"),
+                            format.readDateTime(rs, "created_at")
+                    ));
+                }
+            }
+            dataStore.getMetrics().rowsHydrated(count);
+        }
+    }
+
+    private void loadHistory(Connection connection, String ticketFilter, Object[] params,
+                             BiConsumer<Integer, TicketHistoryEntry> sink) throws SQLException {
+        TimestampFormat format = dataStore.getTimestampFormat();
+        try (PreparedStatement ps = dataStore.prepare(connection, historySql(ticketFilter))) {
+            bind(ps, 0, params);
+            int count = 0;
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    count++;
+                    sink.accept(rs.getInt("ticket_id"), new TicketHistoryEntry(
+                            format.readDateTime(rs, "timestamp"),
+                            rs.getString("action"),
+                            rs.getString("performed_by")
+                    ));
+                }
+            }
+            dataStore.getMetrics().rowsHydrated(count);
+        }
+    }
+
+    private static int bind(PreparedStatement ps, int offset, Object[] params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            ps.setObject(offset + i + 1, params[i]);
+        }
+        return offset + params.length;
+    }
+
+    /**
+     * Raw ticket columns kept until the referenced users have been loaded.
+     */
+    private static final class TicketRow {
+        private final int id;
+        private final int requesterId;
+        private final Integer assignedAgentId;
+        private final String category;
+        private final String title;
+        private final String description;
+        private final String status;
+        private final LocalDateTime createdAt;
+        private final LocalDateTime updatedAt;
+        private final Integer rating;
+        private final boolean agentFlagged;
+        private final int version;
+
+        private TicketRow(ResultSet rs, TimestampFormat format) throws SQLException {
+            id = rs.getInt("id");
+            requesterId = rs.getInt("requester_id");
+            int agentId = rs.getInt("assigned_agent_id");
+            assignedAgentId = rs.wasNull() ? null : agentId;
+            category = rs.getString("category");
+            title = rs.getString("title");
+            description = rs.getString("description");
+            status = rs.getString("status");
+            createdAt = format.readDateTime(rs, "created_at");
+            updatedAt = format.readDateTime(rs, "updated_at");
+            int score = rs.getInt("rating");
+            rating = rs.wasNull() ? null : score;
+            agentFlagged = rs.getInt("agent_flagged") == 1;
+            version = rs.getInt("version");
+        }
+
+        private Ticket toTicket(Map<Integer, User> users) {
+            User requester = users.get(requesterId);
+            if (requester == null) {
+                throw new IllegalStateException("Requester missing for ticket " + id);
+            }
+            Ticket ticket = new Ticket(id, requester, title, description, category, createdAt);
+            if (assignedAgentId != null) {
+                ticket.setAssignedAgent(users.get(assignedAgentId));
+            }
+            ticket.setStatus(TicketStatus.valueOf(status));
+            ticket.setUpdatedAt(updatedAt);
+            ticket.setRating(rating);
+            ticket.setAgentFlagged(agentFlagged);
+            ticket.setVersion(version);
+            ticket.clearChangedFields();
+            return ticket;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.ittm.repository;
+
+/**
+ * Receives the ownership columns of one ticket row, without hydrating the ticket or boxing the
+ * ids. {@code agentId} is 0 for an unassigned ticket.
+ */
+public interface TicketOwnerVisitor {
+    void visit(int ticketId, int requesterId, int agentId);
+}
@@ -0,0 +1,27 @@
+package com.ittm.repository;
+
+import com.ittm.model.Ticket;
+
+import java.util.List;
+import java.util.Optional;
+
+public class TicketPage {
+    private final List<Ticket> tickets;
+    private final PageCursor next;
+
+    TicketPage(List<Ticket> tickets, PageCursor next) {
+        this.tickets = tickets;
+        this.next = next;
+    }
+
+    public List<Ticket> getTickets() {
+        return tickets;
+    }
+
+    /**
+     * Cursor for the following page, empty when this is the last page.
+     */
+    public Optional<PageCursor> getNext() {
+        return Optional.ofNullable(next);
+    }
+}
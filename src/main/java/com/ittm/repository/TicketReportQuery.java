@@ -0,0 +1,48 @@
+package com.ittm.repository;
+
+import java.time.LocalDate;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Date range and grouping of a resolved/reopened ticket report. Tickets are attributed to the
+ * month of their last update; unset bounds do not restrict the report.
+ */
+public class TicketReportQuery {
+    private LocalDate from;
+    private LocalDate to;
+    private final Set<ReportDimension> dimensions = EnumSet.noneOf(ReportDimension.class);
+
+    /**
+     * Inclusive lower bound on the last update date.
+     */
+    public TicketReportQuery from(LocalDate from) {
+        this.from = from;
+        return this;
+    }
+
+    /**
+     * Inclusive upper bound on the last update date.
+     */
+    public TicketReportQuery to(LocalDate to) {
+        this.to = to;
+        return this;
+    }
+
+    public TicketReportQuery groupBy(ReportDimension dimension) {
+        dimensions.add(dimension);
+        return this;
+    }
+
+    LocalDate getFrom() {
+        return from;
+    }
+
+    LocalDate getTo() {
+        return to;
+    }
+
+    Set<ReportDimension> getDimensions() {
+        return dimensions;
+    }
+}
@@ -0,0 +1,53 @@
+package com.ittm.repository;
+
+import com.ittm.model.User;
+
+import java.time.YearMonth;
+
+/**
+ * One group of a ticket report. {@code category} and {@code agent} are only set when the
+ * report is grouped by them ({@code agent} is also null for the unassigned group).
+ */
+public class TicketReportRow {
+    private final YearMonth month;
+    private final String category;
+    private final User agent;
+    private final long resolved;
+    private final long reopened;
+
+    TicketReportRow(YearMonth month, String category, User agent, long resolved, long reopened) {
+        this.month = month;
+        this.category = category;
+        this.agent = agent;
+        this.resolved = resolved;
+        this.reopened = reopened;
+    }
+
+    public YearMonth getMonth() {
+        return month;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public User getAgent() {
+        return agent;
+    }
+
+    public long getResolved() {
+        return resolved;
+    }
+
+    public long getReopened() {
+        return reopened;
+    }
+
+    @Override
+    public String toString() {
+        return month +
+                (category != null ? " " + category : "") +
+                (agent != null ? " " + agent.getName() : "") +
+                " resolved=" + resolved + ", reopened=" + reopened;
+    }
+}
@@ -0,0 +1,37 @@
+package com.ittm.repository;
+
+import com.ittm.model.Ticket;
+
+/**
+ * One ranked result of a {@link TicketTextQuery}. {@code score} is the BM25 rank of the best
+ * matching ticket text or note (lower is better) and {@code snippet} an excerpt of that text
+ * with the matched words in [brackets].
+ */
+public class TicketSearchHit {
+    private final Ticket ticket;
+    private final double score;
+    private final String snippet;
+
+    TicketSearchHit(Ticket ticket, double score, String snippet) {
+        this.ticket = ticket;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    public Ticket getTicket() {
+        return ticket;
+    }
+
+    public double getScore() {
+        return score;
+    }
+
+    public String getSnippet() {
+        return snippet;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + ticket.getId() + " " + ticket.getTitle() + " (" + ticket.getStatus() + "): " + snippet;
+    }
+}
@@ -0,0 +1,58 @@
+package com.ittm.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Free-text search over ticket titles, descriptions and notes. Every word must occur in the
+ * ticket text or in one single note (words are stemmed, so "printers" finds "printer"); a
+ * trailing {@code *} turns a word into a prefix, e.g. {@code "netw*"}, which is indexed for
+ * prefixes of up to four characters. Other punctuation is ignored, so user input never
+ * produces an invalid FTS5 query.
+ */
+public class TicketTextQuery {
+    private final String text;
+    private Integer requesterId;
+    private int limit = 20;
+
+    public TicketTextQuery(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Restricts the search to the tickets raised by one requester.
+     */
+    public TicketTextQuery requesterId(Integer requesterId) {
+        this.requesterId = requesterId;
+        return this;
+    }
+
+    public TicketTextQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    Integer getRequesterId() {
+        return requesterId;
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    /**
+     * The FTS5 MATCH expression for the text: one quoted phrase per word, {@code *} kept as a
+     * prefix marker. Empty when the text holds no searchable word.
+     */
+    String toMatchExpression() {
+        List<String> terms = new ArrayList<>();
+        for (String word : text == null ? new String[0] : text.split("[^\\p{L}\\p{N}*]+")) {
+            boolean prefix = word.endsWith("*");
+            String term = word.replace("*", "");
+            if (!term.isEmpty()) {
+                terms.add("\"" + term + "\"" + (prefix ? "*" : ""));
+            }
+        }
+        return String.join(" ", terms);
+    }
+}
@@ -0,0 +1,128 @@
+package com.ittm.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * How the timestamp columns ({@code created_at}, {@code updated_at}, {@code timestamp}) and the
+ * {@code expiry_date} column are stored. The rollup day of {@code ticket_daily_stats} stays
+ * {@code YYYY-MM-DD} text in both formats.
+ */
+public enum TimestampFormat {
+    /**
+     * {@code LocalDateTime.toString()} / {@code LocalDate.toString()} text, parsed on every read.
+     */
+    ISO_TEXT {
+        @Override
+        Object encode(LocalDateTime value) {
+            return value.toString();
+        }
+
+        @Override
+        Object encode(LocalDate value) {
+            return value.toString();
+        }
+
+        @Override
+        LocalDateTime readDateTime(ResultSet rs, String column) throws SQLException {
+            String value = rs.getString(column);
+            return value == null ? null : LocalDateTime.parse(value);
+        }
+
+        @Override
+        LocalDateTime readDateTime(ResultSet rs, int column) throws SQLException {
+            String value = rs.getString(column);
+            return value == null ? null : LocalDateTime.parse(value);
+        }
+
+        @Override
+        LocalDate readDate(ResultSet rs, String column) throws SQLException {
+            String value = rs.getString(column);
+            return value == null ? null : LocalDate.parse(value);
+        }
+
+        @Override
+        String dayOf(String column) {
+            return "substr(" + column + ", 1, 10)";
+        }
+
+        @Override
+        String monthOf(String column) {
+            return "CAST(substr(" + column + ", 6, 2) AS INTEGER)";
+        }
+    },
+    /**
+     * Timestamps as INTEGER milliseconds and dates as INTEGER days since 1970-01-01, both taken
+     * as UTC wall time, so they are read without a String per column and compared as integers.
+     * Sub-millisecond precision is dropped.
+     */
+    EPOCH {
+        @Override
+        Object encode(LocalDateTime value) {
+            return value.toEpochSecond(ZoneOffset.UTC) * 1_000 + value.getNano() / 1_000_000;
+        }
+
+        @Override
+        Object encode(LocalDate value) {
+            return value.toEpochDay();
+        }
+
+        @Override
+        LocalDateTime readDateTime(ResultSet rs, String column) throws SQLException {
+            long millis = rs.getLong(column);
+            return rs.wasNull() ? null : ofEpochMilli(millis);
+        }
+
+        @Override
+        LocalDateTime readDateTime(ResultSet rs, int column) throws SQLException {
+            long millis = rs.getLong(column);
+            return rs.wasNull() ? null : ofEpochMilli(millis);
+        }
+
+        @Override
+        LocalDate readDate(ResultSet rs, String column) throws SQLException {
+            long day = rs.getLong(column);
+            return rs.wasNull() ? null : LocalDate.ofEpochDay(day);
+        }
+
+        @Override
+        String dayOf(String column) {
+            return "date(" + column + " / 1000, 'unixepoch')";
+        }
+
+        @Override
+        String monthOf(String column) {
+            return "CAST(strftime('%m', " + column + " / 1000, 'unixepoch') AS INTEGER)";
+        }
+    };
+
+    /**
+     * The value to bind for a timestamp parameter or column.
+     */
+    abstract Object encode(LocalDateTime value);
+
+    abstract Object encode(LocalDate value);
+
+    abstract LocalDateTime readDateTime(ResultSet rs, String column) throws SQLException;
+
+    abstract LocalDateTime readDateTime(ResultSet rs, int column) throws SQLException;
+
+    abstract LocalDate readDate(ResultSet rs, String column) throws SQLException;
+
+    /**
+     * SQL expression for the {@code YYYY-MM-DD} day of a timestamp column.
+     */
+    abstract String dayOf(String column);
+
+    /**
+     * SQL expression for the month number (1-12) of a timestamp column.
+     */
+    abstract String monthOf(String column);
+
+    private static LocalDateTime ofEpochMilli(long millis) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1_000), Math.floorMod(millis, 1_000) * 1_000_000, ZoneOffset.UTC);
+    }
+}
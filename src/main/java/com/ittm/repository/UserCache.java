@@ -0,0 +1,80 @@
+package com.ittm.repository;
+
+import com.ittm.model.User;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Size-bounded LRU cache of users by id, read through by every {@link DataStore} path that
+ * resolves a user. {@link DataStore#saveUser(User)} invalidates the entry it writes once the
+ * write commits; loads that started before an invalidation are not cached, so a concurrent reader
+ * cannot re-insert a stale copy. {@link User} is mutable, so the cache keeps its own copy and
+ * hands every caller a fresh one: changing a loaded user never changes what others see.
+ */
+class UserCache {
+    /**
+     * Load generation that never matches, for loads whose rows must not be cached.
+     */
+    static final long UNCACHEABLE = -1;
+
+    private final int capacity;
+    private final LinkedHashMap<Integer, User> users;
+    private long generation;
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    UserCache(int capacity) {
+        this.capacity = capacity;
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, User> eldest) {
+                if (size() > UserCache.this.capacity) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached user or null, counting the lookup as a hit or miss.
+     */
+    synchronized User get(int id) {
+        User user = users.get(id);
+        if (user == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return copy(user);
+    }
+
+    /**
+     * Token to pass to {@link #put(User, long)} for a load that starts now.
+     */
+    synchronized long generation() {
+        return generation;
+    }
+
+    synchronized void put(User user, long loadGeneration) {
+        if (capacity > 0 && loadGeneration == generation) {
+            users.put(user.getId(), copy(user));
+        }
+    }
+
+    synchronized void invalidate(int id) {
+        generation++;
+        users.remove(id);
+    }
+
+    synchronized CacheStats stats() {
+        return new CacheStats(hits, misses, evictions, users.size());
+    }
+
+    private static User copy(User user) {
+        return new User(user.getId(), user.getName(), user.getRole());
+    }
+}
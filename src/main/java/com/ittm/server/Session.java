@@ -0,0 +1,248 @@
+package com.ittm.server;
+
+import com.ittm.model.ChangeRequest;
+import com.ittm.model.Role;
+import com.ittm.model.Ticket;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.FetchPlan;
+import com.ittm.service.ChangeRequestService;
+import com.ittm.service.TicketService;
+import com.ittm.service.UserService;
+import com.ittm.util.DateTimeUtil;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * One client connection of a {@link SessionServer}: reads command lines and answers each with
+ * one {@code OK [text]} or {@code ERR <message>} line, or for listings with {@code LIST <n>}
+ * followed by {@code n} result lines.
+ * Every command except {@code LOGIN} and {@code QUIT} requires a logged-in user, and the
+ * services enforce the role rules exactly as they do for the console.
+ *
+ * <pre>
+ * LOGIN userId                       CREATE category|title|description
+ * VIEW [limit]                       SHOW ticketId
+ * NOTE ticketId text                 STATUS ticketId IN_PROGRESS|AWAITING_RESPONSE|RESOLVED
+ * AWAIT ticketId message             REOPEN ticketId reason
+ * RATE ticketId 1-5                  REASSIGN ticketId agentId reason
+ * SEARCH words                       REPORT
+ * CHANGE yyyy-MM-dd title|description
+ * APPROVE changeId y|n               IMPLEMENT changeId note
+ * EXPIRING days                      QUIT
+ * </pre>
+ */
+class Session implements Runnable {
+    private static final int DEFAULT_VIEW_LIMIT = 50;
+    private static final int SEARCH_LIMIT = 20;
+
+    private final Socket socket;
+    private final UserService userService;
+    private final TicketService ticketService;
+    private final ChangeRequestService changeRequestService;
+    private final Consumer<Session> onClose;
+    private User user;
+
+    Session(Socket socket, UserService userService, TicketService ticketService, ChangeRequestService changeRequestService,
+            Consumer<Session> onClose) {
+        this.socket = socket;
+        this.userService = userService;
+        this.ticketService = ticketService;
+        this.changeRequestService = changeRequestService;
+        this.onClose = onClose;
+    }
+
+    @Override
+    public void run() {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String[] parts = line.trim().split(" ", 2);
+                String command = parts[0].toUpperCase();
+                if (command.isEmpty()) {
+                    continue;
+                }
+                if (command.equals("QUIT")) {
+                    out.write("OK BYE\n");
+                    out.flush();
+                    return;
+                }
+                out.write(respond(command, parts.length > 1 ? parts[1].trim() : ""));
+                out.flush();
+            }
+        } catch (IOException ex) {
+            // client went away or the server is closing; nothing to answer
+        } finally {
+            onClose.accept(this);
+        }
+    }
+
+    /**
+     * Closes the connection, which ends {@link #run()} at its next read.
+     */
+    void close() {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // already closed
+        }
+    }
+
+    private String respond(String command, String args) {
+        try {
+            if (command.equals("LOGIN")) {
+                return login(args);
+            }
+            if (user == null) {
+                return "ERR Login first\n";
+            }
+            return switch (command) {
+                case "CREATE" -> create(args);
+                case "VIEW" -> view(args);
+                case "SHOW" -> show(args);
+                case "NOTE" -> {
+                    String[] note = fields(args, 2, " ");
+                    ticketService.addNote(user, number(note[0]), note[1]);
+                    yield "OK\n";
+                }
+                case "STATUS" -> {
+                    String[] status = fields(args, 2, " ");
+                    ticketService.updateStatus(user, number(status[0]), TicketStatus.valueOf(status[1].toUpperCase()));
+                    yield "OK\n";
+                }
+                case "AWAIT" -> {
+                    String[] await = fields(args, 2, " ");
+                    ticketService.closeOrAwait(user, number(await[0]), false, await[1]);
+                    yield "OK\n";
+                }
+                case "REOPEN" -> {
+                    String[] reopen = fields(args, 2, " ");
+                    ticketService.reopen(user, number(reopen[0]), reopen[1]);
+                    yield "OK\n";
+                }
+                case "RATE" -> {
+                    String[] rate = fields(args, 2, " ");
+                    ticketService.addRating(user, number(rate[0]), number(rate[1]));
+                    yield "OK\n";
+                }
+                case "REASSIGN" -> reassign(args);
+                case "SEARCH" -> lines(ticketService.searchText(user, args, SEARCH_LIMIT).stream()
+                        .map(Object::toString).collect(Collectors.toList()));
+                case "REPORT" -> lines(ticketService.monthlyReport().stream().map(Object::toString).collect(Collectors.toList()));
+                case "CHANGE" -> raiseChange(args);
+                case "APPROVE" -> {
+                    String[] approve = fields(args, 2, " ");
+                    changeRequestService.approve(user, number(approve[0]), approve[1].equalsIgnoreCase("y"));
+                    yield "OK\n";
+                }
+                case "IMPLEMENT" -> {
+                    String[] implement = fields(args, 2, " ");
+                    changeRequestService.implement(user, number(implement[0]), implement[1]);
+                    yield "OK\n";
+                }
+                case "EXPIRING" -> lines(changeRequestService.expiringWithin(number(args)).stream()
+                        .map(cr -> cr.getId() + " " + cr.getStatus() + " " + cr.getExpiryDate() + " " + cr.getTitle())
+                        .collect(Collectors.toList()));
+                default -> "ERR Unknown command " + command + "\n";
+            };
+        } catch (RuntimeException ex) {
+            return "ERR " + singleLine(ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName()) + "\n";
+        }
+    }
+
+    private String login(String args) {
+        User found = userService.findUser(number(args)).orElse(null);
+        if (found == null) {
+            return "ERR Unknown user\n";
+        }
+        user = found;
+        return "OK " + user.getName() + " " + user.getRole() + "\n";
+    }
+
+    private String create(String args) {
+        String[] ticket = fields(args, 3, "\\|");
+        return "OK " + ticketService.createTicket(user, ticket[1], ticket[2], ticket[0]).getId() + "\n";
+    }
+
+    /**
+     * Lists the user's tickets from a keyset-batched stream, so a long list never sits in memory.
+     */
+    private String view(String args) {
+        int limit = args.isEmpty() ? DEFAULT_VIEW_LIMIT : number(args);
+        return lines(ticketService.streamTicketsForUser(user, FetchPlan.SUMMARY)
+                .limit(limit)
+                .map(ticket -> ticket.getId() + " " + ticket.getStatus() + " " + ticket.getCategory() + " " + ticket.getTitle())
+                .collect(Collectors.toList()));
+    }
+
+    private String show(String args) {
+        Ticket ticket = ticketService.findTicket(number(args));
+        if (user.getRole() == Role.USER && ticket.getRequester().getId() != user.getId()) {
+            return "ERR Not your ticket\n";
+        }
+        List<String> lines = new ArrayList<>();
+        lines.add(ticket.getId() + " " + ticket.getStatus() + " " + ticket.getTitle() + " requester:" + ticket.getRequester().getName()
+                + " assigned:" + (ticket.getAssignedAgent() != null ? ticket.getAssignedAgent().getName() : "N/A")
+                + " rating:" + ticket.getRating());
+        ticket.getNotes().forEach(note -> lines.add("note " + note));
+        ticket.getHistory().forEach(entry -> lines.add("history " + entry));
+        return lines(lines);
+    }
+
+    private String reassign(String args) {
+        String[] reassign = fields(args, 3, " ");
+        User agent = userService.findUser(number(reassign[1]))
+                .orElseThrow(() -> new IllegalArgumentException("Unknown agent"));
+        ticketService.reassign(user, number(reassign[0]), agent, reassign[2]);
+        return "OK\n";
+    }
+
+    private String raiseChange(String args) {
+        String[] change = fields(args, 2, " ");
+        String[] text = fields(change[1], 2, "\\|");
+        ChangeRequest cr = changeRequestService.raise(user, text[0], text[1], DateTimeUtil.parseDate(change[0]));
+        return "OK " + cr.getId() + "\n";
+    }
+
+    private static String[] fields(String args, int count, String separator) {
+        String[] fields = args.split(separator, count);
+        if (fields.length < count) {
+            throw new IllegalArgumentException("Expected " + count + " arguments");
+        }
+        for (int i = 0; i < fields.length; i++) {
+            fields[i] = fields[i].trim();
+        }
+        return fields;
+    }
+
+    private static int number(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Expected a number but got '" + value + "'");
+        }
+    }
+
+    private static String lines(List<String> lines) {
+        StringBuilder response = new StringBuilder("LIST ").append(lines.size()).append('\n');
+        lines.forEach(line -> response.append(singleLine(line)).append('\n'));
+        return response.toString();
+    }
+
+    private static String singleLine(String text) {
+        return text.replace('\r', ' ').replace('\n', ' ');
+    }
+}
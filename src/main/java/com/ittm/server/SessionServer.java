@@ -0,0 +1,207 @@
+package com.ittm.server;
+
+import com.ittm.repository.DataStore;
+import com.ittm.repository.DataStoreConfig;
+import com.ittm.repository.Durability;
+import com.ittm.service.ChangeRequestService;
+import com.ittm.service.TicketService;
+import com.ittm.service.UserService;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TCP front end that serves many concurrent logged-in users over the line protocol described in
+ * {@link Session}. Each connection runs on its own thread calling the shared services directly;
+ * the services and {@link DataStore} are already safe for concurrent use (pooled WAL readers,
+ * one serialized writer, synchronized in-memory trackers).
+ *
+ * <p>Sessions run on virtual threads when the JVM offers them (Java 21+). The executor is looked
+ * up reflectively so the code still targets Java 17, where it falls back to a cached pool of
+ * platform threads with small stacks; a session blocked on its socket or on a database
+ * connection then holds a platform thread.
+ */
+public class SessionServer implements AutoCloseable {
+    private static final int ACCEPT_BACKLOG = 4_096;
+    private static final long PLATFORM_STACK_BYTES = 256 * 1024;
+    private static final Duration IDLE_TIMEOUT = Duration.ofMinutes(30);
+    private static final long ACCEPT_RETRY_MILLIS = 100;
+
+    private final UserService userService;
+    private final TicketService ticketService;
+    private final ChangeRequestService changeRequestService;
+    private final ExecutorService executor;
+    private final boolean virtualThreads;
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sessionCount = new AtomicLong();
+    private ServerSocket serverSocket;
+    private Thread acceptor;
+    private volatile boolean closed;
+
+    public SessionServer(UserService userService, TicketService ticketService, ChangeRequestService changeRequestService) {
+        this.userService = userService;
+        this.ticketService = ticketService;
+        this.changeRequestService = changeRequestService;
+        ExecutorService virtual = newVirtualThreadExecutor();
+        this.virtualThreads = virtual != null;
+        this.executor = virtual != null ? virtual : newPlatformThreadExecutor("ittm-session-");
+    }
+
+    /**
+     * Listens on {@code port} (0 picks a free port, see {@link #getPort()}) and accepts
+     * connections on a background thread until {@link #close()}.
+     */
+    public synchronized void start(int port) throws IOException {
+        if (serverSocket != null) {
+            throw new IllegalStateException("Server already started");
+        }
+        serverSocket = new ServerSocket(port, ACCEPT_BACKLOG);
+        acceptor = new Thread(this::acceptLoop, "ittm-session-acceptor");
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Number of currently connected sessions.
+     */
+    public int getActiveSessions() {
+        return sessions.size();
+    }
+
+    /**
+     * Number of sessions accepted since the server started.
+     */
+    public long getSessionCount() {
+        return sessionCount.get();
+    }
+
+    public boolean usesVirtualThreads() {
+        return virtualThreads;
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException ex) {
+                return;
+            } catch (IOException ex) {
+                // e.g. out of file descriptors: give sessions a chance to finish instead of spinning
+                try {
+                    Thread.sleep(ACCEPT_RETRY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            try {
+                socket.setTcpNoDelay(true);
+                socket.setSoTimeout((int) IDLE_TIMEOUT.toMillis());
+            } catch (IOException ex) {
+                // the client went away before it could be served; don't leak its socket
+                try {
+                    socket.close();
+                } catch (IOException ignored) {
+                    // already broken
+                }
+                continue;
+            }
+            Session session = new Session(socket, userService, ticketService, changeRequestService, sessions::remove);
+            sessions.add(session);
+            sessionCount.incrementAndGet();
+            executor.execute(session);
+        }
+    }
+
+    /**
+     * Stops accepting, disconnects every session and waits briefly for their threads to finish.
+     * If the calling thread is interrupted it stops waiting and keeps its interrupt status.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (serverSocket != null) {
+                try {
+                    serverSocket.close();
+                } catch (IOException ex) {
+                    // accept loop ends either way
+                }
+            }
+        }
+        sessions.forEach(Session::close);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(5, TimeUnit.SECONDS);
+            if (acceptor != null) {
+                acceptor.join();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns {@code Executors.newVirtualThreadPerTaskExecutor()} when the running JVM has it
+     * (Java 21+), otherwise null.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException ex) {
+            // Java 17, or 19/20 without --enable-preview
+            return null;
+        }
+    }
+
+    /**
+     * Cached pool of platform threads with {@value #PLATFORM_STACK_BYTES}-byte stacks, so
+     * thousands of mostly idle sessions fit in one JVM without virtual threads.
+     */
+    public static ExecutorService newPlatformThreadExecutor(String namePrefix) {
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(null, runnable, namePrefix + sequence.incrementAndGet(), PLATFORM_STACK_BYTES);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Serves a database over TCP. Arguments: [port] [database file]. The file must not be open in
+     * the console or another server at the same time (see {@link DataStore}).
+     */
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        String file = args.length > 1 ? args[1] : "ittm.db";
+        DataStore dataStore = new DataStore("jdbc:sqlite:" + file, new DataStoreConfig().durability(Durability.GROUP_COMMIT));
+        TicketService ticketService = new TicketService(dataStore);
+        SessionServer server = new SessionServer(new UserService(dataStore), ticketService, new ChangeRequestService(dataStore));
+        ticketService.getEscalationScheduler().start();
+        server.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                server.close();
+                dataStore.close();
+            } catch (Exception ex) {
+                System.err.println("Shutdown failed: " + ex.getMessage());
+            }
+        }));
+        System.out.println("Serving " + file + " on port " + server.getPort()
+                + (server.usesVirtualThreads() ? " (virtual threads)" : " (platform threads)"));
+    }
+}
@@ -0,0 +1,199 @@
+package com.ittm.service;
+
+import com.ittm.model.Role;
+import com.ittm.model.TicketStatus;
+import com.ittm.model.User;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.TicketChange;
+import com.ittm.util.IntIntHashMap;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Keeps the number of active tickets per agent in an indexed binary min-heap ordered by
+ * (load, agent id), so the least-loaded agent is available in O(1) and every load change
+ * costs O(log agents). Counts are rebuilt from the database on construction and then follow
+ * every ticket and user write the {@link DataStore} commits; the agent each active ticket counts
+ * against is remembered, so a write only needs the ticket's new state.
+ */
+public class AgentLoadTracker {
+    private final DataStore dataStore;
+    private final Set<TicketStatus> activeStatuses;
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private final IntIntHashMap activeAgentOf = new IntIntHashMap();
+    private Entry[] heap = new Entry[16];
+    private int size;
+
+    public AgentLoadTracker(DataStore dataStore, Set<TicketStatus> activeStatuses) {
+        this.dataStore = dataStore;
+        this.activeStatuses = activeStatuses;
+        rebuild();
+        dataStore.addUserListener(this::onUserSaved);
+        dataStore.addTicketListener(this::onTicketWritten);
+    }
+
+    /**
+     * Reloads all agents and their active tickets from the database, in a unit of work so no
+     * commit lands between the scan and the rebuilt heap.
+     */
+    public void rebuild() {
+        dataStore.inTransaction(() -> {
+            synchronized (this) {
+                entries.clear();
+                heap = new Entry[16];
+                size = 0;
+                activeAgentOf.clear();
+                Map<Integer, Long> counts = new HashMap<>();
+                dataStore.forEachTicketOwner(activeStatuses, (ticketId, requesterId, agentId) -> {
+                    if (agentId != TicketOwnershipIndex.UNASSIGNED) {
+                        activeAgentOf.put(ticketId, agentId);
+                        counts.merge(agentId, 1L, Long::sum);
+                    }
+                });
+                dataStore.streamUsers()
+                        .filter(u -> u.getRole() == Role.AGENT)
+                        .forEach(agent -> add(agent, counts.getOrDefault(agent.getId(), 0L)));
+            }
+        });
+    }
+
+    /**
+     * Returns the agent with the fewest active tickets, ties broken by lowest id.
+     */
+    public synchronized Optional<User> leastLoaded() {
+        return size == 0 ? Optional.empty() : Optional.of(heap[0].agent);
+    }
+
+    public synchronized long load(int agentId) {
+        Entry entry = entries.get(agentId);
+        return entry == null ? 0 : entry.load;
+    }
+
+    /**
+     * Moves the ticket's load from the agent it counted against to its new agent, if it is
+     * still active.
+     */
+    private synchronized void onTicketWritten(TicketChange change) {
+        int ticketId = change.getTicketId();
+        int previous = activeAgentOf.get(ticketId, TicketOwnershipIndex.UNASSIGNED);
+        int current = activeStatuses.contains(change.getStatus()) ? change.getAgentId() : TicketOwnershipIndex.UNASSIGNED;
+        if (previous == current) {
+            return;
+        }
+        if (previous != TicketOwnershipIndex.UNASSIGNED) {
+            adjust(previous, -1);
+        }
+        if (current == TicketOwnershipIndex.UNASSIGNED) {
+            activeAgentOf.remove(ticketId);
+        } else {
+            activeAgentOf.put(ticketId, current);
+            adjust(current, 1);
+        }
+    }
+
+    private synchronized void onUserSaved(User user) {
+        Entry existing = entries.get(user.getId());
+        if (user.getRole() == Role.AGENT) {
+            if (existing == null) {
+                add(user, dataStore.countTicketsByAgent(activeStatuses).getOrDefault(user.getId(), 0L));
+            } else {
+                existing.agent = user;
+            }
+        } else if (existing != null) {
+            remove(existing);
+        }
+    }
+
+    private void adjust(int agentId, long delta) {
+        Entry entry = entries.get(agentId);
+        if (entry == null) {
+            return;
+        }
+        entry.load = Math.max(0, entry.load + delta);
+        if (delta > 0) {
+            siftDown(entry.index);
+        } else {
+            siftUp(entry.index);
+        }
+    }
+
+    private void add(User agent, long load) {
+        if (size == heap.length) {
+            Entry[] grown = new Entry[heap.length * 2];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
+        }
+        Entry entry = new Entry(agent, load);
+        entries.put(agent.getId(), entry);
+        entry.index = size;
+        heap[size++] = entry;
+        siftUp(entry.index);
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.agent.getId());
+        int index = entry.index;
+        Entry last = heap[--size];
+        heap[size] = null;
+        if (index == size) {
+            return;
+        }
+        place(last, index);
+        siftDown(index);
+        siftUp(last.index);
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (!less(entry, heap[parent])) {
+                break;
+            }
+            place(heap[parent], index);
+            index = parent;
+        }
+        place(entry, index);
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && less(heap[right], heap[child])) {
+                child = right;
+            }
+            if (!less(heap[child], entry)) {
+                break;
+            }
+            place(heap[child], index);
+            index = child;
+        }
+        place(entry, index);
+    }
+
+    private void place(Entry entry, int index) {
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    private static boolean less(Entry a, Entry b) {
+        return a.load < b.load || (a.load == b.load && a.agent.getId() < b.agent.getId());
+    }
+
+    private static final class Entry {
+        private User agent;
+        private long load;
+        private int index;
+
+        private Entry(User agent, long load) {
+            this.agent = agent;
+            this.load = load;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.ittm.service;
 
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.MetricsRegistry;
 import com.ittm.model.ChangeRequest;
 import com.ittm.model.ChangeRequestStatus;
 import com.ittm.model.Role;
@@ -9,82 +11,100 @@ import com.ittm.repository.DataStore;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class ChangeRequestService {
     private final DataStore dataStore;
+    private final MetricsRegistry metrics;
 
     public ChangeRequestService(DataStore dataStore) {
         this.dataStore = dataStore;
+        this.metrics = dataStore.getMetrics();
     }
 
     public ChangeRequest raise(User requester, String title, String description, LocalDate expiry) {
-        return dataStore.createChangeRequest(requester, title, description, expiry, LocalDateTime.now());
+        try (CallScope scope = metrics.begin("ChangeRequestService.raise")) {
+            return dataStore.createChangeRequest(requester, title, description, expiry, LocalDateTime.now());
+        }
     }
 
     public void renew(User actor, int changeId, LocalDate newExpiry) {
-        ChangeRequest cr = findChange(changeId);
-        if (actor.getRole() != Role.ADMIN && actor.getId() != cr.getRequester().getId()) {
-            throw new IllegalStateException("Only admin or requester can renew");
+        try (CallScope scope = metrics.begin("ChangeRequestService.renew")) {
+            ConflictRetry.run(dataStore, metrics, "ChangeRequestService.renew", () -> {
+                ChangeRequest cr = findChange(changeId);
+                if (actor.getRole() != Role.ADMIN && actor.getId() != cr.getRequester().getId()) {
+                    throw new IllegalStateException("Only admin or requester can renew");
+                }
+                cr.setExpiryDate(newExpiry);
+                dataStore.updateChangeRequest(cr);
+            });
         }
-        cr.setExpiryDate(newExpiry);
-        dataStore.updateChangeRequest(cr);
     }
 
     public void remove(User actor, int changeId) {
-        ChangeRequest cr = findChange(changeId);
-        if (actor.getRole() != Role.ADMIN && actor.getId() != cr.getRequester().getId()) {
-            throw new IllegalStateException("Only admin or requester can remove");
+        try (CallScope scope = metrics.begin("ChangeRequestService.remove")) {
+            ChangeRequest cr = findChange(changeId);
+            if (actor.getRole() != Role.ADMIN && actor.getId() != cr.getRequester().getId()) {
+                throw new IllegalStateException("Only admin or requester can remove");
+            }
+            dataStore.removeChangeRequest(changeId);
         }
-        dataStore.removeChangeRequest(changeId);
     }
 
     public void approve(User admin, int changeId, boolean approve) {
-        if (admin.getRole() != Role.ADMIN) {
-            throw new IllegalStateException("Only admin can approve");
+        try (CallScope scope = metrics.begin("ChangeRequestService.approve")) {
+            if (admin.getRole() != Role.ADMIN) {
+                throw new IllegalStateException("Only admin can approve");
+            }
+            ConflictRetry.run(dataStore, metrics, "ChangeRequestService.approve", () -> {
+                ChangeRequest cr = findChange(changeId);
+                cr.setStatus(approve ? ChangeRequestStatus.APPROVED : ChangeRequestStatus.REJECTED);
+                dataStore.updateChangeRequest(cr);
+            });
         }
-        ChangeRequest cr = findChange(changeId);
-        cr.setStatus(approve ? ChangeRequestStatus.APPROVED : ChangeRequestStatus.REJECTED);
-        dataStore.updateChangeRequest(cr);
     }
 
     public void implement(User agent, int changeId, String implementationNote) {
-        ChangeRequest cr = findChange(changeId);
-        if (agent.getRole() != Role.AGENT && agent.getRole() != Role.ADMIN) {
-            throw new IllegalStateException("Only agent/admin can implement");
-        }
-        if (cr.getStatus() != ChangeRequestStatus.APPROVED) {
-            throw new IllegalStateException("Change must be approved");
+        try (CallScope scope = metrics.begin("ChangeRequestService.implement")) {
+            ConflictRetry.run(dataStore, metrics, "ChangeRequestService.implement", () -> {
+                ChangeRequest cr = findChange(changeId);
+                if (agent.getRole() != Role.AGENT && agent.getRole() != Role.ADMIN) {
+                    throw new IllegalStateException("Only agent/admin can implement");
+                }
+                // re-checked on every attempt, so a concurrent rejection is not overwritten
+                if (cr.getStatus() != ChangeRequestStatus.APPROVED) {
+                    throw new IllegalStateException("Change must be approved");
+                }
+                cr.setImplementationNote(implementationNote);
+                cr.setStatus(ChangeRequestStatus.IMPLEMENTED);
+                dataStore.updateChangeRequest(cr);
+            });
         }
-        cr.setImplementationNote(implementationNote);
-        cr.setStatus(ChangeRequestStatus.IMPLEMENTED);
-        dataStore.updateChangeRequest(cr);
     }
 
+    /**
+     * Active change requests expiring within {@code days} from today, including already
+     * expired ones, soonest first.
+     */
     public List<ChangeRequest> expiringWithin(int days) {
-        LocalDate today = LocalDate.now();
-        LocalDate threshold = today.plusDays(days);
-        return dataStore.getChangeRequests().stream()
-                .filter(cr -> !cr.isArchived())
-                .filter(cr -> !cr.getExpiryDate().isAfter(threshold))
-                .collect(Collectors.toList());
+        try (CallScope scope = metrics.begin("ChangeRequestService.expiringWithin")) {
+            return dataStore.findChangeRequestsExpiringBy(LocalDate.now().plusDays(days));
+        }
     }
 
     public List<ChangeRequest> quarterlyReport(int quarter) {
-        return dataStore.getChangeRequests().stream()
-                .filter(cr -> (cr.getCreatedAt().getMonthValue() - 1) / 3 + 1 == quarter)
-                .collect(Collectors.toList());
+        try (CallScope scope = metrics.begin("ChangeRequestService.quarterlyReport")) {
+            return dataStore.findChangeRequestsInQuarter(quarter);
+        }
     }
 
-    public void archiveOld(LocalDate today) {
-        List<ChangeRequest> toArchive = dataStore.getChangeRequests().stream()
-                .filter(cr -> cr.getCreatedAt().toLocalDate().isBefore(today.minusYears(1)))
-                .collect(Collectors.toList());
-        toArchive.forEach(cr -> {
-            cr.setArchived(true);
-            cr.setStatus(ChangeRequestStatus.ARCHIVED);
-            dataStore.updateChangeRequest(cr);
-        });
+    /**
+     * Archives the change requests created more than a year before {@code today}; returns how
+     * many were archived.
+     */
+    public int archiveOld(LocalDate today) {
+        try (CallScope scope = metrics.begin("ChangeRequestService.archiveOld")) {
+            return dataStore.archiveChangeRequestsCreatedBefore(today.minusYears(1));
+        }
     }
 
     private ChangeRequest findChange(int id) {
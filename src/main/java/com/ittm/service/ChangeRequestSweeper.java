@@ -0,0 +1,77 @@
+package com.ittm.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Periodically archives old change requests in the background through
+ * {@link ChangeRequestService#archiveOld(LocalDate)}, which is a single set-based UPDATE.
+ */
+public class ChangeRequestSweeper implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(ChangeRequestSweeper.class.getName());
+
+    private final ChangeRequestService changeRequestService;
+    private final Duration interval;
+    private final Clock clock;
+    private final IntConsumer onSweep;
+    private ScheduledExecutorService executor;
+
+    /**
+     * @param onSweep receives the number of change requests archived by each sweep
+     */
+    public ChangeRequestSweeper(ChangeRequestService changeRequestService, Duration interval, IntConsumer onSweep) {
+        this(changeRequestService, interval, Clock.systemDefaultZone(), onSweep);
+    }
+
+    public ChangeRequestSweeper(ChangeRequestService changeRequestService, Duration interval, Clock clock, IntConsumer onSweep) {
+        this.changeRequestService = changeRequestService;
+        this.interval = interval;
+        this.clock = clock;
+        this.onSweep = onSweep;
+    }
+
+    /**
+     * Sweeps immediately and then once per interval on a daemon thread.
+     */
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ittm-change-request-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sweep, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs one sweep on the calling thread and returns the number of change requests archived.
+     */
+    public int sweep() {
+        try {
+            int archived = changeRequestService.archiveOld(LocalDate.now(clock));
+            onSweep.accept(archived);
+            return archived;
+        } catch (RuntimeException ex) {
+            // keep the schedule alive; the next sweep retries
+            LOG.log(Level.WARNING, "Change request sweep failed", ex);
+            return 0;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.ittm.service;
+
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.MetricsRegistry;
+import com.ittm.repository.ConcurrentUpdateException;
+import com.ittm.repository.DataStore;
+
+import java.util.function.Supplier;
+
+/**
+ * Re-runs a read-modify-write service operation whose compare-and-set update lost to a
+ * concurrent writer. Each attempt reloads the entity, so the change is reapplied to the current
+ * state instead of overwriting it. Retried attempts are recorded under {@code <name>.retry}.
+ */
+final class ConflictRetry {
+    static final int MAX_ATTEMPTS = 5;
+
+    private ConflictRetry() {
+    }
+
+    static <T> T run(DataStore dataStore, MetricsRegistry metrics, String name, Supplier<T> work) {
+        // inside an enclosing unit of work the reads already ran on the writer and cannot be stale;
+        // a conflict there must roll back the whole unit, so it is left to the outermost caller
+        if (dataStore.isInTransaction()) {
+            return work.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try (CallScope scope = attempt > 1 ? metrics.begin(name + ".retry") : CallScope.NONE) {
+                return work.get();
+            } catch (ConcurrentUpdateException ex) {
+                if (attempt == MAX_ATTEMPTS) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    static void run(DataStore dataStore, MetricsRegistry metrics, String name, Runnable work) {
+        run(dataStore, metrics, name, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,35 @@
+package com.ittm.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Raised once when an unresolved ticket passes its SLA deadline.
+ */
+public class EscalationEvent {
+    private final int ticketId;
+    private final String category;
+    private final LocalDateTime dueAt;
+
+    EscalationEvent(int ticketId, String category, LocalDateTime dueAt) {
+        this.ticketId = ticketId;
+        this.category = category;
+        this.dueAt = dueAt;
+    }
+
+    public int getTicketId() {
+        return ticketId;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    @Override
+    public String toString() {
+        return "Ticket " + ticketId + " (" + category + ") overdue since " + dueAt;
+    }
+}
@@ -0,0 +1,238 @@
+package com.ittm.service;
+
+import com.ittm.model.TicketStatus;
+import com.ittm.repository.DataStore;
+import com.ittm.repository.TicketAge;
+import com.ittm.repository.TicketChange;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Keeps every unresolved ticket in a priority queue ordered by its SLA deadline (creation time
+ * plus the {@link SlaPolicy} duration of its category), so finding the tickets that became due
+ * costs O(due * log n) instead of a scan over all tickets. Deadlines are rebuilt from the
+ * database on construction and then follow every ticket write the {@link DataStore} commits
+ * (see {@link DataStore#addTicketListener}). A due ticket stays
+ * escalated until it is resolved; listeners hear about it once, either from {@link #due} or from
+ * the background ticker started with {@link #start()}.
+ */
+public class EscalationScheduler {
+    private static final Comparator<Deadline> BY_DUE_AT = Comparator.<Deadline, LocalDateTime>comparing(d -> d.dueAt)
+            .thenComparingInt(d -> d.ticketId);
+    private static final long MAX_SLEEP_MILLIS = 60_000;
+
+    private final DataStore dataStore;
+    private final SlaPolicy slaPolicy;
+    private final Clock clock;
+    private final PriorityQueue<Deadline> queue = new PriorityQueue<>(BY_DUE_AT);
+    private final Map<Integer, Deadline> pending = new HashMap<>();
+    private final Map<Integer, Deadline> escalated = new LinkedHashMap<>();
+    private final List<Consumer<EscalationEvent>> listeners = new CopyOnWriteArrayList<>();
+    private int cancelledInQueue;
+    private Thread ticker;
+
+    public EscalationScheduler(DataStore dataStore, SlaPolicy slaPolicy) {
+        this(dataStore, slaPolicy, Clock.systemDefaultZone());
+    }
+
+    public EscalationScheduler(DataStore dataStore, SlaPolicy slaPolicy, Clock clock) {
+        this.dataStore = dataStore;
+        this.slaPolicy = slaPolicy;
+        this.clock = clock;
+        rebuild();
+        dataStore.addTicketListener(this::onTicketWritten);
+    }
+
+    /**
+     * Reloads the deadlines of all unresolved tickets from the database, in a unit of work so no
+     * commit lands between the scan and the rebuilt queue. Tickets that are already overdue are
+     * escalated again on the next check.
+     */
+    public void rebuild() {
+        dataStore.inTransaction(() -> {
+            synchronized (this) {
+                queue.clear();
+                pending.clear();
+                escalated.clear();
+                cancelledInQueue = 0;
+                for (TicketAge age : dataStore.findTicketAges(TicketStatus.RESOLVED)) {
+                    schedule(age.getId(), age.getCategory(), age.getCreatedAt());
+                }
+                notifyAll();
+            }
+        });
+    }
+
+    public void addListener(Consumer<EscalationEvent> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Applies a committed ticket state: resolved tickets leave the schedule, any other status
+     * keeps or (after a reopen) restores the deadline.
+     */
+    private synchronized void onTicketWritten(TicketChange change) {
+        int ticketId = change.getTicketId();
+        if (change.getStatus() == TicketStatus.RESOLVED) {
+            cancel(ticketId);
+        } else if (!pending.containsKey(ticketId) && !escalated.containsKey(ticketId)) {
+            schedule(ticketId, change.getCategory(), change.getCreatedAt());
+            notifyAll();
+        }
+    }
+
+    /**
+     * Returns the ids of all tickets whose deadline is before {@code now}, earliest deadline
+     * first, firing listeners for those that became due since the last check.
+     */
+    public List<Integer> due(LocalDateTime now) {
+        List<EscalationEvent> events;
+        List<Integer> ids = new ArrayList<>();
+        synchronized (this) {
+            events = advance(now);
+            for (Deadline deadline : escalated.values()) {
+                if (deadline.dueAt.isBefore(now)) {
+                    ids.add(deadline.ticketId);
+                }
+            }
+        }
+        fire(events);
+        return ids;
+    }
+
+    /**
+     * Number of tickets currently waiting for their deadline.
+     */
+    public synchronized int pendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Starts a daemon thread that sleeps until the next deadline and fires listeners as
+     * deadlines pass.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        ticker = new Thread(this::runTicker, "ittm-escalation-ticker");
+        ticker.setDaemon(true);
+        ticker.start();
+    }
+
+    public void stop() {
+        Thread stopped;
+        synchronized (this) {
+            stopped = ticker;
+            ticker = null;
+            notifyAll();
+        }
+        if (stopped != null) {
+            stopped.interrupt();
+        }
+    }
+
+    private void runTicker() {
+        while (true) {
+            List<EscalationEvent> events;
+            synchronized (this) {
+                if (ticker != Thread.currentThread()) {
+                    return;
+                }
+                LocalDateTime now = LocalDateTime.now(clock);
+                events = advance(now);
+                if (events.isEmpty()) {
+                    Deadline next = peek();
+                    long sleep = next == null ? MAX_SLEEP_MILLIS
+                            : Math.min(MAX_SLEEP_MILLIS, Duration.between(now, next.dueAt).toMillis() + 1);
+                    try {
+                        wait(Math.max(1, sleep));
+                    } catch (InterruptedException ex) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            fire(events);
+        }
+    }
+
+    private void schedule(int ticketId, String category, LocalDateTime createdAt) {
+        Deadline deadline = new Deadline(ticketId, category, createdAt.plus(slaPolicy.slaFor(category)));
+        pending.put(ticketId, deadline);
+        queue.add(deadline);
+    }
+
+    /**
+     * Cancelled deadlines are skipped lazily; the queue is compacted once they make up half of it.
+     */
+    private void cancel(int ticketId) {
+        escalated.remove(ticketId);
+        Deadline deadline = pending.remove(ticketId);
+        if (deadline == null) {
+            return;
+        }
+        deadline.cancelled = true;
+        cancelledInQueue++;
+        if (cancelledInQueue > 64 && cancelledInQueue > queue.size() / 2) {
+            queue.removeIf(d -> d.cancelled);
+            cancelledInQueue = 0;
+        }
+    }
+
+    /**
+     * Moves every deadline before {@code now} from the queue to the escalated set.
+     */
+    private List<EscalationEvent> advance(LocalDateTime now) {
+        List<EscalationEvent> events = new ArrayList<>();
+        Deadline head;
+        while ((head = peek()) != null && head.dueAt.isBefore(now)) {
+            queue.poll();
+            pending.remove(head.ticketId);
+            escalated.put(head.ticketId, head);
+            events.add(new EscalationEvent(head.ticketId, head.category, head.dueAt));
+        }
+        return events;
+    }
+
+    private Deadline peek() {
+        Deadline head;
+        while ((head = queue.peek()) != null && head.cancelled) {
+            queue.poll();
+            cancelledInQueue--;
+        }
+        return head;
+    }
+
+    private void fire(List<EscalationEvent> events) {
+        for (EscalationEvent event : events) {
+            for (Consumer<EscalationEvent> listener : listeners) {
+                listener.accept(event);
+            }
+        }
+    }
+
+    private static final class Deadline {
+        private final int ticketId;
+        private final String category;
+        private final LocalDateTime dueAt;
+        private boolean cancelled;
+
+        private Deadline(int ticketId, String category, LocalDateTime dueAt) {
+            this.ticketId = ticketId;
+            this.category = category;
+            this.dueAt = dueAt;
+        }
+    }
+}
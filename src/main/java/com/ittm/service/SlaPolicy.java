@@ -0,0 +1,27 @@
+package com.ittm.service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Time a ticket may stay unresolved before it is escalated, per category with a default.
+ */
+public class SlaPolicy {
+    private Duration defaultSla = Duration.ofHours(24);
+    private final Map<String, Duration> byCategory = new HashMap<>();
+
+    public SlaPolicy defaultSla(Duration defaultSla) {
+        this.defaultSla = defaultSla;
+        return this;
+    }
+
+    public SlaPolicy category(String category, Duration sla) {
+        byCategory.put(category, sla);
+        return this;
+    }
+
+    public Duration slaFor(String category) {
+        return byCategory.getOrDefault(category, defaultSla);
+    }
+}
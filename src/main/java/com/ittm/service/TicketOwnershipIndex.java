@@ -0,0 +1,96 @@
+package com.ittm.service;
+
+import com.ittm.repository.DataStore;
+import com.ittm.repository.TicketChange;
+import com.ittm.util.IntIntHashMap;
+import com.ittm.util.IntSetMultimap;
+
+/**
+ * Maps requester ids and agent ids to the ids of their tickets in primitive int structures, so
+ * role-scoped views resolve their ticket ids without a query over the tickets table and without
+ * boxing. The index is rebuilt from the database on construction and then follows every ticket
+ * write the {@link DataStore} commits (see {@link DataStore#addTicketListener}). Since a
+ * database file is only ever open in one {@code DataStore}, that sees all of them, whichever
+ * service made them.
+ */
+public class TicketOwnershipIndex {
+    /**
+     * Agent id of a ticket that has no assigned agent.
+     */
+    public static final int UNASSIGNED = 0;
+
+    private final DataStore dataStore;
+    private final IntSetMultimap byRequester = new IntSetMultimap();
+    private final IntSetMultimap byAgent = new IntSetMultimap();
+    private final IntIntHashMap agentOf = new IntIntHashMap();
+
+    public TicketOwnershipIndex(DataStore dataStore) {
+        this.dataStore = dataStore;
+        rebuild();
+        dataStore.addTicketListener(this::onTicketWritten);
+    }
+
+    /**
+     * Reloads the requester and agent of every ticket from the database. The scan runs in a unit
+     * of work, so no commit can land between reading the rows and installing them.
+     */
+    public void rebuild() {
+        dataStore.inTransaction(() -> {
+            synchronized (this) {
+                byRequester.clear();
+                byAgent.clear();
+                agentOf.clear();
+                dataStore.forEachTicketOwner(this::apply);
+            }
+        });
+    }
+
+    /**
+     * Ids of the tickets raised by {@code requesterId}, ascending.
+     */
+    public synchronized int[] ticketsOfRequester(int requesterId) {
+        return byRequester.get(requesterId);
+    }
+
+    /**
+     * Ids of the tickets assigned to {@code agentId}, ascending.
+     */
+    public synchronized int[] ticketsOfAgent(int agentId) {
+        return byAgent.get(agentId);
+    }
+
+    public synchronized long size() {
+        return byRequester.size();
+    }
+
+    /**
+     * Bytes held by the index's arrays (see {@link IntSetMultimap#footprint()}).
+     */
+    public synchronized long footprint() {
+        return byRequester.footprint() + byAgent.footprint() + agentOf.footprint();
+    }
+
+    private synchronized void onTicketWritten(TicketChange change) {
+        apply(change.getTicketId(), change.getRequesterId(), change.getAgentId());
+    }
+
+    /**
+     * A changed agent moves the ticket between agents.
+     */
+    private void apply(int ticketId, int requesterId, int agentId) {
+        byRequester.add(requesterId, ticketId);
+        int previous = agentOf.get(ticketId, UNASSIGNED);
+        if (previous == agentId) {
+            return;
+        }
+        if (previous != UNASSIGNED) {
+            byAgent.remove(previous, ticketId);
+        }
+        if (agentId == UNASSIGNED) {
+            agentOf.remove(ticketId);
+        } else {
+            agentOf.put(ticketId, agentId);
+            byAgent.add(agentId, ticketId);
+        }
+    }
+}
@@ -1,206 +1,384 @@
 package com.ittm.service;
 
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.MetricsRegistry;
 import com.ittm.model.Note;
 import com.ittm.model.Role;
 import com.ittm.model.Ticket;
+import com.ittm.model.TicketEvent;
 import com.ittm.model.TicketHistoryEntry;
 import com.ittm.model.TicketStatus;
 import com.ittm.model.User;
+import com.ittm.repository.AgentRatingRow;
 import com.ittm.repository.DataStore;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.PageCursor;
+import com.ittm.repository.TicketFilter;
+import com.ittm.repository.TicketPage;
+import com.ittm.repository.TicketReportQuery;
+import com.ittm.repository.TicketReportRow;
+import com.ittm.repository.TicketSearchHit;
+import com.ittm.repository.TicketTextQuery;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class TicketService {
+    private static final Comparator<Ticket> CREATION_ORDER = Comparator.comparing(Ticket::getCreatedAt).thenComparingInt(Ticket::getId);
+    /**
+     * Actor id of ticket events the system causes on its own, such as automatic assignment.
+     */
+    public static final int SYSTEM_ACTOR = 0;
     private static final EnumSet<TicketStatus> ACTIVE_STATUSES = EnumSet.of(TicketStatus.OPEN, TicketStatus.IN_PROGRESS, TicketStatus.AWAITING_RESPONSE);
     private final DataStore dataStore;
+    private final MetricsRegistry metrics;
+    private final AgentLoadTracker loadTracker;
+    private final EscalationScheduler escalationScheduler;
+    private final TicketOwnershipIndex ownershipIndex;
 
     public TicketService(DataStore dataStore) {
+        this(dataStore, new SlaPolicy());
+    }
+
+    public TicketService(DataStore dataStore, SlaPolicy slaPolicy) {
         this.dataStore = dataStore;
+        this.metrics = dataStore.getMetrics();
+        this.loadTracker = new AgentLoadTracker(dataStore, ACTIVE_STATUSES);
+        this.escalationScheduler = new EscalationScheduler(dataStore, slaPolicy);
+        this.ownershipIndex = new TicketOwnershipIndex(dataStore);
+    }
+
+    public EscalationScheduler getEscalationScheduler() {
+        return escalationScheduler;
+    }
+
+    public TicketOwnershipIndex getOwnershipIndex() {
+        return ownershipIndex;
     }
 
     public Ticket createTicket(User requester, String title, String description, String category) {
-        Ticket ticket = dataStore.createTicket(requester, title, description, category, LocalDateTime.now());
-        logHistory(ticket, "Ticket raised", requester.getName());
-        assignAgent(ticket, "System assignment");
-        ticket.setStatus(TicketStatus.OPEN);
-        ticket.setUpdatedAt(LocalDateTime.now());
-        dataStore.updateTicket(ticket);
-        return ticket;
+        try (CallScope scope = metrics.begin("TicketService.createTicket")) {
+            return dataStore.inTransaction(() -> {
+                Ticket ticket = dataStore.createTicket(requester, title, description, category, LocalDateTime.now());
+                logHistory(ticket, "Ticket raised", requester.getName());
+                dataStore.appendTicketEvent(TicketEvent.created(ticket.getId(), ticket.getCreatedAt(), requester.getId(), category, title));
+                assignAgent(ticket, "System assignment");
+                ticket.setStatus(TicketStatus.OPEN);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.updateTicket(ticket);
+                recordStatus(ticket, requester);
+                return ticket;
+            });
+        }
+    }
+
+    private void recordStatus(Ticket ticket, User actor) {
+        dataStore.appendTicketEvent(TicketEvent.statusChanged(ticket.getId(), ticket.getUpdatedAt(), actor.getId(), ticket.getStatus()));
     }
 
     private void logHistory(Ticket ticket, String action, String actor) {
         TicketHistoryEntry entry = new TicketHistoryEntry(LocalDateTime.now(), action, actor);
-        ticket.getHistory().add(entry);
+        // a lazy history picks the entry up from the table when it is first read
+        if (ticket.isHistoryLoaded()) {
+            ticket.getHistory().add(entry);
+        }
         dataStore.addHistory(ticket.getId(), entry);
     }
 
-    private long activeLoad(User agent) {
-        return dataStore.getTickets().stream()
-                .filter(t -> t.getAssignedAgent() != null && t.getAssignedAgent().getId() == agent.getId())
-                .filter(t -> ACTIVE_STATUSES.contains(t.getStatus()))
-                .count();
-    }
-
     public void assignAgent(Ticket ticket, String actor) {
-        List<User> agents = dataStore.getAllUsers().stream()
-                .filter(u -> u.getRole() == Role.AGENT)
-                .sorted(Comparator.comparingInt(User::getId))
-                .collect(Collectors.toList());
-        Optional<User> chosen = agents.stream()
-                .min(Comparator.comparingLong(this::activeLoad).thenComparingInt(User::getId));
-        chosen.ifPresent(agent -> {
-            ticket.setAssignedAgent(agent);
-            logHistory(ticket, "Assigned to agent " + agent.getName(), actor);
-            dataStore.updateTicket(ticket);
-        });
+        try (CallScope scope = metrics.begin("TicketService.assignAgent")) {
+            dataStore.inTransaction(() -> {
+                Optional<User> chosen = loadTracker.leastLoaded();
+                chosen.ifPresent(agent -> {
+                    ticket.setAssignedAgent(agent);
+                    logHistory(ticket, "Assigned to agent " + agent.getName(), actor);
+                    dataStore.updateTicket(ticket);
+                    dataStore.appendTicketEvent(TicketEvent.assigned(ticket.getId(), LocalDateTime.now(), SYSTEM_ACTOR, agent.getId()));
+                });
+            });
+        }
     }
 
+    /**
+     * Returns the tickets visible to {@code user} in creation order; notes and history are loaded
+     * on first access. Requesters and agents get their ticket ids from the
+     * {@link TicketOwnershipIndex} instead of a filtered query.
+     */
     public List<Ticket> viewTicketsForUser(User user) {
-        if (user.getRole() == Role.ADMIN) {
-            return new ArrayList<>(dataStore.getTickets());
+        return viewTicketsForUser(user, FetchPlan.SUMMARY);
+    }
+
+    public List<Ticket> viewTicketsForUser(User user, FetchPlan plan) {
+        try (CallScope scope = metrics.begin("TicketService.viewTicketsForUser")) {
+            if (user.getRole() == Role.ADMIN) {
+                return dataStore.findTickets(new TicketFilter(), plan);
+            }
+            int[] ids = user.getRole() == Role.AGENT
+                    ? ownershipIndex.ticketsOfAgent(user.getId())
+                    : ownershipIndex.ticketsOfRequester(user.getId());
+            List<Ticket> tickets = dataStore.findTicketsByIds(ids, plan);
+            tickets.sort(CREATION_ORDER);
+            return tickets;
+        }
+    }
+
+    /**
+     * Streams the tickets visible to {@code user} in creation order, loaded in keyset batches
+     * (see {@link DataStore#streamTickets(TicketFilter, FetchPlan)}), so the whole ticket table
+     * is never held in memory.
+     */
+    public Stream<Ticket> streamTicketsForUser(User user, FetchPlan plan) {
+        try (CallScope scope = metrics.begin("TicketService.streamTicketsForUser")) {
+            return dataStore.streamTickets(scopeFor(user, new TicketFilter()), plan);
+        }
+    }
+
+    /**
+     * Returns one page of the tickets visible to {@code user} that match {@code filter}.
+     */
+    public TicketPage viewTicketsForUser(User user, TicketFilter filter, PageCursor after, int pageSize) {
+        return viewTicketsForUser(user, filter, after, pageSize, FetchPlan.SUMMARY);
+    }
+
+    public TicketPage viewTicketsForUser(User user, TicketFilter filter, PageCursor after, int pageSize, FetchPlan plan) {
+        try (CallScope scope = metrics.begin("TicketService.viewTicketsForUserPage")) {
+            return dataStore.findTickets(scopeFor(user, filter), after, pageSize, plan);
         }
+    }
+
+    private TicketFilter scopeFor(User user, TicketFilter filter) {
         if (user.getRole() == Role.AGENT) {
-            return dataStore.getTickets().stream()
-                    .filter(t -> t.getAssignedAgent() != null && t.getAssignedAgent().getId() == user.getId())
-                    .collect(Collectors.toList());
+            return filter.agentId(user.getId());
         }
-        return dataStore.getTickets().stream()
-                .filter(t -> t.getRequester().getId() == user.getId())
-                .collect(Collectors.toList());
+        if (user.getRole() != Role.ADMIN) {
+            return filter.requesterId(user.getId());
+        }
+        return filter;
     }
 
+    /**
+     * Loads the ticket on a reader, applies the change and writes it back with a compare-and-set
+     * update in a short unit of work, so concurrent editors never hold the writer while they read;
+     * a lost race is retried against the current row (see {@link ConflictRetry}).
+     */
     public void updateDescription(User user, int ticketId, String newDescription) {
-        Ticket ticket = findTicket(ticketId);
-        if (ticket.getRequester().getId() != user.getId()) {
-            throw new IllegalStateException("Only requester can edit description");
-        }
-        if (!(ticket.getStatus() == TicketStatus.OPEN || ticket.getStatus() == TicketStatus.REOPENED)) {
-            throw new IllegalStateException("Description editable only when Open or Reopened");
+        try (CallScope scope = metrics.begin("TicketService.updateDescription")) {
+            ConflictRetry.run(dataStore, metrics, "TicketService.updateDescription", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                if (ticket.getRequester().getId() != user.getId()) {
+                    throw new IllegalStateException("Only requester can edit description");
+                }
+                if (!(ticket.getStatus() == TicketStatus.OPEN || ticket.getStatus() == TicketStatus.REOPENED)) {
+                    throw new IllegalStateException("Description editable only when Open or Reopened");
+                }
+                ticket.setDescription(newDescription);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Description updated", user.getName());
+                    dataStore.updateTicket(ticket);
+                });
+            });
         }
-        ticket.setDescription(newDescription);
-        ticket.setUpdatedAt(LocalDateTime.now());
-        logHistory(ticket, "Description updated", user.getName());
-        dataStore.updateTicket(ticket);
     }
 
     public void updateStatus(User actor, int ticketId, TicketStatus newStatus) {
-        Ticket ticket = findTicket(ticketId);
-        if (actor.getRole() == Role.USER && ticket.getRequester().getId() != actor.getId()) {
-            throw new IllegalStateException("User cannot change others' tickets");
-        }
-        if (actor.getRole() == Role.USER && newStatus == TicketStatus.AWAITING_RESPONSE) {
-            throw new IllegalStateException("User cannot move to awaiting");
+        try (CallScope scope = metrics.begin("TicketService.updateStatus")) {
+            ConflictRetry.run(dataStore, metrics, "TicketService.updateStatus", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                if (actor.getRole() == Role.USER && ticket.getRequester().getId() != actor.getId()) {
+                    throw new IllegalStateException("User cannot change others' tickets");
+                }
+                if (actor.getRole() == Role.USER && newStatus == TicketStatus.AWAITING_RESPONSE) {
+                    throw new IllegalStateException("User cannot move to awaiting");
+                }
+                ticket.setStatus(newStatus);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Status changed to " + newStatus, actor.getName());
+                    dataStore.updateTicket(ticket);
+                    recordStatus(ticket, actor);
+                });
+            });
         }
-        ticket.setStatus(newStatus);
-        ticket.setUpdatedAt(LocalDateTime.now());
-        logHistory(ticket, "Status changed to " + newStatus, actor.getName());
-        dataStore.updateTicket(ticket);
     }
 
     public void closeOrAwait(User actor, int ticketId, boolean confirmClose, String awaitMessage) {
-        Ticket ticket = findTicket(ticketId);
-        if (confirmClose) {
-            updateStatus(actor, ticketId, TicketStatus.RESOLVED);
-        } else {
-            ticket.setStatus(TicketStatus.AWAITING_RESPONSE);
-            ticket.setUpdatedAt(LocalDateTime.now());
-            logHistory(ticket, "Moved to awaiting response: " + awaitMessage, actor.getName());
-            dataStore.updateTicket(ticket);
+        try (CallScope scope = metrics.begin("TicketService.closeOrAwait")) {
+            if (confirmClose) {
+                updateStatus(actor, ticketId, TicketStatus.RESOLVED);
+                return;
+            }
+            ConflictRetry.run(dataStore, metrics, "TicketService.closeOrAwait", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                ticket.setStatus(TicketStatus.AWAITING_RESPONSE);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Moved to awaiting response: " + awaitMessage, actor.getName());
+                    dataStore.updateTicket(ticket);
+                    recordStatus(ticket, actor);
+                });
+            });
         }
     }
 
     public void reopen(User actor, int ticketId, String reason) {
-        Ticket ticket = findTicket(ticketId);
-        ticket.setStatus(TicketStatus.REOPENED);
-        ticket.setUpdatedAt(LocalDateTime.now());
-        logHistory(ticket, "Reopened: " + reason, actor.getName());
-        dataStore.updateTicket(ticket);
+        try (CallScope scope = metrics.begin("TicketService.reopen")) {
+            ConflictRetry.run(dataStore, metrics, "TicketService.reopen", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                ticket.setStatus(TicketStatus.REOPENED);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Reopened: " + reason, actor.getName());
+                    dataStore.updateTicket(ticket);
+                    recordStatus(ticket, actor);
+                });
+            });
+        }
     }
 
     public void addNote(User actor, int ticketId, String message) {
-        if (actor.getRole() == Role.USER && ticketId < 0) {
-            throw new IllegalStateException("Invalid ticket");
-        }
-        Ticket ticket = findTicket(ticketId);
-        if (actor.getRole() == Role.USER || actor.getRole() == Role.AGENT || actor.getRole() == Role.ADMIN) {
-            ticket.getNotes().add(new Note(actor.getId(), actor.getName(), message, LocalDateTime.now()));
-            logHistory(ticket, "Note added", actor.getName());
-            Note latest = ticket.getNotes().get(ticket.getNotes().size() - 1);
-            dataStore.addNote(ticketId, latest);
-            dataStore.updateTicket(ticket);
+        try (CallScope scope = metrics.begin("TicketService.addNote")) {
+            if (actor.getRole() == Role.USER && ticketId < 0) {
+                throw new IllegalStateException("Invalid ticket");
+            }
+            Ticket ticket = loadForUpdate(ticketId);
+            if (actor.getRole() == Role.USER || actor.getRole() == Role.AGENT || actor.getRole() == Role.ADMIN) {
+                Note note = new Note(actor.getId(), actor.getName(), message, LocalDateTime.now());
+                // notes and history are appended, the ticket row itself is left untouched
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Note added", actor.getName());
+                    dataStore.addNote(ticketId, note);
+                    dataStore.appendTicketEvent(TicketEvent.noteAdded(ticketId, note.getCreatedAt(), actor.getId()));
+                });
+            }
         }
     }
 
     public void addRating(User user, int ticketId, int rating) {
-        Ticket ticket = findTicket(ticketId);
-        if (ticket.getRequester().getId() != user.getId()) {
-            throw new IllegalStateException("Only requester can rate");
-        }
-        if (ticket.getStatus() != TicketStatus.RESOLVED) {
-            throw new IllegalStateException("Rating allowed after resolution");
-        }
-        ticket.setRating(rating);
-        if (rating < 2 && ticket.getAssignedAgent() != null) {
-            ticket.setAgentFlagged(true);
+        try (CallScope scope = metrics.begin("TicketService.addRating")) {
+            ConflictRetry.run(dataStore, metrics, "TicketService.addRating", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                if (ticket.getRequester().getId() != user.getId()) {
+                    throw new IllegalStateException("Only requester can rate");
+                }
+                if (ticket.getStatus() != TicketStatus.RESOLVED) {
+                    throw new IllegalStateException("Rating allowed after resolution");
+                }
+                ticket.setRating(rating);
+                if (rating < 2 && ticket.getAssignedAgent() != null) {
+                    ticket.setAgentFlagged(true);
+                }
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Rated with score " + rating, user.getName());
+                    dataStore.updateTicket(ticket);
+                    dataStore.appendTicketEvent(TicketEvent.rated(ticketId, LocalDateTime.now(), user.getId(), rating, ticket.isAgentFlagged()));
+                });
+            });
         }
-        logHistory(ticket, "Rated with score " + rating, user.getName());
-        dataStore.updateTicket(ticket);
     }
 
     public void reassign(User admin, int ticketId, User newAgent, String reason) {
-        if (admin.getRole() != Role.ADMIN) {
-            throw new IllegalStateException("Only admin can reassign");
+        try (CallScope scope = metrics.begin("TicketService.reassign")) {
+            if (admin.getRole() != Role.ADMIN) {
+                throw new IllegalStateException("Only admin can reassign");
+            }
+            ConflictRetry.run(dataStore, metrics, "TicketService.reassign", () -> {
+                Ticket ticket = loadForUpdate(ticketId);
+                ticket.setAssignedAgent(newAgent);
+                ticket.setUpdatedAt(LocalDateTime.now());
+                dataStore.inTransaction(() -> {
+                    logHistory(ticket, "Reassigned to " + newAgent.getName() + " reason: " + reason, admin.getName());
+                    dataStore.updateTicket(ticket);
+                    dataStore.appendTicketEvent(TicketEvent.assigned(ticketId, ticket.getUpdatedAt(), admin.getId(), newAgent.getId()));
+                });
+            });
         }
-        Ticket ticket = findTicket(ticketId);
-        ticket.setAssignedAgent(newAgent);
-        ticket.setUpdatedAt(LocalDateTime.now());
-        logHistory(ticket, "Reassigned to " + newAgent.getName() + " reason: " + reason, admin.getName());
-        dataStore.updateTicket(ticket);
     }
 
     public List<Ticket> search(TicketStatus status, LocalDate from, LocalDate to) {
-        return dataStore.getTickets().stream()
-                .filter(t -> status == null || t.getStatus() == status)
-                .filter(t -> {
-                    LocalDate created = t.getCreatedAt().toLocalDate();
-                    boolean afterFrom = from == null || !created.isBefore(from);
-                    boolean beforeTo = to == null || !created.isAfter(to);
-                    return afterFrom && beforeTo;
-                })
-                .collect(Collectors.toList());
-    }
-
-    public Map<String, String> monthlyReport() {
-        Map<String, Long> resolved = dataStore.getTickets().stream()
-                .filter(t -> t.getStatus() == TicketStatus.RESOLVED)
-                .collect(Collectors.groupingBy(t -> t.getUpdatedAt().getYear() + "-" + t.getUpdatedAt().getMonthValue(), Collectors.counting()));
-        Map<String, Long> reopened = dataStore.getTickets().stream()
-                .filter(t -> t.getStatus() == TicketStatus.REOPENED)
-                .collect(Collectors.groupingBy(t -> t.getUpdatedAt().getYear() + "-" + t.getUpdatedAt().getMonthValue(), Collectors.counting()));
-        return Stream.concat(resolved.keySet().stream(), reopened.keySet().stream())
-                .distinct()
-                .collect(Collectors.toMap(month -> month,
-                        month -> "resolved=" + resolved.getOrDefault(month, 0L) + ", reopened=" + reopened.getOrDefault(month, 0L)));
+        try (CallScope scope = metrics.begin("TicketService.search")) {
+            return dataStore.findTickets(new TicketFilter().status(status).createdFrom(from).createdTo(to), FetchPlan.SUMMARY);
+        }
+    }
+
+    public TicketPage search(TicketFilter filter, PageCursor after, int pageSize) {
+        try (CallScope scope = metrics.begin("TicketService.searchPage")) {
+            return dataStore.findTickets(filter, after, pageSize, FetchPlan.SUMMARY);
+        }
+    }
+
+    /**
+     * Full-text search over ticket titles, descriptions and notes, best match first (see
+     * {@link TicketTextQuery} for the query syntax). Users only search their own tickets;
+     * agents and admins search all of them, e.g. to find duplicates.
+     */
+    public List<TicketSearchHit> searchText(User user, String text, int limit) {
+        try (CallScope scope = metrics.begin("TicketService.searchText")) {
+            TicketTextQuery query = new TicketTextQuery(text).limit(limit);
+            if (user.getRole() == Role.USER) {
+                query.requesterId(user.getId());
+            }
+            return dataStore.searchText(query);
+        }
+    }
+
+    /**
+     * Resolved and reopened ticket counts per month of their last update, oldest month first.
+     */
+    public List<TicketReportRow> monthlyReport() {
+        try (CallScope scope = metrics.begin("TicketService.monthlyReport")) {
+            return report(new TicketReportQuery());
+        }
     }
 
+    public List<TicketReportRow> report(TicketReportQuery query) {
+        try (CallScope scope = metrics.begin("TicketService.report")) {
+            return dataStore.reportTickets(query);
+        }
+    }
+
+    public List<AgentRatingRow> agentRatings() {
+        try (CallScope scope = metrics.begin("TicketService.agentRatings")) {
+            return dataStore.agentRatings();
+        }
+    }
+
+    /**
+     * Recomputes the report rollup from the ticket table; returns the number of rollup rows.
+     */
+    public int rebuildReportStats() {
+        try (CallScope scope = metrics.begin("TicketService.rebuildReportStats")) {
+            return dataStore.rebuildDailyStats();
+        }
+    }
+
+    /**
+     * Returns the unresolved tickets past their SLA deadline, loading only those tickets.
+     */
     public List<Ticket> escalations(LocalDateTime now) {
-        return dataStore.getTickets().stream()
-                .filter(t -> t.getStatus() != TicketStatus.RESOLVED)
-                .filter(t -> t.getCreatedAt().isBefore(now.minusHours(24)))
-                .collect(Collectors.toList());
+        try (CallScope scope = metrics.begin("TicketService.escalations")) {
+            return dataStore.findTicketsByIds(escalationScheduler.due(now), FetchPlan.SUMMARY);
+        }
     }
 
     public Ticket findTicket(int id) {
-        return dataStore.findTicket(id)
+        try (CallScope scope = metrics.begin("TicketService.findTicket")) {
+            return dataStore.findTicket(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Ticket not found"));
+        }
+    }
+
+    /**
+     * Loads the ticket row without its notes and history: write paths only check and change the
+     * row, and a full load would also flush queued appends through the writer.
+     */
+    private Ticket loadForUpdate(int id) {
+        return dataStore.findTicket(id, FetchPlan.SUMMARY)
                 .orElseThrow(() -> new IllegalArgumentException("Ticket not found"));
     }
 }
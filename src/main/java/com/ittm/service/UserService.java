@@ -1,40 +1,60 @@
 package com.ittm.service;
 
+import com.ittm.metrics.CallScope;
+import com.ittm.metrics.MetricsRegistry;
 import com.ittm.model.Role;
 import com.ittm.model.User;
 import com.ittm.repository.DataStore;
 
 import java.util.Collection;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public class UserService {
     private final DataStore dataStore;
+    private final MetricsRegistry metrics;
 
     public UserService(DataStore dataStore) {
         this.dataStore = dataStore;
+        this.metrics = dataStore.getMetrics();
     }
 
     public User createUser(int id, String name, Role role) {
-        User user = new User(id, name, role);
-        dataStore.saveUser(user);
-        return user;
+        try (CallScope scope = metrics.begin("UserService.createUser")) {
+            User user = new User(id, name, role);
+            dataStore.saveUser(user);
+            return user;
+        }
     }
 
     public Optional<User> findUser(int id) {
-        return dataStore.findUser(id);
+        try (CallScope scope = metrics.begin("UserService.findUser")) {
+            return dataStore.findUser(id);
+        }
     }
 
     public Collection<User> getAll() {
-        return dataStore.getAllUsers();
+        try (CallScope scope = metrics.begin("UserService.getAll")) {
+            return dataStore.getAllUsers();
+        }
+    }
+
+    /**
+     * Streams all users in id order without loading the whole table.
+     */
+    public Stream<User> streamAll() {
+        try (CallScope scope = metrics.begin("UserService.streamAll")) {
+            return dataStore.streamUsers();
+        }
     }
 
     public void changeRole(User admin, int userId, Role newRole) {
-        if (admin.getRole() != Role.ADMIN) {
-            throw new IllegalStateException("Only admins can change roles");
+        try (CallScope scope = metrics.begin("UserService.changeRole")) {
+            if (admin.getRole() != Role.ADMIN) {
+                throw new IllegalStateException("Only admins can change roles");
+            }
+            // a new object, so a failed save leaves nothing holding a role that was never stored
+            dataStore.findUser(userId).ifPresent(target -> dataStore.saveUser(new User(target.getId(), target.getName(), newRole)));
         }
-        dataStore.findUser(userId).ifPresent(target -> {
-            target.setRole(newRole);
-            dataStore.saveUser(target);
-        });
     }
 }
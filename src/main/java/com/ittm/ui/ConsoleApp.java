@@ -1,37 +1,76 @@
 package com.ittm.ui;
 
+import com.ittm.metrics.MetricsReporter;
 import com.ittm.model.ChangeRequest;
 import com.ittm.model.Role;
 import com.ittm.model.Ticket;
 import com.ittm.model.TicketStatus;
 import com.ittm.model.User;
 import com.ittm.repository.DataStore;
+import com.ittm.repository.FetchPlan;
+import com.ittm.repository.PageCursor;
+import com.ittm.repository.TicketFilter;
+import com.ittm.repository.TicketPage;
+import com.ittm.repository.TicketSearchHit;
 import com.ittm.service.ChangeRequestService;
+import com.ittm.service.ChangeRequestSweeper;
 import com.ittm.service.TicketService;
 import com.ittm.service.UserService;
 import com.ittm.util.DateTimeUtil;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Scanner;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 public class ConsoleApp {
+    private static final int PAGE_SIZE = 20;
     private final DataStore dataStore = new DataStore();
     private final UserService userService = new UserService(dataStore);
     private final TicketService ticketService = new TicketService(dataStore);
     private final ChangeRequestService changeRequestService = new ChangeRequestService(dataStore);
+    private final ChangeRequestSweeper changeRequestSweeper = new ChangeRequestSweeper(changeRequestService, Duration.ofHours(1),
+            archived -> {
+                if (archived > 0) {
+                    System.out.println("[Sweeper] Archived " + archived + " old change requests");
+                }
+            });
     private final Scanner scanner = new Scanner(System.in);
 
     public static void main(String[] args) {
         ConsoleApp app = new ConsoleApp();
         app.seed();
+        app.startBackgroundJobs();
         app.run();
     }
 
+    private void startBackgroundJobs() {
+        ticketService.getEscalationScheduler().addListener(event -> System.out.println("[Escalation] " + event));
+        ticketService.getEscalationScheduler().start();
+        changeRequestSweeper.start();
+        dataStore.getMetrics().registerMBean("ittm");
+        String metricsFile = System.getProperty("ittm.metrics.file");
+        if (metricsFile != null) {
+            Duration interval = Duration.ofSeconds(Long.getLong("ittm.metrics.intervalSeconds", 60));
+            new MetricsReporter(dataStore.getMetrics(), interval, report -> appendTo(Path.of(metricsFile), report)).start();
+        }
+    }
+
+    private static void appendTo(Path file, String text) {
+        try {
+            Files.writeString(file, text, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Unable to write metrics to " + file, ex);
+        }
+    }
+
     private void seed() {
         userService.createUser(1, "Alice", Role.USER);
         userService.createUser(2, "Bob", Role.USER);
@@ -76,7 +115,7 @@ public class ConsoleApp {
             try {
                 switch (choice) {
                     case "1" -> createTicketFlow(user);
-                    case "2" -> listTickets(ticketService.viewTicketsForUser(user));
+                    case "2" -> listTickets(ticketService.streamTicketsForUser(user, FetchPlan.FULL));
                     case "3" -> editDescriptionFlow(user);
                     case "4" -> addNoteFlow(user);
                     case "5" -> closeAwaitFlow(user);
@@ -95,16 +134,17 @@ public class ConsoleApp {
     private void agentMenu(User agent) {
         boolean back = false;
         while (!back) {
-            System.out.println("\nAgent Menu: 1-View Assigned 2-Update Status 3-Move to Awaiting 4-Add Note 5-Implement Change 6-Logout");
+            System.out.println("\nAgent Menu: 1-View Assigned 2-Update Status 3-Move to Awaiting 4-Add Note 5-Implement Change 6-Search Tickets 7-Logout");
             String choice = scanner.nextLine();
             try {
                 switch (choice) {
-                    case "1" -> listTickets(ticketService.viewTicketsForUser(agent));
+                    case "1" -> listTickets(ticketService.streamTicketsForUser(agent, FetchPlan.FULL));
                     case "2" -> updateStatusFlow(agent);
                     case "3" -> moveAwaitingFlow(agent);
                     case "4" -> addNoteFlow(agent);
                     case "5" -> implementChangeFlow(agent);
-                    case "6" -> back = true;
+                    case "6" -> searchTextFlow(agent);
+                    case "7" -> back = true;
                     default -> System.out.println("Invalid option");
                 }
             } catch (Exception ex) {
@@ -116,18 +156,19 @@ public class ConsoleApp {
     private void adminMenu(User admin) {
         boolean back = false;
         while (!back) {
-            System.out.println("\nAdmin Menu: 1-View All Tickets 2-Reassign 3-Reports 4-Escalations 5-Approve Change 6-View Agent Ratings 7-Archive Changes 8-Logout");
+            System.out.println("\nAdmin Menu: 1-View All Tickets 2-Reassign 3-Reports 4-Escalations 5-Approve Change 6-View Agent Ratings 7-Archive Changes 8-Rebuild Report Stats 9-Logout");
             String choice = scanner.nextLine();
             try {
                 switch (choice) {
-                    case "1" -> listTickets(ticketService.viewTicketsForUser(admin));
+                    case "1" -> browseTickets(admin);
                     case "2" -> reassignFlow(admin);
                     case "3" -> reportFlow();
                     case "4" -> escalationFlow();
                     case "5" -> approveChangeFlow(admin);
                     case "6" -> viewAgentRatings();
                     case "7" -> archiveChanges();
-                    case "8" -> back = true;
+                    case "8" -> rebuildReportStats();
+                    case "9" -> back = true;
                     default -> System.out.println("Invalid option");
                 }
             } catch (Exception ex) {
@@ -239,8 +280,8 @@ public class ConsoleApp {
     }
 
     private void reportFlow() {
-        Map<String, String> monthly = ticketService.monthlyReport();
-        System.out.println("Monthly resolved vs reopened counts: " + monthly);
+        System.out.println("Monthly resolved vs reopened counts:");
+        ticketService.monthlyReport().forEach(row -> System.out.println("  " + row));
         System.out.println("Change requests expiring in 15 days: ");
         changeRequestService.expiringWithin(15).forEach(cr -> System.out.println("CR " + cr.getId() + " expires " + cr.getExpiryDate()));
     }
@@ -250,8 +291,8 @@ public class ConsoleApp {
         if (escalations.isEmpty()) {
             System.out.println("No escalations pending");
         } else {
-            System.out.println("Escalations (>24h unresolved):");
-            listTickets(escalations);
+            System.out.println("Escalations (unresolved past SLA):");
+            listTickets(escalations.stream());
         }
     }
 
@@ -264,24 +305,45 @@ public class ConsoleApp {
     }
 
     private void viewAgentRatings() {
-        dataStore.getTickets().stream()
-                .filter(t -> t.getAssignedAgent() != null)
-                .collect(Collectors.groupingBy(t -> t.getAssignedAgent().getName()))
-                .forEach((agent, list) -> {
-                    long flagged = list.stream().filter(Ticket::isAgentFlagged).count();
-                    double avg = list.stream().filter(t -> t.getRating() != null)
-                            .mapToInt(Ticket::getRating)
-                            .average().orElse(0);
-                    System.out.println(agent + " -> avg rating " + String.format("%.2f", avg) + " flagged low ratings: " + flagged);
-                });
+        ticketService.agentRatings().forEach(System.out::println);
+    }
+
+    private void rebuildReportStats() {
+        int rows = ticketService.rebuildReportStats();
+        System.out.println("Report statistics rebuilt: " + rows + " rollup rows.");
     }
 
     private void archiveChanges() {
-        changeRequestService.archiveOld(LocalDate.now());
-        System.out.println("Archiving completed. Active changes: " + dataStore.getChangeRequests().size());
+        int archived = changeRequestService.archiveOld(LocalDate.now());
+        System.out.println("Archiving completed. Archived " + archived + " change requests.");
+    }
+
+    private void browseTickets(User user) {
+        PageCursor cursor = null;
+        while (true) {
+            TicketPage page = ticketService.viewTicketsForUser(user, new TicketFilter(), cursor, PAGE_SIZE, FetchPlan.FULL);
+            listTickets(page.getTickets().stream());
+            if (page.getNext().isEmpty()) {
+                return;
+            }
+            System.out.println("n-Next page, any other key to stop:");
+            if (!scanner.nextLine().equalsIgnoreCase("n")) {
+                return;
+            }
+            cursor = page.getNext().get();
+        }
+    }
+
+    private void searchTextFlow(User user) {
+        System.out.println("Search words (append * for a prefix, e.g. print*):");
+        List<TicketSearchHit> hits = ticketService.searchText(user, scanner.nextLine(), PAGE_SIZE);
+        if (hits.isEmpty()) {
+            System.out.println("No matching tickets");
+        }
+        hits.forEach(hit -> System.out.println("  " + hit));
     }
 
-    private void listTickets(List<Ticket> tickets) {
+    private void listTickets(Stream<Ticket> tickets) {
         tickets.forEach(t -> {
             System.out.println("Ticket " + t.getId() + " [" + t.getStatus() + "] " + t.getTitle() +
                     " assigned:" + (t.getAssignedAgent() != null ? t.getAssignedAgent().getName() : "N/A") +
@@ -0,0 +1,186 @@
+package com.ittm.util;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash map from {@code int} to {@code int} with linear probing. Keys and values
+ * live in two flat arrays, so nothing is boxed and an entry costs two array slots. Slot key 0
+ * marks a free slot; the key 0 itself is stored beside the table.
+ *
+ * <p>Not thread-safe.
+ */
+public class IntIntHashMap {
+    private static final int MIN_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size;
+    private boolean hasZeroKey;
+    private int zeroValue;
+
+    public IntIntHashMap() {
+        this(MIN_CAPACITY);
+    }
+
+    public IntIntHashMap(int expectedSize) {
+        allocate(tableSize(expectedSize));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean containsKey(int key) {
+        return key == 0 ? hasZeroKey : indexOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value mapped to {@code key}, or {@code missing} when there is none.
+     */
+    public int get(int key, int missing) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : missing;
+        }
+        int index = indexOf(key);
+        return index >= 0 ? values[index] : missing;
+    }
+
+    public void put(int key, int value) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                size++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                values[index] = value;
+                return;
+            }
+            index = (index + 1) & mask;
+        }
+        keys[index] = key;
+        values[index] = value;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash(keys.length * 2);
+        }
+    }
+
+    /**
+     * Removes the mapping for {@code key}; returns whether there was one. Later entries of the
+     * probe run are shifted back instead of leaving tombstones, so lookups never slow down
+     * after many removals.
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                return false;
+            }
+            hasZeroKey = false;
+            zeroValue = 0;
+            size--;
+            return true;
+        }
+        int gap = indexOf(key);
+        if (gap < 0) {
+            return false;
+        }
+        size--;
+        int index = gap;
+        while (true) {
+            index = (index + 1) & mask;
+            int candidate = keys[index];
+            if (candidate == 0) {
+                break;
+            }
+            int home = slot(candidate);
+            boolean reachable = gap <= index ? home <= gap || home > index : home <= gap && home > index;
+            if (reachable) {
+                keys[gap] = candidate;
+                values[gap] = values[index];
+                gap = index;
+            }
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+        return true;
+    }
+
+    /**
+     * Bytes held by the key and value arrays at their current capacity, so the figure does not
+     * depend on GC timing. Counts a 16-byte header per array and ignores the map object itself.
+     */
+    public long footprint() {
+        return arrayBytes(keys.length, Integer.BYTES) + arrayBytes(values.length, Integer.BYTES);
+    }
+
+    /**
+     * Size of an array of {@code length} elements: a 16-byte header plus the elements, padded to
+     * the 8-byte object alignment.
+     */
+    static long arrayBytes(long length, int elementBytes) {
+        return (16 + length * elementBytes + 7) & ~7L;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    private int indexOf(int key) {
+        int index = slot(key);
+        while (keys[index] != 0) {
+            if (keys[index] == key) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Fibonacci hashing spreads sequential ids, which would otherwise fill one probe run.
+     */
+    private int slot(int key) {
+        int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key != 0) {
+                int index = slot(key);
+                while (keys[index] != 0) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = key;
+                values[index] = oldValues[i];
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int tableSize(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity * 3 / 4 < expectedSize) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+}
@@ -0,0 +1,126 @@
+package com.ittm.util;
+
+import java.util.Arrays;
+
+/**
+ * Maps an {@code int} key to a sorted set of {@code int} values. Each key owns one growable
+ * {@code int[]} kept in ascending order, found through an {@link IntIntHashMap} from key to
+ * array slot, so the structure holds no boxed numbers and no per-value objects. Adding the
+ * largest value so far (the usual case for new ids) is an append; other changes shift the tail
+ * of one array.
+ *
+ * <p>Not thread-safe.
+ */
+public class IntSetMultimap {
+    private static final int[] EMPTY = new int[0];
+
+    private final IntIntHashMap slots = new IntIntHashMap();
+    private int[][] sets = new int[16][];
+    private int[] sizes = new int[16];
+    private int slotCount;
+    private long valueCount;
+
+    /**
+     * Adds {@code value} to the set of {@code key}; returns false when it was already there.
+     */
+    public boolean add(int key, int value) {
+        int slot = slots.get(key, -1);
+        if (slot < 0) {
+            slot = newSlot(key);
+        }
+        int[] set = sets[slot];
+        int size = sizes[slot];
+        int position = size > 0 && set[size - 1] < value ? -(size + 1) : Arrays.binarySearch(set, 0, size, value);
+        if (position >= 0) {
+            return false;
+        }
+        int insertAt = -(position + 1);
+        if (size == set.length) {
+            set = Arrays.copyOf(set, Math.max(4, size + (size >> 1)));
+            sets[slot] = set;
+        }
+        System.arraycopy(set, insertAt, set, insertAt + 1, size - insertAt);
+        set[insertAt] = value;
+        sizes[slot] = size + 1;
+        valueCount++;
+        return true;
+    }
+
+    /**
+     * Removes {@code value} from the set of {@code key}; returns whether it was there.
+     */
+    public boolean remove(int key, int value) {
+        int slot = slots.get(key, -1);
+        if (slot < 0) {
+            return false;
+        }
+        int[] set = sets[slot];
+        int size = sizes[slot];
+        int position = Arrays.binarySearch(set, 0, size, value);
+        if (position < 0) {
+            return false;
+        }
+        System.arraycopy(set, position + 1, set, position, size - position - 1);
+        sizes[slot] = size - 1;
+        valueCount--;
+        return true;
+    }
+
+    /**
+     * Returns a copy of the values of {@code key} in ascending order.
+     */
+    public int[] get(int key) {
+        int slot = slots.get(key, -1);
+        return slot < 0 ? EMPTY : Arrays.copyOf(sets[slot], sizes[slot]);
+    }
+
+    public int count(int key) {
+        int slot = slots.get(key, -1);
+        return slot < 0 ? 0 : sizes[slot];
+    }
+
+    public int keyCount() {
+        return slots.size();
+    }
+
+    public long size() {
+        return valueCount;
+    }
+
+    /**
+     * Bytes held by the backing arrays at their current capacity (see
+     * {@link IntIntHashMap#footprint()}); references count four bytes, as with compressed oops.
+     */
+    public long footprint() {
+        long bytes = slots.footprint() + IntIntHashMap.arrayBytes(sets.length, Integer.BYTES)
+                + IntIntHashMap.arrayBytes(sizes.length, Integer.BYTES);
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (sets[slot] != EMPTY) {
+                bytes += IntIntHashMap.arrayBytes(sets[slot].length, Integer.BYTES);
+            }
+        }
+        return bytes;
+    }
+
+    public void clear() {
+        slots.clear();
+        sets = new int[16][];
+        sizes = new int[16];
+        slotCount = 0;
+        valueCount = 0;
+    }
+
+    /**
+     * Keys keep their slot when their set becomes empty: owners (requesters, agents) come back.
+     */
+    private int newSlot(int key) {
+        if (slotCount == sets.length) {
+            sets = Arrays.copyOf(sets, slotCount * 2);
+            sizes = Arrays.copyOf(sizes, slotCount * 2);
+        }
+        int slot = slotCount++;
+        sets[slot] = EMPTY;
+        slots.put(key, slot);
+        return slot;
+    }
+}